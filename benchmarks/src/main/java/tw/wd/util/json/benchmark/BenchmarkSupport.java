@@ -0,0 +1,75 @@
+package tw.wd.util.json.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Raw Jackson streaming code used as the baseline the JSONUtils numbers are compared against.
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Walk every token and touch its value, the minimum work any parse needs to do.
+     */
+    static long consumeTokens(JsonParser jsonParser) throws IOException {
+        JsonToken jsonToken = null;
+        long checksum       = 0;
+
+        while ((jsonToken = jsonParser.nextToken()) != null) {
+            if (jsonToken == JsonToken.FIELD_NAME || jsonToken == JsonToken.VALUE_STRING) {
+                checksum += jsonParser.getTextLength();
+            } else if (jsonToken == JsonToken.VALUE_NUMBER_INT) {
+                checksum += jsonParser.getLongValue();
+            } else {
+                checksum += jsonToken.ordinal();
+            }
+        }
+
+        return checksum;
+    }
+
+    static void writeMap(JsonGenerator jsonGenerator, Map<String, Object> valueMap) throws IOException {
+        jsonGenerator.writeStartObject();
+        for (Entry<String, Object> entry : valueMap.entrySet()) {
+            jsonGenerator.writeFieldName(entry.getKey());
+            writeValue(jsonGenerator, entry.getValue());
+        }
+        jsonGenerator.writeEndObject();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeValue(JsonGenerator jsonGenerator, Object value) throws IOException {
+        if (value == null) {
+            jsonGenerator.writeNull();
+        } else if (value instanceof String) {
+            jsonGenerator.writeString((String) value);
+        } else if (value instanceof Integer) {
+            jsonGenerator.writeNumber((Integer) value);
+        } else if (value instanceof Long) {
+            jsonGenerator.writeNumber((Long) value);
+        } else if (value instanceof Boolean) {
+            jsonGenerator.writeBoolean((Boolean) value);
+        } else if (value instanceof Number) {
+            jsonGenerator.writeNumber(((Number) value).doubleValue());
+        } else if (value instanceof Map) {
+            writeMap(jsonGenerator, (Map<String, Object>) value);
+        } else if (value instanceof List) {
+            jsonGenerator.writeStartArray();
+            for (Object element : (List<?>) value) {
+                writeValue(jsonGenerator, element);
+            }
+            jsonGenerator.writeEndArray();
+        } else {
+            jsonGenerator.writeString(value.toString());
+        }
+    }
+}
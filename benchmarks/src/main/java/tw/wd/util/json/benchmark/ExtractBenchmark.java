@@ -0,0 +1,71 @@
+package tw.wd.util.json.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.openjdk.jmh.annotations.*;
+import tw.wd.util.json.FieldExtractor;
+import tw.wd.util.json.JSONUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Field extraction: the {@code JSONUtils.getFieldValue} overloads and a precompiled
+ * {@link FieldExtractor} against a raw Jackson scan
+ * which stops at the wanted top-level field.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExtractBenchmark {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Benchmark
+    public Object getFieldValue(PayloadState state) throws Exception {
+        return JSONUtils.getFieldValue(state.jsonText, state.lookupField, state.lookupType);
+    }
+
+    @Benchmark
+    public Object[] getFieldValues(PayloadState state) throws Exception {
+        return JSONUtils.getFieldValue(state.jsonText, state.multiFields, state.multiTypes);
+    }
+
+    @Benchmark
+    public Object[] getFieldValuesWithExtractor(ExtractorState state) throws Exception {
+        return JSONUtils.getFieldValue(state.payload.jsonText, state.fieldExtractor);
+    }
+
+    @Benchmark
+    public Object baselineJacksonStreaming(PayloadState state) throws Exception {
+        JsonParser jsonParser = JSON_FACTORY.createParser(state.jsonText);
+        try {
+            jsonParser.nextToken();
+            while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+                boolean isMatched = state.lookupField.equals(jsonParser.getCurrentName());
+
+                jsonParser.nextToken();
+                if (isMatched) {
+                    return JSONUtils.getFieldValue(jsonParser, state.lookupType);
+                }
+                jsonParser.skipChildren();
+            }
+            return null;
+        } finally {
+            jsonParser.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ExtractorState {
+        PayloadState payload;
+        FieldExtractor fieldExtractor;
+
+        @Setup(Level.Trial)
+        public void setUp(PayloadState payload) {
+            this.payload        = payload;
+            this.fieldExtractor = FieldExtractor.compile(payload.multiFields, payload.multiTypes);
+        }
+    }
+}
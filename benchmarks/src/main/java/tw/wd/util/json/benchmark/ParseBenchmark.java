@@ -0,0 +1,65 @@
+package tw.wd.util.json.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import org.openjdk.jmh.annotations.*;
+import tw.wd.util.json.JSONUtils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Document parsing and validation: {@link JSONUtils#toMap(String)}, lazy documents, {@link JSONUtils#isJSONFormat(String)}
+ * and {@link JSONUtils#isFieldExist(String, String...)} against a raw Jackson token walk.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Benchmark
+    public Map<String, Object> toMap(PayloadState state) throws Exception {
+        return JSONUtils.toMap(state.jsonText);
+    }
+
+    @Benchmark
+    public Map<String, Object> toMapFromBytes(PayloadState state) throws Exception {
+        return JSONUtils.toMap(state.jsonBytes);
+    }
+
+    @Benchmark
+    public Object toLazyMapAndGet(PayloadState state) throws Exception {
+        Map<String, Object> document = JSONUtils.toLazyMap(state.jsonBytes);
+
+        document.get(state.multiFields[0]);
+        return document.get(state.lookupField);
+    }
+
+    @Benchmark
+    public boolean isJSONFormat(PayloadState state) throws Exception {
+        return JSONUtils.isJSONFormat(state.jsonText);
+    }
+
+    @Benchmark
+    public boolean isJSONFormatFromBytes(PayloadState state) throws Exception {
+        return JSONUtils.isJSONFormat(state.jsonBytes);
+    }
+
+    @Benchmark
+    public boolean isFieldExist(PayloadState state) throws Exception {
+        return JSONUtils.isFieldExist(state.jsonText, state.multiFields);
+    }
+
+    @Benchmark
+    public long baselineJacksonStreaming(PayloadState state) throws Exception {
+        JsonParser jsonParser = JSON_FACTORY.createParser(state.jsonText);
+        try {
+            return BenchmarkSupport.consumeTokens(jsonParser);
+        } finally {
+            jsonParser.close();
+        }
+    }
+}
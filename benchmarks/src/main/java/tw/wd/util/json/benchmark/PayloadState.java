@@ -0,0 +1,38 @@
+package tw.wd.util.json.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import tw.wd.util.json.JSONUtils;
+
+import java.util.Map;
+
+/**
+ * Shared benchmark input: one document per shape/size combination, plus its parsed map
+ * for the serialization benchmarks.
+ */
+@State(Scope.Benchmark)
+public class PayloadState {
+    @Param({"FLAT", "NESTED", "OBJECT_ARRAY", "STRING_ARRAY"})
+    public Payloads.Shape shape;
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public Payloads.Size size;
+
+    public String jsonText;
+    public byte[] jsonBytes;
+    public Map<String, Object> valueMap;
+    public String lookupField;
+    public byte lookupType;
+    public String[] multiFields;
+    public byte[] multiTypes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        jsonText    = Payloads.create(shape, size);
+        jsonBytes   = jsonText.getBytes("UTF-8");
+        valueMap    = JSONUtils.toMap(jsonText);
+        lookupField = Payloads.lookupField(shape, size);
+        lookupType  = Payloads.lookupType(shape);
+        multiFields = Payloads.multiFields(shape);
+        multiTypes  = Payloads.multiTypes(shape);
+    }
+}
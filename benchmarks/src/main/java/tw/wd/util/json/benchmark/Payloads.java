@@ -0,0 +1,132 @@
+package tw.wd.util.json.benchmark;
+
+import tw.wd.util.json.JSONUtils;
+
+/**
+ * Generates the JSON documents used by the benchmarks. Every shape is built for three
+ * sizes so per-call overhead (small) and per-token cost (large) can be told apart.
+ */
+public final class Payloads {
+
+    public enum Shape {
+        /** Flat object of string and number fields. */
+        FLAT,
+        /** Object holding nested objects, like the pl1/pl2 test fixtures. */
+        NESTED,
+        /** Object holding an array of objects. */
+        OBJECT_ARRAY,
+        /** Object holding one long array of strings. */
+        STRING_ARRAY
+    }
+
+    public enum Size {
+        SMALL(4),
+        MEDIUM(64),
+        LARGE(2048);
+
+        private final int elements;
+
+        Size(int elements) {
+            this.elements = elements;
+        }
+
+        public int elements() {
+            return elements;
+        }
+    }
+
+    private Payloads() {
+    }
+
+    public static String create(Shape shape, Size size) {
+        StringBuilder jsonText  = new StringBuilder(size.elements() * 48);
+        int elements            = size.elements();
+
+        switch (shape) {
+            case FLAT:
+                jsonText.append("{\"name\":\"Hello\",\"phone\":\"0912345678\",\"id\":102030");
+                for (int idx = 0; idx < elements; idx++) {
+                    jsonText.append(",\"f").append(idx).append("\":");
+                    if ((idx & 1) == 0) {
+                        jsonText.append('"').append("value_").append(idx).append('"');
+                    } else {
+                        jsonText.append(1000000L * idx);
+                    }
+                }
+                jsonText.append('}');
+                break;
+            case NESTED:
+                jsonText.append("{\"name\":\"Hello\",\"phone\":\"0912345678\",\"id\":102030");
+                for (int idx = 1; idx <= elements; idx++) {
+                    jsonText.append(",\"pl").append(idx).append("\":{\"pid\":").append(10000 * idx + 1)
+                            .append(",\"pname\":\"test_project").append(idx)
+                            .append("\",\"owner\":{\"uid\":").append(idx).append(",\"tags\":[\"a\",\"b\"]}}");
+                }
+                jsonText.append(",\"status\":\"ACTIVE\"}");
+                break;
+            case OBJECT_ARRAY:
+                jsonText.append("{\"name\":\"Hello\",\"phone\":\"0912345678\",\"id\":102030,\"pl\":[");
+                for (int idx = 1; idx <= elements; idx++) {
+                    if (idx > 1) {
+                        jsonText.append(',');
+                    }
+                    jsonText.append("{\"pid\":").append(10000 + idx)
+                            .append(",\"pname\":\"test_project").append(idx)
+                            .append("\",\"active\":").append((idx & 1) == 0).append('}');
+                }
+                jsonText.append("],\"status\":\"ACTIVE\"}");
+                break;
+            case STRING_ARRAY:
+                jsonText.append("{\"id\":102030,\"sl\":[");
+                for (int idx = 0; idx < elements; idx++) {
+                    if (idx > 0) {
+                        jsonText.append(',');
+                    }
+                    jsonText.append("\"gu").append(1000000 + idx).append("_member\"");
+                }
+                jsonText.append("]}");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown shape: " + shape);
+        }
+
+        return jsonText.toString();
+    }
+
+    /**
+     * Field looked up by the single-field extraction benchmarks, placed after the bulk of the document.
+     */
+    public static String lookupField(Shape shape, Size size) {
+        switch (shape) {
+            case FLAT:
+                return "f" + (size.elements() - 2);
+            case NESTED:
+            case OBJECT_ARRAY:
+                return "status";
+            default:
+                return "sl";
+        }
+    }
+
+    public static byte lookupType(Shape shape) {
+        return shape == Shape.STRING_ARRAY ? JSONUtils.TYPE_ARRAY_STRING : JSONUtils.TYPE_STRING;
+    }
+
+    public static String[] multiFields(Shape shape) {
+        switch (shape) {
+            case STRING_ARRAY:
+                return new String[]{"id", "sl"};
+            default:
+                return new String[]{"name", "phone", "id"};
+        }
+    }
+
+    public static byte[] multiTypes(Shape shape) {
+        switch (shape) {
+            case STRING_ARRAY:
+                return new byte[]{JSONUtils.TYPE_INT, JSONUtils.TYPE_ARRAY_STRING};
+            default:
+                return new byte[]{JSONUtils.TYPE_STRING, JSONUtils.TYPE_STRING, JSONUtils.TYPE_INT};
+        }
+    }
+}
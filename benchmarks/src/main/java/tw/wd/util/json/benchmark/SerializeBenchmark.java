@@ -0,0 +1,56 @@
+package tw.wd.util.json.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SegmentedStringWriter;
+import com.fasterxml.jackson.core.util.BufferRecycler;
+import org.openjdk.jmh.annotations.*;
+import tw.wd.util.json.JSONUtils;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Map serialization: {@link JSONUtils#toJSON(java.util.Map)}, {@link JSONUtils#toJSONBytes(java.util.Map)}
+ * and a reused ByteBuffer target against writing the same map with a raw Jackson generator into a String.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializeBenchmark {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Benchmark
+    public String toJSON(PayloadState state) {
+        return JSONUtils.toJSON(state.valueMap);
+    }
+
+    @Benchmark
+    public byte[] toJSONBytes(PayloadState state) throws Exception {
+        return JSONUtils.toJSONBytes(state.valueMap);
+    }
+
+    @Benchmark
+    public ByteBuffer toJSONIntoByteBuffer(PayloadState state, BufferState bufferState) throws Exception {
+        bufferState.byteBuffer.clear();
+        bufferState.byteBuffer = JSONUtils.toJSON(state.valueMap, bufferState.byteBuffer);
+        return bufferState.byteBuffer;
+    }
+
+    @Benchmark
+    public String baselineJacksonStreaming(PayloadState state) throws Exception {
+        SegmentedStringWriter writer    = new SegmentedStringWriter(new BufferRecycler());
+        JsonGenerator jsonGenerator     = JSON_FACTORY.createGenerator(writer);
+
+        BenchmarkSupport.writeMap(jsonGenerator, state.valueMap);
+        jsonGenerator.close();
+        return writer.getAndClear();
+    }
+
+    @State(Scope.Thread)
+    public static class BufferState {
+        ByteBuffer byteBuffer = ByteBuffer.allocate(256);
+    }
+}
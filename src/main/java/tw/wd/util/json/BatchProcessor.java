@@ -0,0 +1,383 @@
+package tw.wd.util.json;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Parses or extracts fields from many documents in parallel on a fork-join pool.
+ * <p>
+ * Results are returned in input order. Batches smaller than the sequential threshold run on the
+ * calling thread, which is cheaper than handing a few small documents to other threads. Workers
+ * share the engine, whose factory and output buffers are already kept per thread, so no parser
+ * state crosses threads. NDJSON files are split into chunks at line boundaries, each chunk read by
+ * one worker. When documents fail the first failure seen is thrown and the remaining work stops.
+ * A processor is thread-safe.
+ * <p>
+ * A processor built with {@link Builder#parallelism(int)} owns its pool; {@link #close()} shuts that pool
+ * down. The common pool and a pool passed to {@link Builder#forkJoinPool(ForkJoinPool)} are left running.
+ */
+public class BatchProcessor implements AutoCloseable {
+    private static final int DEFAULT_SEQUENTIAL_THRESHOLD   = 64;
+    private static final int DEFAULT_MIN_CHUNK_SIZE         = 1024 * 1024;
+    private static final int TASKS_PER_WORKER               = 4;
+
+    private final JSONEngine jsonEngine;
+    private final ForkJoinPool forkJoinPool;
+    private final boolean isOwnPool;
+    private final int sequentialThreshold;
+    private final int minChunkSize;
+
+    public BatchProcessor() {
+        this(new Builder());
+    }
+
+    private BatchProcessor(Builder builder) {
+        this.jsonEngine             = builder.jsonEngine != null ? builder.jsonEngine : JSONEngine.getDefault();
+        this.sequentialThreshold    = builder.sequentialThreshold;
+        this.minChunkSize           = builder.minChunkSize;
+
+        this.isOwnPool              = builder.forkJoinPool == null && builder.parallelism > 0;
+
+        if (builder.forkJoinPool != null) {
+            this.forkJoinPool = builder.forkJoinPool;
+        } else if (isOwnPool) {
+            this.forkJoinPool = new ForkJoinPool(builder.parallelism);
+        } else {
+            this.forkJoinPool = ForkJoinPool.commonPool();
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getParallelism() {
+        return forkJoinPool.getParallelism();
+    }
+
+    /**
+     * Shut down the pool created for this processor, if any; running batches complete first.
+     */
+    @Override
+    public void close() {
+        if (isOwnPool) {
+            forkJoinPool.shutdown();
+        }
+    }
+
+    public List<Map<String, Object>> toMap(List<String> jsonTexts) throws Exception {
+        return process(jsonTexts, new DocumentHandler<String, Map<String, Object>>() {
+            @Override
+            public Map<String, Object> handle(String jsonText) throws Exception {
+                return jsonEngine.toMap(jsonText);
+            }
+        });
+    }
+
+    public List<Map<String, Object>> toMapFromBytes(List<byte[]> jsonBytes) throws Exception {
+        return process(jsonBytes, new DocumentHandler<byte[], Map<String, Object>>() {
+            @Override
+            public Map<String, Object> handle(byte[] document) throws Exception {
+                return jsonEngine.toMap(document);
+            }
+        });
+    }
+
+    public List<Object[]> getFieldValue(List<String> jsonTexts, final FieldExtractor fieldExtractor) throws Exception {
+        return process(jsonTexts, new DocumentHandler<String, Object[]>() {
+            @Override
+            public Object[] handle(String jsonText) throws Exception {
+                return jsonEngine.getFieldValue(jsonText, fieldExtractor);
+            }
+        });
+    }
+
+    public List<Object[]> getFieldValueFromBytes(List<byte[]> jsonBytes, final FieldExtractor fieldExtractor) throws Exception {
+        return process(jsonBytes, new DocumentHandler<byte[], Object[]>() {
+            @Override
+            public Object[] handle(byte[] document) throws Exception {
+                return jsonEngine.getFieldValue(document, fieldExtractor);
+            }
+        });
+    }
+
+    /**
+     * Parse every record of an NDJSON file, blank lines skipped.
+     */
+    public List<Map<String, Object>> toMap(Path ndjsonPath) throws Exception {
+        return process(ndjsonPath, new RecordHandler<Map<String, Object>>() {
+            @Override
+            public Map<String, Object> handle(NDJSONReader reader) throws Exception {
+                return reader.toMap();
+            }
+        });
+    }
+
+    public List<Object[]> getFieldValue(Path ndjsonPath, final FieldExtractor fieldExtractor) throws Exception {
+        return process(ndjsonPath, new RecordHandler<Object[]>() {
+            @Override
+            public Object[] handle(NDJSONReader reader) throws Exception {
+                return reader.getFieldValue(fieldExtractor);
+            }
+        });
+    }
+
+    private <I, R> List<R> process(List<I> inputs, DocumentHandler<I, R> handler) throws Exception {
+        int size            = inputs.size();
+        Object[] results    = new Object[size];
+
+        if (size < sequentialThreshold || forkJoinPool.getParallelism() == 1) {
+            for (int idx = 0; idx < size; idx++) {
+                results[idx] = handler.handle(inputs.get(idx));
+            }
+        } else {
+            AtomicReference<Exception> failure = new AtomicReference<Exception>();
+            int leafSize = Math.max(1, size / (forkJoinPool.getParallelism() * TASKS_PER_WORKER));
+
+            // Tasks index into the list, so copy inputs which are not random access.
+            List<I> indexedInputs = inputs instanceof RandomAccess ? inputs : new ArrayList<I>(inputs);
+
+            forkJoinPool.invoke(new DocumentTask<I, R>(indexedInputs, results, 0, size, leafSize, handler, failure));
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+        }
+
+        return resultList(results);
+    }
+
+    private <R> List<R> process(Path ndjsonPath, RecordHandler<R> handler) throws Exception {
+        FileChannel fileChannel = FileChannel.open(ndjsonPath, StandardOpenOption.READ);
+
+        try {
+            long[] boundaries = chunkBoundaries(fileChannel);
+            List<ChunkTask<R>> chunkTasks = new ArrayList<ChunkTask<R>>(boundaries.length - 1);
+            AtomicReference<Exception> failure = new AtomicReference<Exception>();
+
+            for (int idx = 0; idx < boundaries.length - 1; idx++) {
+                chunkTasks.add(new ChunkTask<R>(jsonEngine, fileChannel, boundaries[idx], boundaries[idx + 1], handler, failure));
+            }
+
+            if (chunkTasks.size() == 1) {
+                chunkTasks.get(0).compute();
+            } else {
+                forkJoinPool.invoke(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        invokeAll(chunkTasks);
+                    }
+                });
+            }
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+
+            List<R> results = new ArrayList<R>();
+            for (ChunkTask<R> chunkTask : chunkTasks) {
+                results.addAll(chunkTask.results);
+            }
+            return results;
+        } finally {
+            fileChannel.close();
+        }
+    }
+
+    /**
+     * Split the file into about {@code TASKS_PER_WORKER} chunks per worker, no smaller than the
+     * minimum chunk size, each moved forward to start right after a newline.
+     */
+    private long[] chunkBoundaries(FileChannel fileChannel) throws IOException {
+        long fileSize   = fileChannel.size();
+        long chunkCount = Math.min(fileSize / minChunkSize, (long) forkJoinPool.getParallelism() * TASKS_PER_WORKER);
+        long chunkSize  = chunkCount > 1 ? fileSize / chunkCount : fileSize;
+        List<Long> boundaries = new ArrayList<Long>();
+
+        boundaries.add(0L);
+        for (long idx = 1; idx < chunkCount; idx++) {
+            long boundary = nextLineStart(fileChannel, idx * chunkSize, fileSize);
+
+            if (boundary > boundaries.get(boundaries.size() - 1) && boundary < fileSize) {
+                boundaries.add(boundary);
+            }
+        }
+        boundaries.add(fileSize);
+
+        long[] rtnBoundaries = new long[boundaries.size()];
+        for (int idx = 0; idx < rtnBoundaries.length; idx++) {
+            rtnBoundaries[idx] = boundaries.get(idx);
+        }
+        return rtnBoundaries;
+    }
+
+    private static long nextLineStart(FileChannel fileChannel, long position, long fileSize) throws IOException {
+        ByteBuffer byteBuffer   = ByteBuffer.allocate(8192);
+        long pos                = position - 1;
+
+        while (pos < fileSize) {
+            byteBuffer.clear();
+            int count = fileChannel.read(byteBuffer, pos);
+            if (count <= 0) {
+                break;
+            }
+
+            for (int idx = 0; idx < count; idx++) {
+                if (byteBuffer.get(idx) == '\n') {
+                    return pos + idx + 1;
+                }
+            }
+            pos += count;
+        }
+
+        return fileSize;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R> List<R> resultList(Object[] results) {
+        return (List<R>) Arrays.asList(results);
+    }
+
+    private interface DocumentHandler<I, R> {
+        R handle(I document) throws Exception;
+    }
+
+    private interface RecordHandler<R> {
+        R handle(NDJSONReader reader) throws Exception;
+    }
+
+    private static class DocumentTask<I, R> extends RecursiveAction {
+        private final List<I> inputs;
+        private final Object[] results;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+        private final DocumentHandler<I, R> handler;
+        private final AtomicReference<Exception> failure;
+
+        private DocumentTask(List<I> inputs, Object[] results, int from, int to, int leafSize,
+                             DocumentHandler<I, R> handler, AtomicReference<Exception> failure) {
+            this.inputs     = inputs;
+            this.results    = results;
+            this.from       = from;
+            this.to         = to;
+            this.leafSize   = leafSize;
+            this.handler    = handler;
+            this.failure    = failure;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > leafSize) {
+                int mid = (from + to) >>> 1;
+
+                invokeAll(new DocumentTask<I, R>(inputs, results, from, mid, leafSize, handler, failure),
+                        new DocumentTask<I, R>(inputs, results, mid, to, leafSize, handler, failure));
+                return;
+            }
+
+            try {
+                for (int idx = from; idx < to && failure.get() == null; idx++) {
+                    results[idx] = handler.handle(inputs.get(idx));
+                }
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+    }
+
+    private static class ChunkTask<R> extends RecursiveAction {
+        private final JSONEngine jsonEngine;
+        private final FileChannel fileChannel;
+        private final long start;
+        private final long end;
+        private final RecordHandler<R> handler;
+        private final AtomicReference<Exception> failure;
+        private final List<R> results;
+
+        private ChunkTask(JSONEngine jsonEngine, FileChannel fileChannel, long start, long end, RecordHandler<R> handler,
+                          AtomicReference<Exception> failure) {
+            this.jsonEngine     = jsonEngine;
+            this.fileChannel    = fileChannel;
+            this.start          = start;
+            this.end            = end;
+            this.handler        = handler;
+            this.failure        = failure;
+            this.results        = new ArrayList<R>();
+        }
+
+        @Override
+        protected void compute() {
+            NDJSONReader reader = new NDJSONReader(new FileRangeInputStream(fileChannel, start, end), jsonEngine);
+
+            try {
+                while (failure.get() == null && reader.next()) {
+                    results.add(handler.handle(reader));
+                }
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+    }
+
+    public static class Builder {
+        private JSONEngine jsonEngine;
+        private ForkJoinPool forkJoinPool;
+        private int parallelism;
+        private int sequentialThreshold = DEFAULT_SEQUENTIAL_THRESHOLD;
+        private int minChunkSize        = DEFAULT_MIN_CHUNK_SIZE;
+
+        public Builder jsonEngine(JSONEngine jsonEngine) {
+            this.jsonEngine = jsonEngine;
+            return this;
+        }
+
+        /**
+         * Pool to run on. Without a pool or a parallelism level the common pool is used.
+         */
+        public Builder forkJoinPool(ForkJoinPool forkJoinPool) {
+            this.forkJoinPool = forkJoinPool;
+            return this;
+        }
+
+        /**
+         * Number of worker threads of a pool owned by the processor and shut down by {@link BatchProcessor#close()}.
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("Parallelism must be positive.");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Batches with fewer documents run on the calling thread.
+         */
+        public Builder sequentialThreshold(int sequentialThreshold) {
+            this.sequentialThreshold = sequentialThreshold;
+            return this;
+        }
+
+        /**
+         * Smallest NDJSON chunk handed to one worker, in bytes.
+         */
+        public Builder minChunkSize(int minChunkSize) {
+            if (minChunkSize <= 0) {
+                throw new IllegalArgumentException("Minimum chunk size must be positive.");
+            }
+            this.minChunkSize = minChunkSize;
+            return this;
+        }
+
+        public BatchProcessor build() {
+            return new BatchProcessor(this);
+        }
+    }
+}
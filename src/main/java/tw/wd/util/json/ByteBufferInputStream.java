@@ -0,0 +1,48 @@
+package tw.wd.util.json;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * InputStream reading the remaining bytes of a ByteBuffer, used to feed direct buffers to Jackson.
+ */
+final class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer byteBuffer;
+
+    ByteBufferInputStream(ByteBuffer byteBuffer) {
+        this.byteBuffer = byteBuffer;
+    }
+
+    @Override
+    public int read() {
+        return byteBuffer.hasRemaining() ? byteBuffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+        if (length == 0) {
+            return 0;
+        }
+
+        int count = Math.min(length, byteBuffer.remaining());
+        if (count == 0) {
+            return -1;
+        }
+
+        byteBuffer.get(bytes, offset, count);
+        return count;
+    }
+
+    @Override
+    public long skip(long n) {
+        int count = (int) Math.max(0, Math.min(n, byteBuffer.remaining()));
+
+        byteBuffer.position(byteBuffer.position() + count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return byteBuffer.remaining();
+    }
+}
@@ -0,0 +1,51 @@
+package tw.wd.util.json;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * OutputStream writing into a ByteBuffer. When the buffer is full it is replaced by one of
+ * twice the size (direct if the original was direct) holding the bytes written so far.
+ */
+final class ByteBufferOutputStream extends OutputStream {
+    private ByteBuffer byteBuffer;
+
+    ByteBufferOutputStream(ByteBuffer byteBuffer) {
+        this.byteBuffer = byteBuffer;
+    }
+
+    ByteBuffer getByteBuffer() {
+        return byteBuffer;
+    }
+
+    @Override
+    public void write(int b) {
+        ensureRemaining(1);
+        byteBuffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        ensureRemaining(length);
+        byteBuffer.put(bytes, offset, length);
+    }
+
+    private void ensureRemaining(int length) {
+        if (byteBuffer.remaining() >= length) {
+            return;
+        }
+
+        int required    = byteBuffer.position() + length;
+        int capacity    = Math.max(required, Math.max(16, byteBuffer.capacity() * 2));
+        if (capacity < 0) {
+            capacity = Integer.MAX_VALUE;
+        }
+
+        ByteBuffer newBuffer = byteBuffer.isDirect() ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        newBuffer.order(byteBuffer.order());
+
+        byteBuffer.flip();
+        newBuffer.put(byteBuffer);
+        byteBuffer = newBuffer;
+    }
+}
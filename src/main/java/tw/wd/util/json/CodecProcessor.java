@@ -0,0 +1,307 @@
+package tw.wd.util.json;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Annotation processor generating a {@link TypeCodec} for every class marked with {@link CompiledCodec}.
+ * <p>
+ * The codec of {@code pkg.Outer$Inner} is {@code pkg.Outer_Inner_TypeCodec}. It writes the fields with
+ * pre-encoded names and direct field access, and reads them by matching the pre-encoded names in
+ * declaration order with {@code JsonParser.nextFieldName}, falling back to a switch on the name when
+ * the document has another order. Fields which are not primitives or strings are handed to the
+ * {@link ObjectBinder}. Registered through META-INF/services, so it runs whenever this library is on
+ * the compile classpath.
+ */
+@SupportedAnnotationTypes("tw.wd.util.json.CompiledCodec")
+public class CodecProcessor extends AbstractProcessor {
+    static final String CODEC_SUFFIX = "_TypeCodec";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement typeElement : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(CompiledCodec.class))) {
+            try {
+                if (check(typeElement)) {
+                    generate(typeElement);
+                }
+            } catch (IOException e) {
+                error(typeElement, "Can not write codec: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Name of the codec class generated for the class with the given binary name.
+     */
+    static String codecName(String binaryName) {
+        int packageEnd = binaryName.lastIndexOf('.');
+
+        return binaryName.substring(0, packageEnd + 1) + binaryName.substring(packageEnd + 1).replace('$', '_') + CODEC_SUFFIX;
+    }
+
+    private boolean check(TypeElement typeElement) {
+        boolean isValid = true;
+
+        if (typeElement.getKind() != ElementKind.CLASS || typeElement.getModifiers().contains(Modifier.ABSTRACT)) {
+            error(typeElement, "@CompiledCodec needs a concrete class.");
+            isValid = false;
+        }
+
+        for (Element element = typeElement; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            if (element.getModifiers().contains(Modifier.PRIVATE)) {
+                error(typeElement, "@CompiledCodec class must not be private or nested in a private class.");
+                isValid = false;
+            }
+            if (element != typeElement && element.getKind() == ElementKind.CLASS
+                    && !typeElement.getModifiers().contains(Modifier.STATIC)) {
+                error(typeElement, "@CompiledCodec nested class must be static.");
+                isValid = false;
+                break;
+            }
+        }
+
+        boolean hasConstructor = false;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(typeElement.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                hasConstructor = true;
+            }
+        }
+        if (!hasConstructor) {
+            error(typeElement, "@CompiledCodec class needs a non-private no-argument constructor.");
+            isValid = false;
+        }
+
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(typeElement);
+        for (VariableElement field : boundFields(typeElement)) {
+            boolean isOtherPackage = !processingEnv.getElementUtils().getPackageOf(field).equals(packageElement);
+
+            if (field.getModifiers().contains(Modifier.PRIVATE)
+                    || (isOtherPackage && !field.getModifiers().contains(Modifier.PUBLIC))) {
+                error(field, "Field bound by @CompiledCodec must be accessible from package " + packageElement.getQualifiedName() + ".");
+                isValid = false;
+            } else if (field.getModifiers().contains(Modifier.FINAL)) {
+                error(field, "Field bound by @CompiledCodec must not be final.");
+                isValid = false;
+            }
+        }
+
+        return isValid;
+    }
+
+    /**
+     * Non-static, non-transient fields, superclass fields first; a field hiding an inherited one replaces it.
+     */
+    private List<VariableElement> boundFields(TypeElement typeElement) {
+        List<TypeElement> hierarchy = new ArrayList<TypeElement>();
+        List<VariableElement> fields = new ArrayList<VariableElement>();
+
+        for (TypeElement element = typeElement; element != null; element = superclass(element)) {
+            hierarchy.add(0, element);
+        }
+
+        for (TypeElement element : hierarchy) {
+            for (VariableElement field : ElementFilter.fieldsIn(element.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+
+                for (int idx = 0; idx < fields.size(); idx++) {
+                    if (fields.get(idx).getSimpleName().contentEquals(field.getSimpleName())) {
+                        fields.remove(idx);
+                        break;
+                    }
+                }
+                fields.add(field);
+            }
+        }
+
+        return fields;
+    }
+
+    private static TypeElement superclass(TypeElement typeElement) {
+        TypeMirror superclass = typeElement.getSuperclass();
+
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        return element.getQualifiedName().contentEquals("java.lang.Object") ? null : element;
+    }
+
+    private void generate(TypeElement typeElement) throws IOException {
+        String codecName        = codecName(processingEnv.getElementUtils().getBinaryName(typeElement).toString());
+        String packageName      = processingEnv.getElementUtils().getPackageOf(typeElement).getQualifiedName().toString();
+        String simpleName       = codecName.substring(codecName.lastIndexOf('.') + 1);
+        String typeName         = typeElement.getQualifiedName().toString();
+        List<VariableElement> fields = boundFields(typeElement);
+        StringBuilder source    = new StringBuilder();
+
+        if (packageName.length() > 0) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import com.fasterxml.jackson.core.JsonGenerator;\n")
+                .append("import com.fasterxml.jackson.core.JsonParser;\n")
+                .append("import com.fasterxml.jackson.core.JsonToken;\n")
+                .append("import com.fasterxml.jackson.core.io.SerializedString;\n")
+                .append("import tw.wd.util.json.ObjectBinder;\n")
+                .append("import tw.wd.util.json.TypeCodec;\n\n")
+                .append("import java.io.IOException;\n\n")
+                .append("/**\n * Generated by tw.wd.util.json.CodecProcessor for ").append(typeName).append(", do not edit.\n */\n")
+                .append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+                .append("public final class ").append(simpleName).append(" implements TypeCodec<").append(typeName).append("> {\n");
+
+        for (int idx = 0; idx < fields.size(); idx++) {
+            source.append("    private static final SerializedString NAME_").append(idx)
+                    .append(" = new SerializedString(\"").append(fields.get(idx).getSimpleName()).append("\");\n");
+        }
+
+        source.append("\n    @Override\n")
+                .append("    public void write(JsonGenerator jsonGenerator, ").append(typeName).append(" value, ObjectBinder binder) throws IOException {\n")
+                .append("        jsonGenerator.writeStartObject();\n");
+        for (int idx = 0; idx < fields.size(); idx++) {
+            source.append("        jsonGenerator.writeFieldName(NAME_").append(idx).append(");\n");
+            appendWrite(source, fields.get(idx));
+        }
+        source.append("        jsonGenerator.writeEndObject();\n")
+                .append("    }\n\n");
+
+        source.append("    @Override\n")
+                .append("    public ").append(typeName).append(" read(JsonParser jsonParser, ObjectBinder binder) throws IOException {\n")
+                .append("        ").append(typeName).append(" value = new ").append(typeName).append("();\n\n");
+        for (int idx = 0; idx < fields.size(); idx++) {
+            source.append("        if (!jsonParser.nextFieldName(NAME_").append(idx).append(")) {\n")
+                    .append("            return readAnyOrder(jsonParser, value, binder);\n")
+                    .append("        }\n")
+                    .append("        jsonParser.nextToken();\n");
+            appendRead(source, typeName, fields.get(idx), "        ");
+        }
+        source.append("        jsonParser.nextToken();\n")
+                .append("        return readAnyOrder(jsonParser, value, binder);\n")
+                .append("    }\n\n");
+
+        source.append("    private ").append(typeName).append(" readAnyOrder(JsonParser jsonParser, ").append(typeName)
+                .append(" value, ObjectBinder binder) throws IOException {\n")
+                .append("        for (JsonToken jsonToken = jsonParser.getCurrentToken(); jsonToken == JsonToken.FIELD_NAME; jsonToken = jsonParser.nextToken()) {\n")
+                .append("            String fieldName = jsonParser.getCurrentName();\n\n")
+                .append("            jsonParser.nextToken();\n")
+                .append("            switch (fieldName) {\n");
+        for (VariableElement field : fields) {
+            source.append("                case \"").append(field.getSimpleName()).append("\":\n");
+            appendRead(source, typeName, field, "                    ");
+            source.append("                    break;\n");
+        }
+        source.append("                default:\n")
+                .append("                    jsonParser.skipChildren();\n")
+                .append("            }\n")
+                .append("        }\n")
+                .append("        return value;\n")
+                .append("    }\n")
+                .append("}\n");
+
+        Writer writer = processingEnv.getFiler().createSourceFile(codecName, typeElement).openWriter();
+        try {
+            writer.write(source.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void appendWrite(StringBuilder source, VariableElement field) {
+        String access   = "value." + field.getSimpleName();
+        TypeKind kind   = field.asType().getKind();
+
+        if (kind == TypeKind.INT || kind == TypeKind.LONG || kind == TypeKind.DOUBLE || kind == TypeKind.FLOAT
+                || kind == TypeKind.SHORT || kind == TypeKind.BYTE) {
+            source.append("        jsonGenerator.writeNumber(").append(access).append(");\n");
+        } else if (kind == TypeKind.BOOLEAN) {
+            source.append("        jsonGenerator.writeBoolean(").append(access).append(");\n");
+        } else if (isString(field.asType())) {
+            source.append("        if (").append(access).append(" == null) {\n")
+                    .append("            jsonGenerator.writeNull();\n")
+                    .append("        } else {\n")
+                    .append("            jsonGenerator.writeString(").append(access).append(");\n")
+                    .append("        }\n");
+        } else {
+            source.append("        binder.write(jsonGenerator, ").append(access).append(");\n");
+        }
+    }
+
+    private void appendRead(StringBuilder source, String typeName, VariableElement field, String indent) {
+        String access   = "value." + field.getSimpleName();
+        TypeMirror type = field.asType();
+        String getter   = primitiveGetter(type.getKind());
+
+        if (getter != null) {
+            source.append(indent).append("if (jsonParser.getCurrentToken() != JsonToken.VALUE_NULL) {\n")
+                    .append(indent).append("    ").append(access).append(" = jsonParser.").append(getter).append("();\n")
+                    .append(indent).append("}\n");
+        } else if (isString(type)) {
+            source.append(indent).append(access).append(" = jsonParser.getCurrentToken() == JsonToken.VALUE_NULL ? null : jsonParser.getText();\n");
+        } else if (type.getKind().isPrimitive()) {
+            String boxedName = processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+
+            source.append(indent).append("Object ").append(field.getSimpleName()).append("Value = binder.readProperty(jsonParser, ")
+                    .append(typeName).append(".class, \"").append(field.getSimpleName()).append("\");\n")
+                    .append(indent).append("if (").append(field.getSimpleName()).append("Value != null) {\n")
+                    .append(indent).append("    ").append(access).append(" = (").append(boxedName).append(") ")
+                    .append(field.getSimpleName()).append("Value;\n")
+                    .append(indent).append("}\n");
+        } else {
+            source.append(indent).append(access).append(" = (").append(processingEnv.getTypeUtils().erasure(type))
+                    .append(") binder.readProperty(jsonParser, ").append(typeName).append(".class, \"")
+                    .append(field.getSimpleName()).append("\");\n");
+        }
+    }
+
+    private static String primitiveGetter(TypeKind kind) {
+        switch (kind) {
+            case INT:
+                return "getIntValue";
+            case LONG:
+                return "getLongValue";
+            case DOUBLE:
+                return "getDoubleValue";
+            case FLOAT:
+                return "getFloatValue";
+            case SHORT:
+                return "getShortValue";
+            case BYTE:
+                return "getByteValue";
+            case BOOLEAN:
+                return "getBooleanValue";
+            default:
+                return null;
+        }
+    }
+
+    private static boolean isString(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED
+                && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals("java.lang.String");
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,171 @@
+package tw.wd.util.json;
+
+import java.util.*;
+
+/**
+ * Insertion-ordered map backed by two parallel arrays, for the small objects which make up most
+ * parsed documents. Lookups scan the keys, which for a handful of entries is as fast as hashing
+ * and needs no table or entry objects. Used by {@link MapReader} for objects of up to
+ * {@link #MAX_SIZE} fields; larger ones are read into a HashMap.
+ */
+final class CompactMap extends AbstractMap<String, Object> {
+    static final int MAX_SIZE = 8;
+
+    private String[] keys;
+    private Object[] values;
+    private int size;
+
+    CompactMap() {
+        this.keys   = new String[4];
+        this.values = new Object[4];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int index = indexOf(key);
+
+        return index >= 0 ? values[index] : null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int index = indexOf(key);
+
+        if (index >= 0) {
+            Object previous = values[index];
+            values[index]   = value;
+            return previous;
+        }
+
+        if (size == keys.length) {
+            keys    = Arrays.copyOf(keys, size + (size >> 1) + 1);
+            values  = Arrays.copyOf(values, keys.length);
+        }
+        keys[size]      = key;
+        values[size]    = value;
+        size++;
+        return null;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int index = indexOf(key);
+
+        return index >= 0 ? removeAt(index) : null;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Drop the unused array slots once the map is complete.
+     */
+    void trimToSize() {
+        if (keys.length != size) {
+            keys    = Arrays.copyOf(keys, size);
+            values  = Arrays.copyOf(values, size);
+        }
+    }
+
+    private int indexOf(Object key) {
+        for (int idx = 0; idx < size; idx++) {
+            if (keys[idx] == key) {
+                return idx;
+            }
+        }
+        if (key != null) {
+            for (int idx = 0; idx < size; idx++) {
+                if (key.equals(keys[idx])) {
+                    return idx;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private Object removeAt(int index) {
+        Object previous = values[index];
+
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        keys[size]      = null;
+        values[size]    = null;
+        return previous;
+    }
+
+    private final class EntryIterator implements Iterator<Entry<String, Object>> {
+        private int next;
+        private int last = -1;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+
+            last = next++;
+            return new CompactEntry(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+
+            removeAt(last);
+            next = last;
+            last = -1;
+        }
+    }
+
+    private final class CompactEntry extends SimpleEntry<String, Object> {
+        private final int index;
+
+        private CompactEntry(int index) {
+            super(keys[index], values[index]);
+            this.index = index;
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            values[index] = value;
+            return super.setValue(value);
+        }
+    }
+}
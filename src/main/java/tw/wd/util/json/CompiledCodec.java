@@ -0,0 +1,16 @@
+package tw.wd.util.json;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a class for which {@link CodecProcessor} generates a {@link TypeCodec} at build time.
+ * <p>
+ * The generated codec reads and writes the fields directly, so bound fields must not be private
+ * and the class needs a non-private no-argument constructor. {@link ObjectBinder} picks the codec
+ * up by name the first time it binds the class.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface CompiledCodec {
+}
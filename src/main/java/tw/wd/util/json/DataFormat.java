@@ -0,0 +1,47 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Wire format of a {@link JSONEngine}.
+ * <p>
+ * {@link #SMILE} is Jackson's binary encoding of the JSON data model: the same maps, fields and values,
+ * smaller on the wire and cheaper to encode and decode. It needs jackson-dataformat-smile on the classpath.
+ * Binary engines read and write bytes only; the String based methods, lazy documents and validation are
+ * for JSON text and throw UnsupportedOperationException on a binary engine.
+ */
+public enum DataFormat {
+    JSON {
+        @Override
+        JsonFactory createFactory() {
+            return new JsonFactory();
+        }
+    },
+    SMILE {
+        @Override
+        JsonFactory createFactory() {
+            try {
+                return SmileSupport.createFactory();
+            } catch (NoClassDefFoundError e) {
+                throw new IllegalStateException("DataFormat.SMILE needs jackson-dataformat-smile on the classpath.", e);
+            }
+        }
+    };
+
+    abstract JsonFactory createFactory();
+
+    public boolean isBinary() {
+        return this != JSON;
+    }
+
+    /**
+     * The only class which links SmileFactory, so it is loaded only when SMILE is selected and the optional
+     * dependency may be absent for JSON-only applications.
+     */
+    private static final class SmileSupport {
+        static JsonFactory createFactory() {
+            return new SmileFactory();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package tw.wd.util.json;
+
+/**
+ * Callback of a {@link JSONEngine} after each parse, extraction, serialization or validation.
+ * <p>
+ * The engine calls the listener on the calling thread, so implementations must be thread-safe and cheap.
+ * Results served from a {@link ParseCache} are reported too, with the length of the input.
+ * An engine without a listener skips the timing altogether. See {@link EngineMetrics} for a built-in one.
+ */
+public interface EngineListener {
+    enum Operation {
+        TO_MAP,
+        TO_OBJECT,
+        TO_TREE,
+        TO_JSON,
+        GET_FIELD_VALUE,
+        IS_FIELD_EXIST,
+        VALIDATE
+    }
+
+    /**
+     * @param byteCount bytes (chars for String input) consumed by a parse, or written by a serialization;
+     *                  -1 for serialization streamed into a caller's OutputStream or Writer
+     * @param failure the exception thrown by the operation, null when it succeeded; for an invalid document
+     *                given to validate, a JsonParseException with the reason and offset of the error
+     */
+    void onOperation(Operation operation, long elapsedNanos, long byteCount, Throwable failure);
+}
@@ -0,0 +1,72 @@
+package tw.wd.util.json;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Built-in {@link EngineListener} which keeps {@link OperationMetrics} per operation: counts, failures,
+ * bytes in or out and a latency histogram. Recording costs a few uncontended adds per call, so it can stay
+ * on under load.
+ * <pre>
+ * EngineMetrics metrics = new EngineMetrics();
+ * JSONEngine engine     = JSONEngine.builder().listener(metrics).build();
+ * metrics.registerMBeans("orders");
+ * </pre>
+ */
+public class EngineMetrics implements EngineListener {
+    public static final String JMX_DOMAIN = "tw.wd.util.json";
+
+    private final Map<Operation, OperationMetrics> operationMetrics;
+    private final List<ObjectName> registeredNames;
+
+    public EngineMetrics() {
+        this.operationMetrics   = new EnumMap<Operation, OperationMetrics>(Operation.class);
+        this.registeredNames    = new ArrayList<ObjectName>();
+
+        for (Operation operation : Operation.values()) {
+            operationMetrics.put(operation, new OperationMetrics());
+        }
+    }
+
+    @Override
+    public void onOperation(Operation operation, long elapsedNanos, long byteCount, Throwable failure) {
+        operationMetrics.get(operation).record(elapsedNanos, byteCount, failure != null);
+    }
+
+    public OperationMetrics getOperationMetrics(Operation operation) {
+        return operationMetrics.get(operation);
+    }
+
+    /**
+     * Register one MBean per operation on the platform MBean server, named
+     * {@code tw.wd.util.json:type=EngineMetrics,name=<name>,operation=<OPERATION>}.
+     */
+    public synchronized void registerMBeans(String name) throws JMException {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+        for (Map.Entry<Operation, OperationMetrics> entry : operationMetrics.entrySet()) {
+            ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=EngineMetrics,name=" + ObjectName.quote(name)
+                    + ",operation=" + entry.getKey());
+
+            mBeanServer.registerMBean(entry.getValue(), objectName);
+            registeredNames.add(objectName);
+        }
+    }
+
+    public synchronized void unregisterMBeans() throws JMException {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+        for (ObjectName objectName : registeredNames) {
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        }
+        registeredNames.clear();
+    }
+}
@@ -0,0 +1,348 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Precompiled set of field paths which are read from a document in one pass.
+ * <p>
+ * Paths are dotted field names with optional array indexes, e.g. {@code id}, {@code pl1.pid}
+ * or {@code pl[0].pname}, and each path has one of the {@code JSONUtils.TYPE_*} codes.
+ * The paths are compiled into a trie, so every field name costs one hash lookup, unwanted
+ * subtrees are skipped with {@link JsonParser#skipChildren()}, and reading stops as soon as
+ * every path has been resolved. An extractor is immutable and can be shared between threads.
+ * Extractors compiled from equal paths and types are equal.
+ */
+public final class FieldExtractor {
+    private final String[] paths;
+    private final byte[] types;
+    private final boolean isLiteral;
+    private final Node root;
+    private final int targetCount;
+
+    private FieldExtractor(String[] paths, byte[] types, boolean isLiteral) {
+        if (paths.length != types.length) {
+            throw new IllegalArgumentException("Length of FieldName and FieldType not equal.");
+        }
+
+        this.paths      = paths.clone();
+        this.types      = types.clone();
+        this.isLiteral  = isLiteral;
+        this.root       = new Node();
+
+        int count = 0;
+        for (int idx = 0; idx < paths.length; idx++) {
+            Node node = isLiteral ? root.field(paths[idx]) : addPath(root, paths[idx]);
+
+            if (node.targetIndexes == null) {
+                node.targetType     = types[idx];
+                node.targetOrdinal  = count++;
+            } else if (node.targetType != types[idx]) {
+                throw new IllegalArgumentException("Path " + paths[idx] + " requested with different types.");
+            }
+            node.addTargetIndex(idx);
+        }
+        this.targetCount = count;
+
+        validate(root);
+    }
+
+    /**
+     * Compile dotted paths, e.g. {@code pl1.pid} or {@code pl[0].pname}.
+     */
+    public static FieldExtractor compile(String[] paths, byte[] types) {
+        return new FieldExtractor(paths, types, false);
+    }
+
+    public static FieldExtractor compile(String path, byte type) {
+        return new FieldExtractor(new String[]{path}, new byte[]{type}, false);
+    }
+
+    /**
+     * Top-level field names taken literally, so names may contain '.' or '['.
+     */
+    public static FieldExtractor forFieldNames(String[] fieldNames, byte[] types) {
+        return new FieldExtractor(fieldNames, types, true);
+    }
+
+    public int size() {
+        return paths.length;
+    }
+
+    public String getPath(int index) {
+        return paths[index];
+    }
+
+    public byte getType(int index) {
+        return types[index];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FieldExtractor)) {
+            return false;
+        }
+
+        FieldExtractor other = (FieldExtractor) o;
+        return isLiteral == other.isLiteral && Arrays.equals(paths, other.paths) && Arrays.equals(types, other.types);
+    }
+
+    @Override
+    public int hashCode() {
+        return (Arrays.hashCode(paths) * 31 + Arrays.hashCode(types)) * 31 + (isLiteral ? 1 : 0);
+    }
+
+    /**
+     * Read the compiled paths from the parser, which may be positioned before or on the root value.
+     * Values are returned in path order, {@code null} for paths not present in the document.
+     * When every path is resolved the parser is left where reading stopped.
+     */
+    public Object[] extract(JsonParser jsonParser) throws IOException {
+        Object[] values = new Object[paths.length];
+
+        extract(jsonParser, values);
+        return values;
+    }
+
+    /**
+     * Same as {@link #extract(JsonParser)}, storing the values into a caller-supplied array.
+     * Returns whether every path was resolved.
+     */
+    public boolean extract(JsonParser jsonParser, Object[] values) throws IOException {
+        if (values.length < paths.length) {
+            throw new IllegalArgumentException("Value array shorter than the number of paths.");
+        }
+
+        JsonToken jsonToken = jsonParser.getCurrentToken();
+        Progress progress   = new Progress(targetCount);
+
+        if (jsonToken == null || jsonToken == JsonToken.FIELD_NAME) {
+            jsonToken = jsonParser.nextToken();
+        }
+
+        if (jsonToken == JsonToken.START_OBJECT) {
+            return readObject(jsonParser, root, values, progress);
+        } else if (jsonToken == JsonToken.START_ARRAY) {
+            return readArray(jsonParser, root, values, progress);
+        }
+
+        return targetCount == 0;
+    }
+
+    private boolean readObject(JsonParser jsonParser, Node node, Object[] values, Progress progress) throws IOException {
+        if (node.fields == null) {
+            jsonParser.skipChildren();
+            return false;
+        }
+
+        while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+            Node child = node.fields.get(jsonParser.getCurrentName());
+
+            jsonParser.nextToken();
+            if (readValue(jsonParser, child, values, progress)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean readArray(JsonParser jsonParser, Node node, Object[] values, Progress progress) throws IOException {
+        if (node.elements == null) {
+            jsonParser.skipChildren();
+            return false;
+        }
+
+        int index = 0;
+        while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
+            Node child = index < node.elements.length ? node.elements[index] : null;
+
+            if (readValue(jsonParser, child, values, progress)) {
+                return true;
+            }
+            index++;
+        }
+
+        return false;
+    }
+
+    private boolean readValue(JsonParser jsonParser, Node node, Object[] values, Progress progress) throws IOException {
+        JsonToken jsonToken = jsonParser.getCurrentToken();
+
+        if (node == null) {
+            jsonParser.skipChildren();
+        } else if (node.targetIndexes != null) {
+            Object value = JSONUtils.getFieldValue(jsonParser, node.targetType);
+
+            // A scalar type requested for a container value: step over the container.
+            if (jsonParser.getCurrentToken() == JsonToken.START_OBJECT
+                    || jsonParser.getCurrentToken() == JsonToken.START_ARRAY) {
+                jsonParser.skipChildren();
+            }
+
+            for (int targetIndex : node.targetIndexes) {
+                values[targetIndex] = value;
+            }
+            // A repeated key overwrites the value but resolves its path only once.
+            if (progress.resolved[node.targetOrdinal]) {
+                return false;
+            }
+            progress.resolved[node.targetOrdinal] = true;
+            return --progress.remaining == 0;
+        } else if (jsonToken == JsonToken.START_OBJECT) {
+            return readObject(jsonParser, node, values, progress);
+        } else if (jsonToken == JsonToken.START_ARRAY) {
+            return readArray(jsonParser, node, values, progress);
+        }
+
+        return false;
+    }
+
+    private static Node addPath(Node root, String path) {
+        Node node = root;
+
+        for (Object step : parsePath(path)) {
+            node = step instanceof Integer ? node.element((Integer) step) : node.field((String) step);
+        }
+        return node;
+    }
+
+    /**
+     * Split a dotted path into its steps: field names as Strings and array indexes as Integers.
+     */
+    static List<Object> parsePath(String path) {
+        List<Object> steps  = new ArrayList<Object>();
+        int length          = path.length();
+        int pos             = 0;
+
+        if (length == 0) {
+            throw new IllegalArgumentException("Empty field path.");
+        }
+
+        while (pos < length) {
+            char c = path.charAt(pos);
+
+            if (c == '[') {
+                int close = path.indexOf(']', pos);
+                if (close < 0) {
+                    throw new IllegalArgumentException("Unclosed index in field path: " + path);
+                }
+
+                int index;
+                try {
+                    index = Integer.parseInt(path.substring(pos + 1, close));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid index in field path: " + path);
+                }
+                if (index < 0) {
+                    throw new IllegalArgumentException("Invalid index in field path: " + path);
+                }
+
+                steps.add(index);
+                pos = close + 1;
+            } else if (c == '.') {
+                if (pos == 0 || pos == length - 1) {
+                    throw new IllegalArgumentException("Invalid field path: " + path);
+                }
+                pos++;
+            } else {
+                int end = pos;
+                while (end < length && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+
+                steps.add(path.substring(pos, end));
+                pos = end;
+            }
+        }
+
+        return steps;
+    }
+
+    private static void validate(Node node) {
+        if (node.targetIndexes != null && (node.fields != null || node.elements != null)) {
+            throw new IllegalArgumentException("A field path can not be both a value and the parent of another path.");
+        }
+
+        if (node.fields != null) {
+            for (Node child : node.fields.values()) {
+                validate(child);
+            }
+        }
+
+        if (node.elements != null) {
+            for (Node child : node.elements) {
+                if (child != null) {
+                    validate(child);
+                }
+            }
+        }
+    }
+
+    private static final class Node {
+        private Map<String, Node> fields;
+        private Node[] elements;
+        private int[] targetIndexes;
+        private byte targetType;
+        private int targetOrdinal;
+
+        private Node field(String name) {
+            if (fields == null) {
+                fields = new HashMap<String, Node>();
+            }
+
+            Node child = fields.get(name);
+            if (child == null) {
+                child = new Node();
+                fields.put(name, child);
+            }
+            return child;
+        }
+
+        private Node element(int index) {
+            if (elements == null) {
+                elements = new Node[index + 1];
+            } else if (elements.length <= index) {
+                Node[] newElements = new Node[index + 1];
+                System.arraycopy(elements, 0, newElements, 0, elements.length);
+                elements = newElements;
+            }
+
+            if (elements[index] == null) {
+                elements[index] = new Node();
+            }
+            return elements[index];
+        }
+
+        private void addTargetIndex(int index) {
+            if (targetIndexes == null) {
+                targetIndexes = new int[]{index};
+            } else {
+                int[] newIndexes = new int[targetIndexes.length + 1];
+                System.arraycopy(targetIndexes, 0, newIndexes, 0, targetIndexes.length);
+                newIndexes[targetIndexes.length] = index;
+                targetIndexes = newIndexes;
+            }
+        }
+    }
+
+    private static final class Progress {
+        private final boolean[] resolved;
+        private int remaining;
+
+        private Progress(int targetCount) {
+            this.resolved   = new boolean[targetCount];
+            this.remaining  = targetCount;
+        }
+    }
+}
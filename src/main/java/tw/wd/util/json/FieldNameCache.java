@@ -0,0 +1,45 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded table of field names already quoted and encoded as {@link SerializedString}, so keys
+ * which repeat from message to message are escaped and UTF-8 encoded only once. Once full, new
+ * names are no longer cached; this keeps maps keyed by ids or other open-ended values from
+ * growing the table without bound.
+ */
+final class FieldNameCache {
+    private final ConcurrentHashMap<String, SerializedString> encodedNames;
+    private final int maxSize;
+
+    FieldNameCache(int maxSize) {
+        this.encodedNames   = new ConcurrentHashMap<String, SerializedString>();
+        this.maxSize        = maxSize;
+    }
+
+    /**
+     * Encoded name, or null when the table is full and name is not in it.
+     */
+    SerializableString get(String name) {
+        SerializedString encodedName = encodedNames.get(name);
+
+        if (encodedName == null && encodedNames.size() < maxSize) {
+            encodedName = new SerializedString(name);
+
+            // Encode before publishing so readers on other threads share the cached bytes.
+            encodedName.asQuotedUTF8();
+            SerializedString previous = encodedNames.putIfAbsent(name, encodedName);
+            if (previous != null) {
+                encodedName = previous;
+            }
+        }
+        return encodedName;
+    }
+
+    int size() {
+        return encodedNames.size();
+    }
+}
@@ -0,0 +1,60 @@
+package tw.wd.util.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * InputStream reading a byte range of a file with positional reads, so several streams
+ * can share one channel from different threads. Closing the stream leaves the channel open.
+ */
+final class FileRangeInputStream extends InputStream {
+    private final FileChannel fileChannel;
+    private final long end;
+    private long position;
+
+    FileRangeInputStream(FileChannel fileChannel, long start, long end) {
+        this.fileChannel    = fileChannel;
+        this.position       = start;
+        this.end            = end;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+
+        int count = (int) Math.min(length, end - position);
+        if (count <= 0) {
+            return -1;
+        }
+
+        count = fileChannel.read(ByteBuffer.wrap(bytes, offset, count), position);
+        if (count > 0) {
+            position += count;
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) {
+        long count = Math.max(0, Math.min(n, end - position));
+
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, end - position);
+    }
+}
@@ -0,0 +1,1007 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Thread-safe holder of the Jackson factory and per-thread output buffers used by {@link JSONUtils}.
+ * <p>
+ * Reusing one factory keeps Jackson's canonicalized field-name tables and buffer recyclers alive
+ * across calls, so an engine should be created once and shared. The static API of
+ * {@link JSONUtils} is backed by {@link #getDefault()}.
+ */
+public class JSONEngine {
+    private static final int DEFAULT_INITIAL_BUFFER_SIZE        = 512;
+    private static final int DEFAULT_MAX_RETAINED_BUFFER_SIZE   = 64 * 1024;
+
+    private static final JSONEngine DEFAULT_ENGINE = new JSONEngine();
+    private static volatile JSONEngine smileEngine;
+
+    private final DataFormat dataFormat;
+    private final JsonFactory jsonFactory;
+    private final ValueWriterRegistry valueWriterRegistry;
+    private final JSONValidator jsonValidator;
+    private final ObjectBinder objectBinder;
+    private final MapReader mapReader;
+    private final EngineListener listener;
+    private final ParseCache parseCache;
+    private final int initialBufferSize;
+    private final int maxRetainedBufferSize;
+    private final ThreadLocal<ReusableByteArrayOutputStream> outputBuffers;
+
+    public JSONEngine() {
+        this(new Builder());
+    }
+
+    public JSONEngine(JsonFactory jsonFactory) {
+        this(new Builder().jsonFactory(jsonFactory));
+    }
+
+    private JSONEngine(Builder builder) {
+        this.dataFormat             = builder.dataFormat;
+        this.jsonFactory            = builder.jsonFactory != null ? builder.jsonFactory : dataFormat.createFactory();
+        this.valueWriterRegistry    = builder.valueWriterRegistry != null ? builder.valueWriterRegistry : ValueWriterRegistry.getDefault();
+        this.jsonValidator          = builder.jsonValidator != null ? builder.jsonValidator : JSONValidator.getDefault();
+        this.objectBinder           = new ObjectBinder(this);
+        this.mapReader              = builder.stringDedupTable != null || builder.isCompactMaps || builder.numberPolicy != NumberPolicy.COMPACT
+                ? new MapReader(builder.stringDedupTable, builder.isCompactMaps, builder.numberPolicy) : MapReader.DEFAULT;
+        this.listener               = builder.listener;
+        this.parseCache             = builder.parseCache;
+        this.initialBufferSize      = builder.initialBufferSize;
+        this.maxRetainedBufferSize  = builder.maxRetainedBufferSize;
+        this.outputBuffers          = new ThreadLocal<ReusableByteArrayOutputStream>();
+    }
+
+    public static JSONEngine getDefault() {
+        return DEFAULT_ENGINE;
+    }
+
+    /**
+     * Shared engine of the format, the default engine for {@link DataFormat#JSON}.
+     */
+    public static JSONEngine getDefault(DataFormat dataFormat) {
+        if (dataFormat != DataFormat.SMILE) {
+            return DEFAULT_ENGINE;
+        }
+
+        JSONEngine engine = smileEngine;
+        if (engine == null) {
+            synchronized (JSONEngine.class) {
+                engine = smileEngine;
+                if (engine == null) {
+                    engine = smileEngine = new Builder().dataFormat(DataFormat.SMILE).build();
+                }
+            }
+        }
+        return engine;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public DataFormat getDataFormat() {
+        return dataFormat;
+    }
+
+    public JsonFactory getJsonFactory() {
+        return jsonFactory;
+    }
+
+    public ValueWriterRegistry getValueWriterRegistry() {
+        return valueWriterRegistry;
+    }
+
+    public JSONValidator getJSONValidator() {
+        return jsonValidator;
+    }
+
+    public ObjectBinder getObjectBinder() {
+        return objectBinder;
+    }
+
+    /**
+     * Listener told of every operation, null when none was set.
+     */
+    public EngineListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Cache consulted by toMap and getFieldValue with a FieldExtractor, null when none was set.
+     */
+    public ParseCache getParseCache() {
+        return parseCache;
+    }
+
+    MapReader getMapReader() {
+        return mapReader;
+    }
+
+    public JsonParser createParser(String jsonText) throws IOException {
+        return jsonFactory.createParser(jsonText);
+    }
+
+    public JsonParser createParser(byte[] jsonBytes) throws IOException {
+        return jsonFactory.createParser(jsonBytes);
+    }
+
+    public JsonParser createParser(byte[] jsonBytes, int offset, int length) throws IOException {
+        return jsonFactory.createParser(jsonBytes, offset, length);
+    }
+
+    /**
+     * Parser over the stream. The stream is left open when the parser is closed.
+     */
+    public JsonParser createParser(InputStream inputStream) throws IOException {
+        JsonParser jsonParser = jsonFactory.createParser(inputStream);
+
+        jsonParser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        return jsonParser;
+    }
+
+    /**
+     * Parser over the remaining bytes of the buffer; the buffer position is not changed.
+     * Heap buffers are parsed in place, direct buffers are streamed through the parser's own input buffer.
+     */
+    public JsonParser createParser(ByteBuffer byteBuffer) throws IOException {
+        if (byteBuffer.hasArray()) {
+            return jsonFactory.createParser(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), byteBuffer.remaining());
+        }
+
+        return jsonFactory.createParser(new ByteBufferInputStream(byteBuffer.duplicate()));
+    }
+
+    public Map<String, Object> toMap(String jsonText) throws Exception {
+        if (jsonText == null || jsonText.length() == 0) {
+            return new HashMap<String, Object>();
+        }
+        if (parseCache != null) {
+            return toMap(jsonText.getBytes(ReusableByteArrayOutputStream.UTF_8));
+        }
+
+        return toMapAndClose(createParser(jsonText));
+    }
+
+    public Map<String, Object> toMap(byte[] jsonBytes) throws Exception {
+        if (jsonBytes == null) {
+            return new HashMap<String, Object>();
+        }
+
+        return toMap(jsonBytes, 0, jsonBytes.length);
+    }
+
+    public Map<String, Object> toMap(byte[] jsonBytes, int offset, int length) throws Exception {
+        if (jsonBytes == null || length == 0) {
+            return new HashMap<String, Object>();
+        }
+        if (parseCache != null) {
+            return toMapCached(jsonBytes, offset, length);
+        }
+
+        return toMapAndClose(createParser(jsonBytes, offset, length));
+    }
+
+    public Map<String, Object> toMap(InputStream inputStream) throws Exception {
+        if (inputStream == null) {
+            return new HashMap<String, Object>();
+        }
+
+        return toMapAndClose(createParser(inputStream));
+    }
+
+    public Map<String, Object> toMap(ByteBuffer byteBuffer) throws Exception {
+        if (byteBuffer == null || !byteBuffer.hasRemaining()) {
+            return new HashMap<String, Object>();
+        }
+
+        return toMapAndClose(createParser(byteBuffer));
+    }
+
+    public LazyJSONDocument toLazyMap(String jsonText) throws IOException {
+        if (jsonText == null) {
+            return toLazyMap(new byte[0]);
+        }
+
+        return toLazyMap(jsonText.getBytes(ReusableByteArrayOutputStream.UTF_8));
+    }
+
+    public LazyJSONDocument toLazyMap(byte[] jsonBytes) throws IOException {
+        if (jsonBytes == null) {
+            jsonBytes = new byte[0];
+        }
+
+        return toLazyMap(jsonBytes, 0, jsonBytes.length);
+    }
+
+    /**
+     * Lazy document over the given bytes, which are referenced rather than copied.
+     */
+    public LazyJSONDocument toLazyMap(byte[] jsonBytes, int offset, int length) throws IOException {
+        checkTextInput("toLazyMap");
+        return new LazyJSONDocument(this, jsonBytes, offset, length);
+    }
+
+    /**
+     * Parse the whole document into a {@link JSONTree}.
+     */
+    public JSONTree toTree(String jsonText) throws IOException {
+        return toTreeAndClose(createParser(jsonText));
+    }
+
+    public JSONTree toTree(byte[] jsonBytes) throws IOException {
+        return toTreeAndClose(createParser(jsonBytes));
+    }
+
+    public JSONTree toTree(byte[] jsonBytes, int offset, int length) throws IOException {
+        return toTreeAndClose(createParser(jsonBytes, offset, length));
+    }
+
+    public JSONTree toTree(InputStream inputStream) throws IOException {
+        return toTreeAndClose(createParser(inputStream));
+    }
+
+    public <T> T toObject(String jsonText, Class<T> type) throws IOException {
+        return toObjectAndClose(createParser(jsonText), type);
+    }
+
+    public <T> T toObject(byte[] jsonBytes, Class<T> type) throws IOException {
+        return toObjectAndClose(createParser(jsonBytes), type);
+    }
+
+    public <T> T toObject(byte[] jsonBytes, int offset, int length, Class<T> type) throws IOException {
+        return toObjectAndClose(createParser(jsonBytes, offset, length), type);
+    }
+
+    public <T> T toObject(InputStream inputStream, Class<T> type) throws IOException {
+        return toObjectAndClose(createParser(inputStream), type);
+    }
+
+    public String toJSON(Map<String, Object> valueMap) {
+        checkTextFormat();
+
+        long startNanos                             = listener != null ? System.nanoTime() : 0L;
+        Throwable failure                           = null;
+        ReusableByteArrayOutputStream outputStream  = acquireBuffer();
+        try {
+            JsonGenerator jsonGenerator = jsonFactory.createGenerator(outputStream, JsonEncoding.UTF8);
+
+            toJSON(valueMap, jsonGenerator);
+            jsonGenerator.close();
+            return outputStream.toUTF8String();
+        } catch (IOException e) {
+            failure = e;
+            e.printStackTrace();
+            return outputStream.toUTF8String();
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (listener != null) {
+                report(EngineListener.Operation.TO_JSON, startNanos, outputStream.size(), failure);
+            }
+            releaseBuffer(outputStream);
+        }
+    }
+
+    /**
+     * Serialize to UTF-8 bytes without going through a String, or to the binary format of the engine.
+     */
+    public byte[] toJSONBytes(Map<String, Object> valueMap) throws IOException {
+        long startNanos                             = listener != null ? System.nanoTime() : 0L;
+        Throwable failure                           = null;
+        ReusableByteArrayOutputStream outputStream  = acquireBuffer();
+        try {
+            JsonGenerator jsonGenerator = jsonFactory.createGenerator(outputStream, JsonEncoding.UTF8);
+
+            toJSON(valueMap, jsonGenerator);
+            jsonGenerator.close();
+            return outputStream.toByteArray();
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (listener != null) {
+                report(EngineListener.Operation.TO_JSON, startNanos, outputStream.size(), failure);
+            }
+            releaseBuffer(outputStream);
+        }
+    }
+
+    /**
+     * Serialize as UTF-8 straight into the stream. The stream is flushed but not closed.
+     */
+    public void toJSON(Map<String, Object> valueMap, OutputStream outputStream) throws IOException {
+        toJSONAndClose(valueMap, jsonFactory.createGenerator(outputStream, JsonEncoding.UTF8));
+    }
+
+    /**
+     * Serialize straight into the writer. The writer is flushed but not closed.
+     */
+    public void toJSON(Map<String, Object> valueMap, Writer writer) throws IOException {
+        toJSONAndClose(valueMap, jsonFactory.createGenerator(writer));
+    }
+
+    /**
+     * Serialize as UTF-8 into the buffer, starting at its position. If the buffer is too small
+     * a larger one holding its previous content is allocated, so callers should keep the returned
+     * buffer; its position is at the end of the written JSON.
+     */
+    public ByteBuffer toJSON(Map<String, Object> valueMap, ByteBuffer byteBuffer) throws IOException {
+        ByteBufferOutputStream outputStream = new ByteBufferOutputStream(byteBuffer);
+
+        toJSON(valueMap, outputStream);
+        return outputStream.getByteBuffer();
+    }
+
+    /**
+     * Write the map as one JSON object into a caller-owned generator, which is neither flushed nor closed.
+     * Not reported to the listener, since the generator may hold more than this map.
+     */
+    public void toJSON(Map<String, Object> valueMap, JsonGenerator jsonGenerator) throws IOException {
+        valueWriterRegistry.writeValue(jsonGenerator, valueMap);
+    }
+
+    /**
+     * Serialize values in the key order of the template.
+     */
+    public String toJSON(JSONTemplate jsonTemplate, Object... values) throws IOException {
+        checkTextFormat();
+
+        long startNanos                             = listener != null ? System.nanoTime() : 0L;
+        Throwable failure                           = null;
+        ReusableByteArrayOutputStream outputStream  = acquireBuffer();
+        try {
+            JsonGenerator jsonGenerator = jsonFactory.createGenerator(outputStream, JsonEncoding.UTF8);
+
+            jsonTemplate.write(jsonGenerator, valueWriterRegistry, values);
+            jsonGenerator.close();
+            return outputStream.toUTF8String();
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (listener != null) {
+                report(EngineListener.Operation.TO_JSON, startNanos, outputStream.size(), failure);
+            }
+            releaseBuffer(outputStream);
+        }
+    }
+
+    /**
+     * Serialize the map with the template keys first.
+     */
+    public String toJSON(JSONTemplate jsonTemplate, Map<String, Object> valueMap) throws IOException {
+        checkTextFormat();
+
+        long startNanos                             = listener != null ? System.nanoTime() : 0L;
+        Throwable failure                           = null;
+        ReusableByteArrayOutputStream outputStream  = acquireBuffer();
+        try {
+            JsonGenerator jsonGenerator = jsonFactory.createGenerator(outputStream, JsonEncoding.UTF8);
+
+            jsonTemplate.write(jsonGenerator, valueWriterRegistry, valueMap);
+            jsonGenerator.close();
+            return outputStream.toUTF8String();
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (listener != null) {
+                report(EngineListener.Operation.TO_JSON, startNanos, outputStream.size(), failure);
+            }
+            releaseBuffer(outputStream);
+        }
+    }
+
+    /**
+     * Serialize any value, binding plain objects field by field through {@link #getObjectBinder()}.
+     */
+    public String toJSON(Object value) throws IOException {
+        checkTextFormat();
+
+        long startNanos                             = listener != null ? System.nanoTime() : 0L;
+        Throwable failure                           = null;
+        ReusableByteArrayOutputStream outputStream  = acquireBuffer();
+        try {
+            JsonGenerator jsonGenerator = jsonFactory.createGenerator(outputStream, JsonEncoding.UTF8);
+
+            objectBinder.write(jsonGenerator, value);
+            jsonGenerator.close();
+            return outputStream.toUTF8String();
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (listener != null) {
+                report(EngineListener.Operation.TO_JSON, startNanos, outputStream.size(), failure);
+            }
+            releaseBuffer(outputStream);
+        }
+    }
+
+    /**
+     * Serialize any value as {@link #toJSON(Object)} does, to bytes in the format of the engine.
+     */
+    public byte[] toJSONBytes(Object value) throws IOException {
+        long startNanos                             = listener != null ? System.nanoTime() : 0L;
+        Throwable failure                           = null;
+        ReusableByteArrayOutputStream outputStream  = acquireBuffer();
+        try {
+            JsonGenerator jsonGenerator = jsonFactory.createGenerator(outputStream, JsonEncoding.UTF8);
+
+            objectBinder.write(jsonGenerator, value);
+            jsonGenerator.close();
+            return outputStream.toByteArray();
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (listener != null) {
+                report(EngineListener.Operation.TO_JSON, startNanos, outputStream.size(), failure);
+            }
+            releaseBuffer(outputStream);
+        }
+    }
+
+    /**
+     * Whether the top-level object has every one of the fields; other fields may be present too.
+     * JSON bytes are scanned structurally without tokenizing or decoding any value.
+     */
+    public boolean isFieldExist(String jsonText, String... fields) throws IOException {
+        if (jsonText == null || dataFormat.isBinary()) {
+            return isFieldExistAndClose(createParser(jsonText), fields);
+        }
+
+        byte[] jsonBytes = jsonText.getBytes(ReusableByteArrayOutputStream.UTF_8);
+        return scanFieldsExist(jsonBytes, 0, jsonBytes.length, fields);
+    }
+
+    public boolean isFieldExist(byte[] jsonBytes, String... fields) throws IOException {
+        return isFieldExist(jsonBytes, 0, jsonBytes.length, fields);
+    }
+
+    public boolean isFieldExist(byte[] jsonBytes, int offset, int length, String... fields) throws IOException {
+        if (dataFormat.isBinary()) {
+            return isFieldExistAndClose(createParser(jsonBytes, offset, length), fields);
+        }
+
+        return scanFieldsExist(jsonBytes, offset, length, fields);
+    }
+
+    public boolean isFieldExist(InputStream inputStream, String... fields) throws IOException {
+        return isFieldExistAndClose(createParser(inputStream), fields);
+    }
+
+    public boolean isFieldExist(ByteBuffer byteBuffer, String... fields) throws IOException {
+        if (byteBuffer.hasArray()) {
+            return isFieldExist(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), byteBuffer.remaining(), fields);
+        }
+
+        return isFieldExistAndClose(createParser(byteBuffer), fields);
+    }
+
+    public Object[] getFieldValue(String jsonText, String[] fieldNames, byte[] fieldTypes) throws IOException {
+        return getFieldValue(jsonText, FieldExtractor.forFieldNames(fieldNames, fieldTypes));
+    }
+
+    public Object[] getFieldValue(byte[] jsonBytes, String[] fieldNames, byte[] fieldTypes) throws IOException {
+        return getFieldValue(jsonBytes, FieldExtractor.forFieldNames(fieldNames, fieldTypes));
+    }
+
+    public Object[] getFieldValue(byte[] jsonBytes, int offset, int length, String[] fieldNames, byte[] fieldTypes) throws IOException {
+        return getFieldValue(jsonBytes, offset, length, FieldExtractor.forFieldNames(fieldNames, fieldTypes));
+    }
+
+    public Object[] getFieldValue(InputStream inputStream, String[] fieldNames, byte[] fieldTypes) throws IOException {
+        return getFieldValue(inputStream, FieldExtractor.forFieldNames(fieldNames, fieldTypes));
+    }
+
+    public Object[] getFieldValue(ByteBuffer byteBuffer, String[] fieldNames, byte[] fieldTypes) throws IOException {
+        return getFieldValue(byteBuffer, FieldExtractor.forFieldNames(fieldNames, fieldTypes));
+    }
+
+    public Object[] getFieldValue(String jsonText, FieldExtractor fieldExtractor) throws IOException {
+        if (parseCache != null && jsonText != null) {
+            return getFieldValue(jsonText.getBytes(ReusableByteArrayOutputStream.UTF_8), fieldExtractor);
+        }
+
+        return extractAndClose(createParser(jsonText), fieldExtractor);
+    }
+
+    public Object[] getFieldValue(byte[] jsonBytes, FieldExtractor fieldExtractor) throws IOException {
+        if (parseCache != null) {
+            return getFieldValue(jsonBytes, 0, jsonBytes.length, fieldExtractor);
+        }
+
+        return extractAndClose(createParser(jsonBytes), fieldExtractor);
+    }
+
+    public Object[] getFieldValue(byte[] jsonBytes, int offset, int length, FieldExtractor fieldExtractor) throws IOException {
+        if (parseCache != null) {
+            return extractCached(jsonBytes, offset, length, fieldExtractor);
+        }
+
+        return extractAndClose(createParser(jsonBytes, offset, length), fieldExtractor);
+    }
+
+    public Object[] getFieldValue(InputStream inputStream, FieldExtractor fieldExtractor) throws IOException {
+        return extractAndClose(createParser(inputStream), fieldExtractor);
+    }
+
+    public Object[] getFieldValue(ByteBuffer byteBuffer, FieldExtractor fieldExtractor) throws IOException {
+        return extractAndClose(createParser(byteBuffer), fieldExtractor);
+    }
+
+    public <T> T getFieldValue(String jsonText, String fieldName, byte fieldType) throws IOException {
+        return firstValue(getFieldValue(jsonText, FieldExtractor.forFieldNames(new String[]{fieldName}, new byte[]{fieldType})));
+    }
+
+    public <T> T getFieldValue(byte[] jsonBytes, String fieldName, byte fieldType) throws IOException {
+        return firstValue(getFieldValue(jsonBytes, FieldExtractor.forFieldNames(new String[]{fieldName}, new byte[]{fieldType})));
+    }
+
+    public <T> T getFieldValue(byte[] jsonBytes, int offset, int length, String fieldName, byte fieldType) throws IOException {
+        return firstValue(getFieldValue(jsonBytes, offset, length, FieldExtractor.forFieldNames(new String[]{fieldName}, new byte[]{fieldType})));
+    }
+
+    public <T> T getFieldValue(InputStream inputStream, String fieldName, byte fieldType) throws IOException {
+        return firstValue(getFieldValue(inputStream, FieldExtractor.forFieldNames(new String[]{fieldName}, new byte[]{fieldType})));
+    }
+
+    public <T> T getFieldValue(ByteBuffer byteBuffer, String fieldName, byte fieldType) throws IOException {
+        return firstValue(getFieldValue(byteBuffer, FieldExtractor.forFieldNames(new String[]{fieldName}, new byte[]{fieldType})));
+    }
+
+    public boolean isJSONFormat(String text) throws Exception {
+        return validate(text).isValid();
+    }
+
+    public boolean isJSONFormat(byte[] jsonBytes) throws Exception {
+        return validate(jsonBytes, 0, jsonBytes.length).isValid();
+    }
+
+    public boolean isJSONFormat(byte[] jsonBytes, int offset, int length) throws Exception {
+        return validate(jsonBytes, offset, length).isValid();
+    }
+
+    public boolean isJSONFormat(InputStream inputStream) throws Exception {
+        return validate(inputStream).isValid();
+    }
+
+    public boolean isJSONFormat(ByteBuffer byteBuffer) throws Exception {
+        return validate(byteBuffer).isValid();
+    }
+
+    public ValidationResult validate(String text) {
+        checkTextInput("validate");
+        if (text == null) {
+            return jsonValidator.validate(text);
+        }
+
+        byte[] jsonBytes = text.getBytes(ReusableByteArrayOutputStream.UTF_8);
+        return validate(jsonBytes, 0, jsonBytes.length);
+    }
+
+    public ValidationResult validate(byte[] jsonBytes, int offset, int length) {
+        checkTextInput("validate");
+        if (listener == null) {
+            return jsonValidator.validate(jsonBytes, offset, length);
+        }
+
+        long startNanos             = System.nanoTime();
+        ValidationResult result     = null;
+        Throwable failure           = null;
+        try {
+            result = jsonValidator.validate(jsonBytes, offset, length);
+            if (!result.isValid()) {
+                failure = new JsonParseException(result.getReason(), new JsonLocation(null, result.getErrorOffset(), -1, -1));
+            }
+            return result;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            report(EngineListener.Operation.VALIDATE, startNanos, length, failure);
+        }
+    }
+
+    /**
+     * Validate the stream content, read into the calling thread's buffer. Reading stops once the
+     * content exceeds the validator's max document size.
+     */
+    public ValidationResult validate(InputStream inputStream) throws IOException {
+        checkTextInput("validate");
+
+        ReusableByteArrayOutputStream outputStream  = acquireBuffer();
+        byte[] readBuffer                           = new byte[4096];
+        int limit                                   = jsonValidator.getMaxDocumentSize();
+        int count                                   = 0;
+
+        try {
+            while ((count = inputStream.read(readBuffer)) >= 0) {
+                outputStream.write(readBuffer, 0, count);
+
+                if (outputStream.size() > limit) {
+                    break;
+                }
+            }
+            return validate(outputStream.getBuffer(), 0, outputStream.size());
+        } finally {
+            releaseBuffer(outputStream);
+        }
+    }
+
+    /**
+     * Validate the remaining bytes of the buffer without changing its position.
+     */
+    public ValidationResult validate(ByteBuffer byteBuffer) {
+        checkTextInput("validate");
+        if (byteBuffer.hasArray()) {
+            return validate(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), byteBuffer.remaining());
+        }
+
+        ReusableByteArrayOutputStream outputStream = acquireBuffer();
+        try {
+            ByteBuffer duplicate    = byteBuffer.duplicate();
+            byte[] readBuffer       = new byte[Math.min(4096, Math.max(duplicate.remaining(), 1))];
+
+            while (duplicate.hasRemaining()) {
+                int count = Math.min(readBuffer.length, duplicate.remaining());
+
+                duplicate.get(readBuffer, 0, count);
+                outputStream.write(readBuffer, 0, count);
+            }
+            return validate(outputStream.getBuffer(), 0, outputStream.size());
+        } finally {
+            releaseBuffer(outputStream);
+        }
+    }
+
+    private Map<String, Object> toMapAndClose(JsonParser jsonParser) throws Exception {
+        long startNanos     = listener != null ? System.nanoTime() : 0L;
+        Throwable failure   = null;
+        try {
+            return mapReader.readMap(jsonParser);
+        } catch (Exception e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (listener != null) {
+                report(EngineListener.Operation.TO_MAP, startNanos, inputLength(jsonParser), failure);
+            }
+            jsonParser.close();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> toMapCached(byte[] jsonBytes, int offset, int length) throws Exception {
+        long startNanos = listener != null ? System.nanoTime() : 0L;
+        long hash       = ParseCache.hash(jsonBytes, offset, length);
+        Object result   = parseCache.get(jsonBytes, offset, length, hash, ParseCache.MAP_RESULT);
+
+        // A hit is reported here, a miss by the parse which fills the entry.
+        if (result != null && listener != null) {
+            report(EngineListener.Operation.TO_MAP, startNanos, length, null);
+        } else if (result == null) {
+            result = parseCache.put(jsonBytes, offset, length, hash, ParseCache.MAP_RESULT,
+                    toMapAndClose(createParser(jsonBytes, offset, length)));
+        }
+        return (Map<String, Object>) result;
+    }
+
+    private Object[] extractCached(byte[] jsonBytes, int offset, int length, FieldExtractor fieldExtractor) throws IOException {
+        long startNanos = listener != null ? System.nanoTime() : 0L;
+        long hash       = ParseCache.hash(jsonBytes, offset, length);
+        Object result   = parseCache.get(jsonBytes, offset, length, hash, fieldExtractor);
+
+        if (result != null && listener != null) {
+            report(EngineListener.Operation.GET_FIELD_VALUE, startNanos, length, null);
+        } else if (result == null) {
+            result = parseCache.put(jsonBytes, offset, length, hash, fieldExtractor,
+                    extractAndClose(createParser(jsonBytes, offset, length), fieldExtractor));
+        }
+        return ((Object[]) result).clone();
+    }
+
+    /**
+     * Streamed serialization; the size written is not known, so it is reported as -1.
+     */
+    private void toJSONAndClose(Map<String, Object> valueMap, JsonGenerator jsonGenerator) throws IOException {
+        long startNanos     = listener != null ? System.nanoTime() : 0L;
+        Throwable failure   = null;
+        try {
+            jsonGenerator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            toJSON(valueMap, jsonGenerator);
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            jsonGenerator.close();
+            if (listener != null) {
+                report(EngineListener.Operation.TO_JSON, startNanos, -1L, failure);
+            }
+        }
+    }
+
+    private void report(EngineListener.Operation operation, long startNanos, long byteCount, Throwable failure) {
+        listener.onOperation(operation, System.nanoTime() - startNanos, byteCount, failure);
+    }
+
+    /**
+     * Input consumed so far by the parser: bytes, or chars for String input.
+     */
+    private static long inputLength(JsonParser jsonParser) {
+        JsonLocation jsonLocation = jsonParser.getCurrentLocation();
+
+        return jsonLocation.getByteOffset() >= 0 ? jsonLocation.getByteOffset() : jsonLocation.getCharOffset();
+    }
+
+    private void checkTextFormat() {
+        if (dataFormat.isBinary()) {
+            throw new UnsupportedOperationException(dataFormat + " engine can not produce text, use toJSONBytes.");
+        }
+    }
+
+    /**
+     * The byte-level index and validator understand JSON text only.
+     */
+    private void checkTextInput(String method) {
+        if (dataFormat.isBinary()) {
+            throw new UnsupportedOperationException(method + " reads JSON text and is not supported by a " + dataFormat + " engine.");
+        }
+    }
+
+    private JSONTree toTreeAndClose(JsonParser jsonParser) throws IOException {
+        long startNanos     = listener != null ? System.nanoTime() : 0L;
+        Throwable failure   = null;
+        try {
+            return JSONTree.parse(jsonParser);
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (listener != null) {
+                report(EngineListener.Operation.TO_TREE, startNanos, inputLength(jsonParser), failure);
+            }
+            jsonParser.close();
+        }
+    }
+
+    private <T> T toObjectAndClose(JsonParser jsonParser, Class<T> type) throws IOException {
+        long startNanos     = listener != null ? System.nanoTime() : 0L;
+        Throwable failure   = null;
+        try {
+            return objectBinder.read(jsonParser, type);
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (listener != null) {
+                report(EngineListener.Operation.TO_OBJECT, startNanos, inputLength(jsonParser), failure);
+            }
+            jsonParser.close();
+        }
+    }
+
+    private boolean scanFieldsExist(byte[] jsonBytes, int offset, int length, String... fields) throws IOException {
+        long startNanos         = listener != null ? System.nanoTime() : 0L;
+        Throwable failure       = null;
+        Set<String> fieldSet    = new LinkedHashSet<String>(Arrays.asList(fields));
+        byte[][] keys           = new byte[fieldSet.size()][];
+        int keyIdx              = 0;
+
+        for (String field : fieldSet) {
+            keys[keyIdx++] = field.getBytes(ReusableByteArrayOutputStream.UTF_8);
+        }
+
+        try {
+            return StructuralScanner.containsKeys(jsonBytes, offset, offset + length, keys);
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (listener != null) {
+                report(EngineListener.Operation.IS_FIELD_EXIST, startNanos, length, failure);
+            }
+        }
+    }
+
+    /**
+     * Token-based check for streams and binary formats: reads the top-level field names and skips their values.
+     */
+    private boolean isFieldExistAndClose(JsonParser jsonParser, String... fields) throws IOException {
+        Set<String> fieldSet    = new HashSet<String>(Arrays.asList(fields));
+        long startNanos         = listener != null ? System.nanoTime() : 0L;
+        Throwable failure       = null;
+
+        try {
+            if (jsonParser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            while (!fieldSet.isEmpty() && jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+                fieldSet.remove(jsonParser.getCurrentName());
+
+                jsonParser.nextToken();
+                jsonParser.skipChildren();
+            }
+            return fieldSet.isEmpty();
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (listener != null) {
+                report(EngineListener.Operation.IS_FIELD_EXIST, startNanos, inputLength(jsonParser), failure);
+            }
+            jsonParser.close();
+        }
+    }
+
+    private Object[] extractAndClose(JsonParser jsonParser, FieldExtractor fieldExtractor) throws IOException {
+        long startNanos     = listener != null ? System.nanoTime() : 0L;
+        Throwable failure   = null;
+        try {
+            return fieldExtractor.extract(jsonParser);
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (listener != null) {
+                report(EngineListener.Operation.GET_FIELD_VALUE, startNanos, inputLength(jsonParser), failure);
+            }
+            jsonParser.close();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T firstValue(Object[] values) {
+        return (T) values[0];
+    }
+
+    /**
+     * Take the calling thread's output buffer. A nested call on the same thread
+     * (e.g. a value which serializes itself through {@link JSONUtils}) gets a fresh one.
+     */
+    ReusableByteArrayOutputStream acquireBuffer() {
+        ReusableByteArrayOutputStream outputStream = outputBuffers.get();
+
+        if (outputStream == null) {
+            return new ReusableByteArrayOutputStream(initialBufferSize);
+        }
+
+        outputBuffers.set(null);
+        return outputStream;
+    }
+
+    void releaseBuffer(ReusableByteArrayOutputStream outputStream) {
+        if (outputStream.capacity() <= maxRetainedBufferSize) {
+            outputStream.reset();
+            outputBuffers.set(outputStream);
+        }
+    }
+
+    public static class Builder {
+        private DataFormat dataFormat       = DataFormat.JSON;
+        private JsonFactory jsonFactory;
+        private ValueWriterRegistry valueWriterRegistry;
+        private JSONValidator jsonValidator;
+        private int initialBufferSize       = DEFAULT_INITIAL_BUFFER_SIZE;
+        private int maxRetainedBufferSize   = DEFAULT_MAX_RETAINED_BUFFER_SIZE;
+        private StringDedupTable stringDedupTable;
+        private boolean isCompactMaps;
+        private NumberPolicy numberPolicy   = NumberPolicy.COMPACT;
+        private EngineListener listener;
+        private ParseCache parseCache;
+
+        /**
+         * Factory creating parsers and generators; when not set, a new one of the data format.
+         */
+        public Builder jsonFactory(JsonFactory jsonFactory) {
+            this.jsonFactory = jsonFactory;
+            return this;
+        }
+
+        /**
+         * Format read and written by the engine, {@link DataFormat#JSON} when not set. A factory set through
+         * {@link #jsonFactory(JsonFactory)} must produce this format.
+         */
+        public Builder dataFormat(DataFormat dataFormat) {
+            if (dataFormat == null) {
+                throw new IllegalArgumentException("Data format must not be null.");
+            }
+            this.dataFormat = dataFormat;
+            return this;
+        }
+
+        /**
+         * Writers used to serialize map values, {@link ValueWriterRegistry#getDefault()} when not set.
+         */
+        public Builder valueWriterRegistry(ValueWriterRegistry valueWriterRegistry) {
+            this.valueWriterRegistry = valueWriterRegistry;
+            return this;
+        }
+
+        /**
+         * Validator behind isJSONFormat, {@link JSONValidator#getDefault()} when not set.
+         */
+        public Builder jsonValidator(JSONValidator jsonValidator) {
+            this.jsonValidator = jsonValidator;
+            return this;
+        }
+
+        /**
+         * Initial size of a per-thread output buffer.
+         */
+        public Builder initialBufferSize(int initialBufferSize) {
+            if (initialBufferSize <= 0) {
+                throw new IllegalArgumentException("Initial buffer size must be positive.");
+            }
+            this.initialBufferSize = initialBufferSize;
+            return this;
+        }
+
+        /**
+         * Output buffers which grew beyond this size are dropped instead of being kept for the thread.
+         */
+        public Builder maxRetainedBufferSize(int maxRetainedBufferSize) {
+            this.maxRetainedBufferSize = maxRetainedBufferSize;
+            return this;
+        }
+
+        /**
+         * Table through which toMap shares the instances of repeated short string values; not used when not set.
+         */
+        public Builder stringDedupTable(StringDedupTable stringDedupTable) {
+            this.stringDedupTable = stringDedupTable;
+            return this;
+        }
+
+        /**
+         * Let toMap build array-backed maps for small objects and exactly sized lists instead of
+         * default-capacity HashMaps and ArrayLists. Small maps keep their fields in document order.
+         */
+        public Builder compactMaps(boolean isCompactMaps) {
+            this.isCompactMaps = isCompactMaps;
+            return this;
+        }
+
+        /**
+         * How toMap boxes numbers, {@link NumberPolicy#COMPACT} when not set.
+         */
+        public Builder numberPolicy(NumberPolicy numberPolicy) {
+            if (numberPolicy == null) {
+                throw new IllegalArgumentException("Number policy must not be null.");
+            }
+            this.numberPolicy = numberPolicy;
+            return this;
+        }
+
+        /**
+         * Listener told of every parse, extraction, serialization and validation, e.g. an {@link EngineMetrics};
+         * operations are not timed when not set.
+         */
+        public Builder listener(EngineListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Cache of toMap and FieldExtractor results keyed by input content; not used when not set. With a
+         * cache, toMap returns unmodifiable maps shared between callers.
+         */
+        public Builder parseCache(ParseCache parseCache) {
+            this.parseCache = parseCache;
+            return this;
+        }
+
+        public JSONEngine build() {
+            return new JSONEngine(this);
+        }
+    }
+}
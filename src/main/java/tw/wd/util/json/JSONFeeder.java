@@ -0,0 +1,240 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Push-style reader of a stream of top-level JSON objects which arrive as arbitrary byte chunks, e.g.
+ * from an NIO socket.
+ * <p>
+ * {@link #feed(byte[], int, int)} scans each chunk as it arrives and keeps the scan state (nesting depth,
+ * string and escape state) between chunks, so it finds where every object ends without waiting for more
+ * input. A completed object is decoded right away, as a map or as a tuple of extracted fields, and queued
+ * for {@link #poll()}. Objects which lie within one chunk are decoded in place; the parts of an object
+ * spread over several chunks are copied and decoded as a sequence, so no contiguous buffer of the whole
+ * message is built. Objects may be separated by whitespace only.
+ * <p>
+ * The chunk passed to feed can be reused as soon as feed returns. A feeder is not thread-safe; use one per
+ * connection.
+ */
+public final class JSONFeeder<T> {
+    private final RecordDecoder<T> recordDecoder;
+    private final Deque<T> records;
+    private final List<byte[]> segments;
+    private int depth;
+    private boolean isInString;
+    private boolean isEscaped;
+    private long valueCount;
+
+    private JSONFeeder(RecordDecoder<T> recordDecoder) {
+        this.recordDecoder  = recordDecoder;
+        this.records        = new ArrayDeque<T>();
+        this.segments       = new ArrayList<byte[]>();
+    }
+
+    public static JSONFeeder<Map<String, Object>> forMaps() {
+        return forMaps(JSONEngine.getDefault());
+    }
+
+    public static JSONFeeder<Map<String, Object>> forMaps(final JSONEngine jsonEngine) {
+        return new JSONFeeder<Map<String, Object>>(new RecordDecoder<Map<String, Object>>() {
+            @Override
+            public Map<String, Object> decode(byte[] jsonBytes, int offset, int length) throws IOException {
+                return toMap(jsonEngine.createParser(jsonBytes, offset, length));
+            }
+
+            @Override
+            public Map<String, Object> decode(InputStream inputStream) throws IOException {
+                return toMap(jsonEngine.createParser(inputStream));
+            }
+
+            private Map<String, Object> toMap(JsonParser jsonParser) throws IOException {
+                try {
+                    return jsonEngine.getMapReader().readMap(jsonParser);
+                } catch (IOException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IOException(e);
+                } finally {
+                    jsonParser.close();
+                }
+            }
+        });
+    }
+
+    public static JSONFeeder<Object[]> forFields(FieldExtractor fieldExtractor) {
+        return forFields(JSONEngine.getDefault(), fieldExtractor);
+    }
+
+    public static JSONFeeder<Object[]> forFields(final JSONEngine jsonEngine, final FieldExtractor fieldExtractor) {
+        return new JSONFeeder<Object[]>(new RecordDecoder<Object[]>() {
+            @Override
+            public Object[] decode(byte[] jsonBytes, int offset, int length) throws IOException {
+                return jsonEngine.getFieldValue(jsonBytes, offset, length, fieldExtractor);
+            }
+
+            @Override
+            public Object[] decode(InputStream inputStream) throws IOException {
+                return jsonEngine.getFieldValue(inputStream, fieldExtractor);
+            }
+        });
+    }
+
+    /**
+     * Scan the chunk and decode every object it completes. Returns the number of objects completed.
+     * A malformed object or a stray character between objects is skipped; the first such error is thrown
+     * once the whole chunk was scanned, and feeding can continue with the next chunk.
+     */
+    public int feed(byte[] chunk, int offset, int length) throws IOException {
+        int end             = offset + length;
+        int valueStart      = depth > 0 ? offset : -1;
+        int completed       = 0;
+        IOException failure = null;
+
+        for (int idx = offset; idx < end; idx++) {
+            byte b = chunk[idx];
+
+            if (isInString) {
+                if (isEscaped) {
+                    isEscaped = false;
+                } else if (b == '\\') {
+                    isEscaped = true;
+                } else if (b == '"') {
+                    isInString = false;
+                }
+            } else if (depth == 0) {
+                if (b == '{') {
+                    depth       = 1;
+                    valueStart  = idx;
+                } else if (b != ' ' && b != '\n' && b != '\r' && b != '\t' && failure == null) {
+                    failure = new JsonParseException("Unexpected character '" + (char) b + "' between objects",
+                            new JsonLocation(null, -1, -1, -1));
+                }
+            } else if (b == '"') {
+                isInString = true;
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if ((b == '}' || b == ']') && --depth == 0) {
+                try {
+                    completeValue(chunk, valueStart, idx + 1 - valueStart);
+                    completed++;
+                } catch (IOException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+                valueStart = -1;
+            }
+        }
+
+        if (valueStart >= 0 && valueStart < end) {
+            segments.add(Arrays.copyOfRange(chunk, valueStart, end));
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return completed;
+    }
+
+    public int feed(byte[] chunk) throws IOException {
+        return feed(chunk, 0, chunk.length);
+    }
+
+    /**
+     * Feed the remaining bytes of the buffer, which is left at its limit.
+     */
+    public int feed(ByteBuffer byteBuffer) throws IOException {
+        if (byteBuffer.hasArray()) {
+            int count = feed(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), byteBuffer.remaining());
+
+            byteBuffer.position(byteBuffer.limit());
+            return count;
+        }
+
+        byte[] chunk = new byte[byteBuffer.remaining()];
+        byteBuffer.get(chunk);
+        return feed(chunk, 0, chunk.length);
+    }
+
+    /**
+     * Next completed record, or null when none is waiting.
+     */
+    public T poll() {
+        return records.poll();
+    }
+
+    public int getPendingCount() {
+        return records.size();
+    }
+
+    /**
+     * True while an object has started but not yet ended.
+     */
+    public boolean hasPartialValue() {
+        return depth > 0;
+    }
+
+    public long getValueCount() {
+        return valueCount;
+    }
+
+    /**
+     * Signal the end of the input; throws if it ends inside an object, after dropping the partial object.
+     * Records completed before it stay queued for {@link #poll()}.
+     */
+    public void endOfInput() throws JsonParseException {
+        if (depth > 0) {
+            clearPartialValue();
+            throw new JsonParseException("Unexpected end of input inside an object", new JsonLocation(null, -1, -1, -1));
+        }
+    }
+
+    /**
+     * Drop any partial object and the records not yet polled.
+     */
+    public void reset() {
+        clearPartialValue();
+        records.clear();
+    }
+
+    private void clearPartialValue() {
+        depth       = 0;
+        isInString  = false;
+        isEscaped   = false;
+        segments.clear();
+    }
+
+    private void completeValue(byte[] chunk, int offset, int length) throws IOException {
+        valueCount++;
+
+        if (segments.isEmpty()) {
+            records.add(recordDecoder.decode(chunk, offset, length));
+            return;
+        }
+
+        List<InputStream> inputStreams = new ArrayList<InputStream>(segments.size() + 1);
+        for (byte[] segment : segments) {
+            inputStreams.add(new ByteArrayInputStream(segment));
+        }
+        inputStreams.add(new ByteArrayInputStream(chunk, offset, length));
+        segments.clear();
+
+        records.add(recordDecoder.decode(new SequenceInputStream(Collections.enumeration(inputStreams))));
+    }
+
+    private interface RecordDecoder<T> {
+        T decode(byte[] jsonBytes, int offset, int length) throws IOException;
+
+        T decode(InputStream inputStream) throws IOException;
+    }
+}
@@ -0,0 +1,632 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+
+/**
+ * Filter and projection compiled once and evaluated while a record is being tokenized.
+ * <p>
+ * A condition compares field paths, written as for {@link FieldExtractor}, with literals:
+ * <pre>
+ * status == "ACTIVE" &amp;&amp; amount &gt; 100
+ * !(type == "test" || pl[0].pid &lt;= 10000) &amp;&amp; owner
+ * </pre>
+ * Operators are {@code == != < <= > >=}, {@code && || !} and parentheses; literals are strings in double
+ * quotes, numbers, {@code true}, {@code false} and {@code null}. A bare path holds when its value is present
+ * and neither null nor false. Missing fields compare as null; ordering comparisons hold only between two
+ * numbers or two strings.
+ * <p>
+ * The referenced paths are compiled into a trie and read in one pass over the parser's tokens. Subtrees which
+ * no path enters are skipped, and the condition is re-evaluated with three-valued logic whenever one of its
+ * values arrives, so reading stops as soon as the outcome is known to be false. Selected paths are read with
+ * their {@code JSONUtils.TYPE_*} codes in the same pass. {@link #filter(NDJSONReader, OutputStream)} copies
+ * matching records of a stream as raw bytes without decoding them further. A query is immutable and can be
+ * shared between threads.
+ */
+public final class JSONQuery {
+    private static final int FALSE      = 0;
+    private static final int TRUE       = 1;
+    private static final int UNKNOWN    = 2;
+
+    private static final Object UNSEEN      = new Object();
+    private static final Object NULL        = new Object();
+    private static final Object CONTAINER   = new Object();
+
+    private final String where;
+    private final Condition condition;
+    private final QueryNode root;
+    private final int slotCount;
+    private final int selectCount;
+    private final int targetCount;
+
+    private JSONQuery(String where, String[] selectPaths, byte[] selectTypes) {
+        if (selectPaths.length != selectTypes.length) {
+            throw new IllegalArgumentException("Length of select paths and types not equal.");
+        }
+
+        List<String> slotPaths  = new ArrayList<String>();
+        this.where              = where;
+        this.condition          = where == null || where.trim().isEmpty() ? null : new ConditionParser(where, slotPaths).parse();
+        this.root               = new QueryNode();
+        this.slotCount          = slotPaths.size();
+        this.selectCount        = selectPaths.length;
+
+        int count = 0;
+        for (int slot = 0; slot < slotPaths.size(); slot++) {
+            QueryNode node = addPath(root, slotPaths.get(slot));
+
+            if (node.slot < 0 && node.selectIndexes == null) {
+                node.targetOrdinal = count++;
+            }
+            node.slot = slot;
+        }
+        for (int idx = 0; idx < selectPaths.length; idx++) {
+            QueryNode node = addPath(root, selectPaths[idx]);
+
+            if (node.slot < 0 && node.selectIndexes == null) {
+                node.targetOrdinal = count++;
+            }
+            if (node.selectIndexes != null && node.selectType != selectTypes[idx]) {
+                throw new IllegalArgumentException("Path " + selectPaths[idx] + " selected with different types.");
+            }
+            node.selectType     = selectTypes[idx];
+            node.selectIndexes  = append(node.selectIndexes, idx);
+        }
+        this.targetCount = count;
+
+        validate(root);
+    }
+
+    public static JSONQuery compile(String where) {
+        return new JSONQuery(where, new String[0], new byte[0]);
+    }
+
+    /**
+     * Query whose matches yield the selected paths, read with their {@code JSONUtils.TYPE_*} codes.
+     * An empty condition matches every record.
+     */
+    public static JSONQuery compile(String where, String[] selectPaths, byte[] selectTypes) {
+        return new JSONQuery(where, selectPaths, selectTypes);
+    }
+
+    public String getWhere() {
+        return where;
+    }
+
+    public int getSelectCount() {
+        return selectCount;
+    }
+
+    public boolean matches(String jsonText) throws IOException {
+        return evaluateAndClose(JSONEngine.getDefault().createParser(jsonText), null);
+    }
+
+    public boolean matches(byte[] jsonBytes, int offset, int length) throws IOException {
+        return evaluateAndClose(JSONEngine.getDefault().createParser(jsonBytes, offset, length), null);
+    }
+
+    public boolean matches(JsonParser jsonParser) throws IOException {
+        return evaluate(jsonParser, null);
+    }
+
+    /**
+     * Selected values of a matching record in select order, or null when the record does not match.
+     */
+    public Object[] select(String jsonText) throws IOException {
+        Object[] values = new Object[selectCount];
+
+        return evaluateAndClose(JSONEngine.getDefault().createParser(jsonText), values) ? values : null;
+    }
+
+    public Object[] select(byte[] jsonBytes, int offset, int length) throws IOException {
+        Object[] values = new Object[selectCount];
+
+        return evaluateAndClose(JSONEngine.getDefault().createParser(jsonBytes, offset, length), values) ? values : null;
+    }
+
+    /**
+     * Evaluate the record at the parser, which may be positioned before or on it, storing the selected values
+     * into values when it is not null. Returns whether the record matches. The parser is left where reading
+     * stopped.
+     */
+    public boolean evaluate(JsonParser jsonParser, Object[] values) throws IOException {
+        if (values != null && values.length < selectCount) {
+            throw new IllegalArgumentException("Value array shorter than the number of selected paths.");
+        }
+        if (values != null) {
+            Arrays.fill(values, 0, selectCount, null);
+        }
+
+        Evaluation evaluation   = new Evaluation(slotCount, values, targetCount);
+        JsonToken jsonToken     = jsonParser.getCurrentToken();
+
+        if (jsonToken == null || jsonToken == JsonToken.FIELD_NAME) {
+            jsonToken = jsonParser.nextToken();
+        }
+        if (jsonToken == null) {
+            return false;
+        }
+        if (targetCount > 0) {
+            readValue(jsonParser, root, evaluation);
+        }
+
+        return evaluation.verdict != FALSE && (condition == null || condition.eval(evaluation.slots, true) == TRUE);
+    }
+
+    /**
+     * Advance the reader to its next matching record, storing the selected values into values when it is
+     * not null. The reader is then positioned on the match, whose raw bytes it can hand out. Returns false at
+     * the end of the input.
+     */
+    public boolean nextMatch(NDJSONReader reader, Object[] values) throws IOException {
+        while (reader.next()) {
+            if (evaluateAndClose(reader.createRecordParser(), values)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copy every matching record of the reader, as its raw bytes and a newline, to the stream.
+     * Returns the number of matches.
+     */
+    public long filter(NDJSONReader reader, OutputStream outputStream) throws IOException {
+        long count = 0;
+
+        while (nextMatch(reader, null)) {
+            outputStream.write(reader.getRecordBuffer(), reader.getRecordOffset(), reader.getRecordLength());
+            outputStream.write('\n');
+            count++;
+        }
+        return count;
+    }
+
+    private boolean evaluateAndClose(JsonParser jsonParser, Object[] values) throws IOException {
+        try {
+            return evaluate(jsonParser, values);
+        } finally {
+            jsonParser.close();
+        }
+    }
+
+    /**
+     * Returns true when reading can stop: the condition failed or every target was read.
+     */
+    private boolean readValue(JsonParser jsonParser, QueryNode node, Evaluation evaluation) throws IOException {
+        JsonToken jsonToken = jsonParser.getCurrentToken();
+
+        if (node == null) {
+            jsonParser.skipChildren();
+        } else if (node.slot >= 0 || node.selectIndexes != null) {
+            return readTarget(jsonParser, node, evaluation);
+        } else if (jsonToken == JsonToken.START_OBJECT) {
+            if (node.fields == null) {
+                jsonParser.skipChildren();
+                return false;
+            }
+            while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+                QueryNode child = node.fields.get(jsonParser.getCurrentName());
+
+                jsonParser.nextToken();
+                if (readValue(jsonParser, child, evaluation)) {
+                    return true;
+                }
+            }
+        } else if (jsonToken == JsonToken.START_ARRAY) {
+            if (node.elements == null) {
+                jsonParser.skipChildren();
+                return false;
+            }
+            for (int index = 0; jsonParser.nextToken() != JsonToken.END_ARRAY; index++) {
+                QueryNode child = index < node.elements.length ? node.elements[index] : null;
+
+                if (readValue(jsonParser, child, evaluation)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private boolean readTarget(JsonParser jsonParser, QueryNode node, Evaluation evaluation) throws IOException {
+        if (node.slot >= 0) {
+            evaluation.slots[node.slot] = scalar(jsonParser);
+        }
+        if (node.selectIndexes != null && evaluation.values != null) {
+            Object value = JSONUtils.getFieldValue(jsonParser, node.selectType);
+
+            for (int selectIndex : node.selectIndexes) {
+                evaluation.values[selectIndex] = value;
+            }
+        }
+        if (jsonParser.getCurrentToken() == JsonToken.START_OBJECT
+                || jsonParser.getCurrentToken() == JsonToken.START_ARRAY) {
+            jsonParser.skipChildren();
+        }
+
+        if (node.slot >= 0 && condition != null) {
+            evaluation.verdict = condition.eval(evaluation.slots, false);
+
+            // Once known, the outcome no longer depends on the values still unread.
+            if (evaluation.verdict == FALSE || evaluation.verdict == TRUE && evaluation.values == null) {
+                return true;
+            }
+        }
+        // A repeated key is evaluated again but counts as one target.
+        if (evaluation.seen[node.targetOrdinal]) {
+            return false;
+        }
+        evaluation.seen[node.targetOrdinal] = true;
+        return --evaluation.remaining == 0;
+    }
+
+    private static Object scalar(JsonParser jsonParser) throws IOException {
+        switch (jsonParser.getCurrentToken()) {
+            case VALUE_STRING:
+                return jsonParser.getText();
+            case VALUE_NUMBER_INT:
+                return jsonParser.getNumberType() == JsonParser.NumberType.BIG_INTEGER
+                        ? (Object) jsonParser.getDoubleValue() : (Object) jsonParser.getLongValue();
+            case VALUE_NUMBER_FLOAT:
+                return jsonParser.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case START_OBJECT:
+            case START_ARRAY:
+                return CONTAINER;
+            default:
+                return NULL;
+        }
+    }
+
+    private static QueryNode addPath(QueryNode root, String path) {
+        QueryNode node = root;
+
+        for (Object step : FieldExtractor.parsePath(path)) {
+            node = step instanceof Integer ? node.element((Integer) step) : node.field((String) step);
+        }
+        return node;
+    }
+
+    private static void validate(QueryNode node) {
+        boolean isTarget = node.slot >= 0 || node.selectIndexes != null;
+
+        if (isTarget && (node.fields != null || node.elements != null)) {
+            throw new IllegalArgumentException("A query path can not be both a value and the parent of another path.");
+        }
+        if (node.fields != null) {
+            for (QueryNode child : node.fields.values()) {
+                validate(child);
+            }
+        }
+        if (node.elements != null) {
+            for (QueryNode child : node.elements) {
+                if (child != null) {
+                    validate(child);
+                }
+            }
+        }
+    }
+
+    private static int[] append(int[] array, int value) {
+        if (array == null) {
+            return new int[]{value};
+        }
+
+        int[] newArray = Arrays.copyOf(array, array.length + 1);
+        newArray[array.length] = value;
+        return newArray;
+    }
+
+    private static final class Evaluation {
+        private final Object[] slots;
+        private final Object[] values;
+        private final boolean[] seen;
+        private int remaining;
+        private int verdict = UNKNOWN;
+
+        private Evaluation(int slotCount, Object[] values, int remaining) {
+            this.slots      = new Object[slotCount];
+            this.values     = values;
+            this.seen       = new boolean[remaining];
+            this.remaining  = remaining;
+
+            Arrays.fill(slots, UNSEEN);
+        }
+    }
+
+    private static final class QueryNode {
+        private Map<String, QueryNode> fields;
+        private QueryNode[] elements;
+        private int slot = -1;
+        private int targetOrdinal;
+        private int[] selectIndexes;
+        private byte selectType;
+
+        private QueryNode field(String name) {
+            if (fields == null) {
+                fields = new HashMap<String, QueryNode>();
+            }
+
+            QueryNode child = fields.get(name);
+            if (child == null) {
+                child = new QueryNode();
+                fields.put(name, child);
+            }
+            return child;
+        }
+
+        private QueryNode element(int index) {
+            if (elements == null) {
+                elements = new QueryNode[index + 1];
+            } else if (elements.length <= index) {
+                elements = Arrays.copyOf(elements, index + 1);
+            }
+
+            if (elements[index] == null) {
+                elements[index] = new QueryNode();
+            }
+            return elements[index];
+        }
+    }
+
+    /**
+     * Node of a compiled condition, evaluated in three-valued logic: a value not read yet is UNKNOWN
+     * until the record is complete, after which it counts as null.
+     */
+    private static final class Condition {
+        private static final int AND        = 0;
+        private static final int OR         = 1;
+        private static final int NOT        = 2;
+        private static final int PRESENT    = 3;
+        private static final int EQ         = 4;
+        private static final int NE         = 5;
+        private static final int LT         = 6;
+        private static final int LE         = 7;
+        private static final int GT         = 8;
+        private static final int GE         = 9;
+
+        private final int kind;
+        private final Condition left;
+        private final Condition right;
+        private final int slot;
+        private final Object literal;
+
+        private Condition(int kind, Condition left, Condition right, int slot, Object literal) {
+            this.kind       = kind;
+            this.left       = left;
+            this.right      = right;
+            this.slot       = slot;
+            this.literal    = literal;
+        }
+
+        private int eval(Object[] slots, boolean isComplete) {
+            switch (kind) {
+                case AND: {
+                    int leftResult = left.eval(slots, isComplete);
+                    if (leftResult == FALSE) {
+                        return FALSE;
+                    }
+                    int rightResult = right.eval(slots, isComplete);
+                    return rightResult == FALSE ? FALSE : leftResult == TRUE && rightResult == TRUE ? TRUE : UNKNOWN;
+                }
+                case OR: {
+                    int leftResult = left.eval(slots, isComplete);
+                    if (leftResult == TRUE) {
+                        return TRUE;
+                    }
+                    int rightResult = right.eval(slots, isComplete);
+                    return rightResult == TRUE ? TRUE : leftResult == FALSE && rightResult == FALSE ? FALSE : UNKNOWN;
+                }
+                case NOT: {
+                    int result = left.eval(slots, isComplete);
+                    return result == UNKNOWN ? UNKNOWN : result == TRUE ? FALSE : TRUE;
+                }
+                default:
+                    Object value = slots[slot];
+                    if (value == UNSEEN) {
+                        if (!isComplete) {
+                            return UNKNOWN;
+                        }
+                        value = NULL;
+                    }
+                    return compare(value) ? TRUE : FALSE;
+            }
+        }
+
+        private boolean compare(Object value) {
+            switch (kind) {
+                case PRESENT:
+                    return value != NULL && value != Boolean.FALSE;
+                case EQ:
+                    return isEqual(value);
+                case NE:
+                    return !isEqual(value);
+                default:
+                    int order;
+                    if (value instanceof Number && literal instanceof Number) {
+                        order = Double.compare(((Number) value).doubleValue(), ((Number) literal).doubleValue());
+                    } else if (value instanceof String && literal instanceof String) {
+                        order = ((String) value).compareTo((String) literal);
+                    } else {
+                        return false;
+                    }
+                    return kind == LT ? order < 0 : kind == LE ? order <= 0 : kind == GT ? order > 0 : order >= 0;
+            }
+        }
+
+        private boolean isEqual(Object value) {
+            if (value instanceof Long && literal instanceof Long) {
+                return ((Long) value).longValue() == ((Long) literal).longValue();
+            } else if (value instanceof Number && literal instanceof Number) {
+                return ((Number) value).doubleValue() == ((Number) literal).doubleValue();
+            }
+            return value.equals(literal);
+        }
+    }
+
+    /**
+     * Recursive descent parser of the condition language; assigns one slot per distinct path.
+     */
+    private static final class ConditionParser {
+        private final String text;
+        private final List<String> slotPaths;
+        private int pos;
+
+        private ConditionParser(String text, List<String> slotPaths) {
+            this.text       = text;
+            this.slotPaths  = slotPaths;
+        }
+
+        private Condition parse() {
+            Condition condition = parseOr();
+
+            skipWhitespace();
+            if (pos < text.length()) {
+                throw error("Unexpected '" + text.charAt(pos) + "'");
+            }
+            return condition;
+        }
+
+        private Condition parseOr() {
+            Condition condition = parseAnd();
+
+            while (consume("||")) {
+                condition = new Condition(Condition.OR, condition, parseAnd(), -1, null);
+            }
+            return condition;
+        }
+
+        private Condition parseAnd() {
+            Condition condition = parseUnary();
+
+            while (consume("&&")) {
+                condition = new Condition(Condition.AND, condition, parseUnary(), -1, null);
+            }
+            return condition;
+        }
+
+        private Condition parseUnary() {
+            if (consume("!")) {
+                return new Condition(Condition.NOT, parseUnary(), null, -1, null);
+            }
+            if (consume("(")) {
+                Condition condition = parseOr();
+
+                if (!consume(")")) {
+                    throw error("Missing ')'");
+                }
+                return condition;
+            }
+
+            int slot = slotOf(parsePath());
+            int kind = consume("==") ? Condition.EQ
+                    : consume("!=") ? Condition.NE
+                    : consume("<=") ? Condition.LE
+                    : consume(">=") ? Condition.GE
+                    : consume("<") ? Condition.LT
+                    : consume(">") ? Condition.GT
+                    : Condition.PRESENT;
+
+            return new Condition(kind, null, null, slot, kind == Condition.PRESENT ? null : parseLiteral());
+        }
+
+        private String parsePath() {
+            skipWhitespace();
+
+            int start = pos;
+            while (pos < text.length()) {
+                char c = text.charAt(pos);
+
+                if (!Character.isLetterOrDigit(c) && c != '_' && c != '$' && c != '-' && c != '.' && c != '[' && c != ']') {
+                    break;
+                }
+                pos++;
+            }
+            if (start == pos) {
+                throw error("Expected a field path");
+            }
+            return text.substring(start, pos);
+        }
+
+        private Object parseLiteral() {
+            skipWhitespace();
+
+            if (pos < text.length() && text.charAt(pos) == '"') {
+                StringBuilder sb = new StringBuilder();
+
+                for (pos++; pos < text.length() && text.charAt(pos) != '"'; pos++) {
+                    char c = text.charAt(pos);
+
+                    if (c == '\\' && pos + 1 < text.length()) {
+                        c = text.charAt(++pos);
+                    }
+                    sb.append(c);
+                }
+                if (pos >= text.length()) {
+                    throw error("Unclosed string");
+                }
+                pos++;
+                return sb.toString();
+            }
+
+            int start = pos;
+            while (pos < text.length() && "+-.0123456789eEtrufalsn".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+
+            String token = text.substring(start, pos);
+            if (token.equals("true")) {
+                return Boolean.TRUE;
+            } else if (token.equals("false")) {
+                return Boolean.FALSE;
+            } else if (token.equals("null")) {
+                return NULL;
+            }
+            try {
+                return token.indexOf('.') < 0 && token.indexOf('e') < 0 && token.indexOf('E') < 0
+                        ? (Object) Long.parseLong(token) : (Object) Double.parseDouble(token);
+            } catch (NumberFormatException e) {
+                throw error("Expected a literal");
+            }
+        }
+
+        private int slotOf(String path) {
+            int slot = slotPaths.indexOf(path);
+
+            if (slot < 0) {
+                slot = slotPaths.size();
+                slotPaths.add(path);
+            }
+            return slot;
+        }
+
+        private boolean consume(String token) {
+            skipWhitespace();
+
+            if (text.startsWith(token, pos)) {
+                pos += token.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + pos + " of query: " + text);
+        }
+    }
+}
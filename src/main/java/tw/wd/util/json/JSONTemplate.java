@@ -0,0 +1,86 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fixed list of keys for a repetitive response shape. The keys are quoted and UTF-8 encoded once
+ * when the template is compiled, so writing a message only encodes its values.
+ * <p>
+ * Values are given either positionally, in key order, or as a map whose template keys are written
+ * first, in key order, followed by any other entries. A template is immutable and can be shared
+ * between threads.
+ */
+public final class JSONTemplate {
+    private final String[] fieldNames;
+    private final SerializedString[] encodedNames;
+    private final Map<String, Integer> fieldIndexes;
+
+    private JSONTemplate(String[] fieldNames) {
+        this.fieldNames     = fieldNames.clone();
+        this.encodedNames   = new SerializedString[fieldNames.length];
+        this.fieldIndexes   = new HashMap<String, Integer>();
+
+        for (int idx = 0; idx < fieldNames.length; idx++) {
+            if (fieldNames[idx] == null || fieldIndexes.put(fieldNames[idx], idx) != null) {
+                throw new IllegalArgumentException("Template field names must be unique and not null.");
+            }
+
+            encodedNames[idx] = new SerializedString(fieldNames[idx]);
+            encodedNames[idx].asQuotedUTF8();
+        }
+    }
+
+    public static JSONTemplate compile(String... fieldNames) {
+        return new JSONTemplate(fieldNames);
+    }
+
+    public int size() {
+        return fieldNames.length;
+    }
+
+    public String getFieldName(int index) {
+        return fieldNames[index];
+    }
+
+    /**
+     * Write one object holding values in key order.
+     */
+    public void write(JsonGenerator jsonGenerator, ValueWriterRegistry registry, Object... values) throws IOException {
+        if (values.length != fieldNames.length) {
+            throw new IllegalArgumentException("Template has " + fieldNames.length + " fields but got " + values.length + " values.");
+        }
+
+        jsonGenerator.writeStartObject();
+        for (int idx = 0; idx < values.length; idx++) {
+            jsonGenerator.writeFieldName(encodedNames[idx]);
+            registry.writeValue(jsonGenerator, values[idx]);
+        }
+        jsonGenerator.writeEndObject();
+    }
+
+    /**
+     * Write the map with the template keys first. Template keys missing from the map are left out.
+     */
+    public void write(JsonGenerator jsonGenerator, ValueWriterRegistry registry, Map<String, Object> valueMap) throws IOException {
+        jsonGenerator.writeStartObject();
+        for (int idx = 0; idx < fieldNames.length; idx++) {
+            if (valueMap.containsKey(fieldNames[idx])) {
+                jsonGenerator.writeFieldName(encodedNames[idx]);
+                registry.writeValue(jsonGenerator, valueMap.get(fieldNames[idx]));
+            }
+        }
+
+        for (Map.Entry<String, Object> entry : valueMap.entrySet()) {
+            if (!fieldIndexes.containsKey(entry.getKey())) {
+                registry.writeFieldName(jsonGenerator, entry.getKey());
+                registry.writeValue(jsonGenerator, entry.getValue());
+            }
+        }
+        jsonGenerator.writeEndObject();
+    }
+}
@@ -0,0 +1,439 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * Whole JSON document held in a few primitive arrays instead of a tree of maps, lists and boxed numbers.
+ * <p>
+ * Nodes are numbered in document order, the root being node 0, and are addressed by that int:
+ * there are no per-node objects. Every node has a type, a field name (an index into a string pool
+ * shared by names and string values, which stores each distinct string once), the index of its
+ * parent and the index just past its subtree. Numbers and booleans are stored in a long array,
+ * doubles as their raw bits; containers store their number of children there. Integers beyond the
+ * range of a long are kept as text.
+ * <p>
+ * Navigate with {@link #getChild(int, String)}, {@link #getElement(int, int)} or
+ * {@link #getFirstChild(int)} and {@link #getNextSibling(int)}. {@link #toMap()} converts to the
+ * shape returned by {@link JSONUtils#toMap(String)}. A tree is immutable and can be shared between threads.
+ */
+public final class JSONTree {
+    public static final byte TYPE_OBJECT        = 1;
+    public static final byte TYPE_ARRAY         = 2;
+    public static final byte TYPE_STRING        = 3;
+    public static final byte TYPE_LONG          = 4;
+    public static final byte TYPE_DOUBLE        = 5;
+    public static final byte TYPE_BOOLEAN       = 6;
+    public static final byte TYPE_NULL          = 7;
+    public static final byte TYPE_BIG_INTEGER   = 8;
+
+    private static final int NO_NAME = -1;
+
+    private final byte[] types;
+    private final int[] names;
+    private final int[] parents;
+    private final int[] ends;
+    private final long[] values;
+    private final String[] strings;
+    private final int nodeCount;
+
+    private JSONTree(TreeBuilder builder) {
+        this.nodeCount  = builder.nodeCount;
+        this.types      = Arrays.copyOf(builder.types, nodeCount);
+        this.names      = Arrays.copyOf(builder.names, nodeCount);
+        this.parents    = Arrays.copyOf(builder.parents, nodeCount);
+        this.ends       = Arrays.copyOf(builder.ends, nodeCount);
+        this.values     = Arrays.copyOf(builder.values, nodeCount);
+        this.strings    = builder.stringList.toArray(new String[builder.stringList.size()]);
+    }
+
+    /**
+     * Read one value from the parser, which may be positioned before or on it.
+     */
+    public static JSONTree parse(JsonParser jsonParser) throws IOException {
+        TreeBuilder builder = new TreeBuilder();
+
+        if (jsonParser.getCurrentToken() == null && jsonParser.nextToken() == null) {
+            throw new JsonParseException("Empty document", jsonParser.getCurrentLocation());
+        }
+        builder.readValue(jsonParser, -1, NO_NAME);
+        return new JSONTree(builder);
+    }
+
+    /**
+     * Tree of a map, list or scalar in the shapes produced by toMap; other values are stored as their toString() text.
+     */
+    public static JSONTree fromValue(Object value) {
+        TreeBuilder builder = new TreeBuilder();
+
+        builder.addValue(value, -1, NO_NAME);
+        return new JSONTree(builder);
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getRoot() {
+        return 0;
+    }
+
+    public byte getType(int node) {
+        return types[node];
+    }
+
+    public boolean isContainer(int node) {
+        return types[node] == TYPE_OBJECT || types[node] == TYPE_ARRAY;
+    }
+
+    /**
+     * Field name of a node inside an object, null for array elements and the root.
+     */
+    public String getName(int node) {
+        return names[node] == NO_NAME ? null : strings[names[node]];
+    }
+
+    public int getParent(int node) {
+        return parents[node];
+    }
+
+    /**
+     * Number of fields or elements of a container, 0 for scalars.
+     */
+    public int getSize(int node) {
+        return isContainer(node) ? (int) values[node] : 0;
+    }
+
+    public int getFirstChild(int node) {
+        return isContainer(node) && node + 1 < ends[node] ? node + 1 : -1;
+    }
+
+    public int getNextSibling(int node) {
+        int parent = parents[node];
+
+        return parent >= 0 && ends[node] < ends[parent] ? ends[node] : -1;
+    }
+
+    /**
+     * Field of an object node, -1 when the node has no such field. The last of duplicate fields wins.
+     */
+    public int getChild(int node, String name) {
+        int found = -1;
+
+        if (types[node] == TYPE_OBJECT) {
+            for (int child = node + 1; child < ends[node]; child = ends[child]) {
+                int nameIdx = names[child];
+                if (strings[nameIdx] == name || strings[nameIdx].equals(name)) {
+                    found = child;
+                }
+            }
+        }
+        return found;
+    }
+
+    public int getElement(int node, int index) {
+        if (types[node] != TYPE_ARRAY || index < 0 || index >= values[node]) {
+            return -1;
+        }
+
+        int child = node + 1;
+        for (int idx = 0; idx < index; idx++) {
+            child = ends[child];
+        }
+        return child;
+    }
+
+    /**
+     * Node at a path of field names below node, -1 when any step is missing.
+     */
+    public int find(int node, String... names) {
+        for (int idx = 0; idx < names.length && node >= 0; idx++) {
+            node = getChild(node, names[idx]);
+        }
+        return node;
+    }
+
+    public String getString(int node) {
+        switch (types[node]) {
+            case TYPE_STRING:
+            case TYPE_BIG_INTEGER:
+                return strings[(int) values[node]];
+            case TYPE_LONG:
+                return String.valueOf(values[node]);
+            case TYPE_DOUBLE:
+                return String.valueOf(Double.longBitsToDouble(values[node]));
+            case TYPE_BOOLEAN:
+                return String.valueOf(values[node] != 0);
+            default:
+                return null;
+        }
+    }
+
+    public long getLong(int node) {
+        switch (types[node]) {
+            case TYPE_LONG:
+            case TYPE_BOOLEAN:
+                return values[node];
+            case TYPE_DOUBLE:
+                return (long) Double.longBitsToDouble(values[node]);
+            case TYPE_BIG_INTEGER:
+                return new BigInteger(strings[(int) values[node]]).longValue();
+            default:
+                throw new IllegalStateException("Node " + node + " is not a number.");
+        }
+    }
+
+    public int getInt(int node) {
+        return (int) getLong(node);
+    }
+
+    public double getDouble(int node) {
+        switch (types[node]) {
+            case TYPE_DOUBLE:
+                return Double.longBitsToDouble(values[node]);
+            case TYPE_LONG:
+                return values[node];
+            case TYPE_BIG_INTEGER:
+                return Double.parseDouble(strings[(int) values[node]]);
+            default:
+                throw new IllegalStateException("Node " + node + " is not a number.");
+        }
+    }
+
+    public boolean getBoolean(int node) {
+        if (types[node] != TYPE_BOOLEAN) {
+            throw new IllegalStateException("Node " + node + " is not a boolean.");
+        }
+        return values[node] != 0;
+    }
+
+    public boolean isNull(int node) {
+        return types[node] == TYPE_NULL;
+    }
+
+    /**
+     * Convert the root object to the shape returned by {@link JSONUtils#toMap(String)}: HashMaps, ArrayLists,
+     * Integer or Long, Float, Boolean, and "" for null.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> toMap() {
+        if (types[0] != TYPE_OBJECT) {
+            throw new IllegalStateException("Root is not an object.");
+        }
+        return (Map<String, Object>) toValue(0);
+    }
+
+    /**
+     * Convert one node as {@link #toMap()} does.
+     */
+    public Object toValue(int node) {
+        switch (types[node]) {
+            case TYPE_OBJECT:
+                Map<String, Object> valueMap = new HashMap<String, Object>();
+                for (int child = node + 1; child < ends[node]; child = ends[child]) {
+                    valueMap.put(strings[names[child]], toValue(child));
+                }
+                return valueMap;
+            case TYPE_ARRAY:
+                List<Object> valueList = new ArrayList<Object>((int) values[node]);
+                for (int child = node + 1; child < ends[node]; child = ends[child]) {
+                    valueList.add(toValue(child));
+                }
+                return valueList;
+            case TYPE_STRING:
+                return strings[(int) values[node]];
+            case TYPE_LONG:
+                long value = values[node];
+                return value == (int) value ? (Object) (int) value : (Object) value;
+            case TYPE_DOUBLE:
+                return (float) Double.longBitsToDouble(values[node]);
+            case TYPE_BOOLEAN:
+                return values[node] != 0;
+            case TYPE_BIG_INTEGER:
+                return new BigInteger(strings[(int) values[node]]);
+            default:
+                return "";
+        }
+    }
+
+    public void write(JsonGenerator jsonGenerator) throws IOException {
+        write(jsonGenerator, 0);
+    }
+
+    public void write(JsonGenerator jsonGenerator, int node) throws IOException {
+        switch (types[node]) {
+            case TYPE_OBJECT:
+                jsonGenerator.writeStartObject();
+                for (int child = node + 1; child < ends[node]; child = ends[child]) {
+                    jsonGenerator.writeFieldName(strings[names[child]]);
+                    write(jsonGenerator, child);
+                }
+                jsonGenerator.writeEndObject();
+                break;
+            case TYPE_ARRAY:
+                jsonGenerator.writeStartArray();
+                for (int child = node + 1; child < ends[node]; child = ends[child]) {
+                    write(jsonGenerator, child);
+                }
+                jsonGenerator.writeEndArray();
+                break;
+            case TYPE_STRING:
+                jsonGenerator.writeString(strings[(int) values[node]]);
+                break;
+            case TYPE_LONG:
+                jsonGenerator.writeNumber(values[node]);
+                break;
+            case TYPE_DOUBLE:
+                jsonGenerator.writeNumber(Double.longBitsToDouble(values[node]));
+                break;
+            case TYPE_BOOLEAN:
+                jsonGenerator.writeBoolean(values[node] != 0);
+                break;
+            case TYPE_BIG_INTEGER:
+                jsonGenerator.writeNumber(strings[(int) values[node]]);
+                break;
+            default:
+                jsonGenerator.writeNull();
+        }
+    }
+
+    private static final class TreeBuilder {
+        private byte[] types                    = new byte[64];
+        private int[] names                     = new int[64];
+        private int[] parents                   = new int[64];
+        private int[] ends                      = new int[64];
+        private long[] values                   = new long[64];
+        private final List<String> stringList   = new ArrayList<String>();
+        private final Map<String, Integer> stringIndexes = new HashMap<String, Integer>();
+        private int nodeCount;
+
+        private void readValue(JsonParser jsonParser, int parent, int name) throws IOException {
+            JsonToken jsonToken = jsonParser.getCurrentToken();
+
+            switch (jsonToken) {
+                case START_OBJECT:
+                    int objectNode = addNode(TYPE_OBJECT, parent, name, 0);
+                    while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+                        int fieldName = intern(jsonParser.getCurrentName());
+
+                        jsonParser.nextToken();
+                        readValue(jsonParser, objectNode, fieldName);
+                        values[objectNode]++;
+                    }
+                    ends[objectNode] = nodeCount;
+                    break;
+                case START_ARRAY:
+                    int arrayNode = addNode(TYPE_ARRAY, parent, name, 0);
+                    while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
+                        readValue(jsonParser, arrayNode, NO_NAME);
+                        values[arrayNode]++;
+                    }
+                    ends[arrayNode] = nodeCount;
+                    break;
+                case VALUE_STRING:
+                    addNode(TYPE_STRING, parent, name, intern(jsonParser.getText()));
+                    break;
+                case VALUE_NUMBER_INT:
+                    if (jsonParser.getNumberType() == JsonParser.NumberType.BIG_INTEGER) {
+                        addNode(TYPE_BIG_INTEGER, parent, name, intern(jsonParser.getText()));
+                    } else {
+                        addNode(TYPE_LONG, parent, name, jsonParser.getLongValue());
+                    }
+                    break;
+                case VALUE_NUMBER_FLOAT:
+                    addNode(TYPE_DOUBLE, parent, name, Double.doubleToRawLongBits(jsonParser.getDoubleValue()));
+                    break;
+                case VALUE_TRUE:
+                    addNode(TYPE_BOOLEAN, parent, name, 1);
+                    break;
+                case VALUE_FALSE:
+                    addNode(TYPE_BOOLEAN, parent, name, 0);
+                    break;
+                case VALUE_NULL:
+                    addNode(TYPE_NULL, parent, name, 0);
+                    break;
+                default:
+                    throw new JsonParseException("Unexpected token " + jsonToken, jsonParser.getCurrentLocation());
+            }
+        }
+
+        private void addValue(Object value, int parent, int name) {
+            if (value instanceof Map) {
+                int objectNode = addNode(TYPE_OBJECT, parent, name, 0);
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    addValue(entry.getValue(), objectNode, intern(String.valueOf(entry.getKey())));
+                    values[objectNode]++;
+                }
+                ends[objectNode] = nodeCount;
+            } else if (value instanceof Iterable) {
+                int arrayNode = addNode(TYPE_ARRAY, parent, name, 0);
+                for (Object element : (Iterable<?>) value) {
+                    addValue(element, arrayNode, NO_NAME);
+                    values[arrayNode]++;
+                }
+                ends[arrayNode] = nodeCount;
+            } else if (value != null && value.getClass().isArray()) {
+                int arrayNode = addNode(TYPE_ARRAY, parent, name, 0);
+                int length    = Array.getLength(value);
+                for (int idx = 0; idx < length; idx++) {
+                    addValue(Array.get(value, idx), arrayNode, NO_NAME);
+                }
+                values[arrayNode]   = length;
+                ends[arrayNode]     = nodeCount;
+            } else if (value == null) {
+                addNode(TYPE_NULL, parent, name, 0);
+            } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+                addNode(TYPE_LONG, parent, name, ((Number) value).longValue());
+            } else if (value instanceof BigInteger && ((BigInteger) value).bitLength() >= 64) {
+                addNode(TYPE_BIG_INTEGER, parent, name, intern(value.toString()));
+            } else if (value instanceof BigInteger) {
+                addNode(TYPE_LONG, parent, name, ((BigInteger) value).longValue());
+            } else if (value instanceof Float || value instanceof Double || value instanceof BigDecimal) {
+                addNode(TYPE_DOUBLE, parent, name, Double.doubleToRawLongBits(((Number) value).doubleValue()));
+            } else if (value instanceof Boolean) {
+                addNode(TYPE_BOOLEAN, parent, name, (Boolean) value ? 1 : 0);
+            } else {
+                addNode(TYPE_STRING, parent, name, intern(value.toString()));
+            }
+        }
+
+        private int addNode(byte type, int parent, int name, long value) {
+            if (nodeCount == types.length) {
+                int capacity = nodeCount << 1;
+
+                types   = Arrays.copyOf(types, capacity);
+                names   = Arrays.copyOf(names, capacity);
+                parents = Arrays.copyOf(parents, capacity);
+                ends    = Arrays.copyOf(ends, capacity);
+                values  = Arrays.copyOf(values, capacity);
+            }
+
+            int node        = nodeCount++;
+            types[node]     = type;
+            names[node]     = name;
+            parents[node]   = parent;
+            ends[node]      = nodeCount;
+            values[node]    = value;
+            return node;
+        }
+
+        private int intern(String text) {
+            Integer index = stringIndexes.get(text);
+
+            if (index == null) {
+                index = stringList.size();
+                stringList.add(text);
+                stringIndexes.put(text, index);
+            }
+            return index;
+        }
+    }
+}
@@ -2,112 +2,83 @@ package tw.wd.util.json;
 
 import com.fasterxml.jackson.core.*;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.util.*;
-import java.util.Map.Entry;
 
 public class JSONUtils {
-    public static final byte TYPE_INT           = 0x01;
-    public static final byte TYPE_LONG          = 0x02;
-    public static final byte TYPE_STRING        = 0x03;
-    public static final byte TYPE_ARRAY_INT     = 0x04;
-    public static final byte TYPE_ARRAY_LONG    = 0x05;
-    public static final byte TYPE_ARRAY_STRING  = 0x06;
+    public static final byte TYPE_INT             = 0x01;
+    public static final byte TYPE_LONG            = 0x02;
+    public static final byte TYPE_STRING          = 0x03;
+    public static final byte TYPE_ARRAY_INT       = 0x04;
+    public static final byte TYPE_ARRAY_LONG      = 0x05;
+    public static final byte TYPE_ARRAY_STRING    = 0x06;
+    public static final byte TYPE_ARRAY_DOUBLE    = 0x07;
+    public static final byte TYPE_ARRAY_BOOLEAN   = 0x08;
+    public static final byte TYPE_ARRAY_INT_2D    = 0x09;
+    public static final byte TYPE_ARRAY_LONG_2D   = 0x0A;
+    public static final byte TYPE_ARRAY_DOUBLE_2D = 0x0B;
 
 
 	public static Map<String, Object> toMap(String jsonText) throws Exception {
-        if (jsonText == null || jsonText.length() == 0) {
-            return new HashMap<String, Object>();
-        }
-
-        return toMap(new JsonFactory().createParser(jsonText));
+        return JSONEngine.getDefault().toMap(jsonText);
 	}
 
-    public static Map<String, Object> toMap(JsonParser jsonParser) throws Exception {
-        if (jsonParser == null) {
-            return new HashMap<String, Object>();
-        }
-
-        Map<String, Object> jsonMap 	= new HashMap<String, Object>();
-        String key                      = null;
-        Object value                    = null;
-        JsonToken jsonToken 			= null;
-
-
-        if (jsonParser.getCurrentToken() != JsonToken.START_OBJECT) {
-            jsonParser.nextToken();
-        }
+    public static Map<String, Object> toMap(byte[] jsonBytes) throws Exception {
+        return JSONEngine.getDefault().toMap(jsonBytes);
+    }
 
-        while ((jsonToken = jsonParser.nextToken()) != JsonToken.END_OBJECT) {
-            if (jsonToken == JsonToken.START_OBJECT) {
-                value = toMap(jsonParser);
-            } else if (jsonToken == JsonToken.START_ARRAY) {
-                value = toArray(jsonParser);
-            } else if (jsonToken == JsonToken.FIELD_NAME) {
-                key = jsonParser.getCurrentName();
-            } else {
-                value = toValueObject(jsonParser);
-            }
+    public static Map<String, Object> toMap(byte[] jsonBytes, int offset, int length) throws Exception {
+        return JSONEngine.getDefault().toMap(jsonBytes, offset, length);
+    }
 
-            if (key != null && value != null) {
-                jsonMap.put(key, value);
-                key     = null;
-                value   = null;
-            }
-        }
+    public static Map<String, Object> toMap(InputStream inputStream) throws Exception {
+        return JSONEngine.getDefault().toMap(inputStream);
+    }
 
-        return jsonMap;
+    public static Map<String, Object> toMap(byte[] jsonBytes, DataFormat dataFormat) throws Exception {
+        return JSONEngine.getDefault(dataFormat).toMap(jsonBytes);
     }
 
-    private static List<Object> toArray(JsonParser jsonParser) throws Exception {
-        List<Object> valueList   = new ArrayList<Object>();
-        JsonToken jsonToken         = null;
-        Object value                = null;
+    public static Map<String, Object> toMap(ByteBuffer byteBuffer) throws Exception {
+        return JSONEngine.getDefault().toMap(byteBuffer);
+    }
 
-        if (jsonParser.getCurrentToken() != JsonToken.START_ARRAY) {
-            jsonParser.nextToken();
-        }
+    /**
+     * Index the top-level fields of the document and decode each value only when it is read.
+     */
+    public static LazyJSONDocument toLazyMap(String jsonText) throws IOException {
+        return JSONEngine.getDefault().toLazyMap(jsonText);
+    }
 
-        while ((jsonToken = jsonParser.nextToken()) != JsonToken.END_ARRAY) {
-            if (jsonToken == JsonToken.START_OBJECT) {
-                value = toMap(jsonParser);
-            } else if (jsonToken == JsonToken.START_ARRAY) {
-                value = toArray(jsonParser);
-            } else {
-                value = toValueObject(jsonParser);
-            }
+    public static LazyJSONDocument toLazyMap(byte[] jsonBytes) throws IOException {
+        return JSONEngine.getDefault().toLazyMap(jsonBytes);
+    }
 
-            if (value != null) {
-                valueList.add(value);
-            }
-        }
+    public static LazyJSONDocument toLazyMap(byte[] jsonBytes, int offset, int length) throws IOException {
+        return JSONEngine.getDefault().toLazyMap(jsonBytes, offset, length);
+    }
 
-        return valueList;
+    /**
+     * Parse the document into a flat-array {@link JSONTree}.
+     */
+    public static JSONTree toTree(String jsonText) throws IOException {
+        return JSONEngine.getDefault().toTree(jsonText);
     }
 
-    private static Object toValueObject(JsonParser jsonParser) throws Exception {
-        JsonToken jsonToken = jsonParser.getCurrentToken();
+    public static JSONTree toTree(byte[] jsonBytes) throws IOException {
+        return JSONEngine.getDefault().toTree(jsonBytes);
+    }
 
-        if (JsonToken.VALUE_STRING == jsonToken) {
-            return jsonParser.getText();
-        } else if (JsonToken.VALUE_NUMBER_INT == jsonToken) {
-            try {
-                return jsonParser.getIntValue();
-            } catch (JsonParseException e) {
-                return jsonParser.getLongValue();
-            }
-        } else if (JsonToken.VALUE_TRUE == jsonToken || JsonToken.VALUE_FALSE == jsonToken) {
-            return jsonParser.getBooleanValue();
-        } else if (JsonToken.VALUE_NUMBER_FLOAT == jsonToken) {
-            return jsonParser.getFloatValue();
-        } else if (JsonToken.VALUE_EMBEDDED_OBJECT == jsonToken) {
-            return jsonParser.getEmbeddedObject();
-        } else if (JsonToken.VALUE_NULL == jsonToken) {
-            return "";
-        } else {
-            return null;
+    public static Map<String, Object> toMap(JsonParser jsonParser) throws Exception {
+        if (jsonParser == null) {
+            return new HashMap<String, Object>();
         }
+
+        return MapReader.DEFAULT.readMap(jsonParser);
     }
 	
 	public static String toJSON(String fieldName, Object fieldValue) {
@@ -117,181 +88,156 @@ public class JSONUtils {
 	}
 
     public static boolean isFieldExist(String jsonText, String... fields) throws IOException {
-        Set<String> fieldSet    = new HashSet<String>();
-        JsonFactory jsonFactory = new JsonFactory();
-        JsonParser jsonParser   = jsonFactory.createParser(jsonText);
-        JsonToken jsonToken     = null;
-        String fieldName        = null;
-
-        for (String s : fields) {
-            fieldSet.add(s);
-        }
+        return JSONEngine.getDefault().isFieldExist(jsonText, fields);
+    }
+
+    public static boolean isFieldExist(byte[] jsonBytes, String... fields) throws IOException {
+        return JSONEngine.getDefault().isFieldExist(jsonBytes, fields);
+    }
 
-        while ((jsonToken = jsonParser.nextToken()) != JsonToken.END_OBJECT) {
-            if (jsonToken == JsonToken.START_OBJECT) {
-                continue;
-            } else if (jsonToken == JsonToken.FIELD_NAME) {
-                fieldName = jsonParser.getCurrentName();
+    public static boolean isFieldExist(byte[] jsonBytes, int offset, int length, String... fields) throws IOException {
+        return JSONEngine.getDefault().isFieldExist(jsonBytes, offset, length, fields);
+    }
 
-                if (!fieldSet.remove(fieldName)) {
-                    return false;
-                }
-            }
-        }
+    public static boolean isFieldExist(InputStream inputStream, String... fields) throws IOException {
+        return JSONEngine.getDefault().isFieldExist(inputStream, fields);
+    }
 
-        return fieldSet.size() == 0 ? true : false;
+    public static boolean isFieldExist(ByteBuffer byteBuffer, String... fields) throws IOException {
+        return JSONEngine.getDefault().isFieldExist(byteBuffer, fields);
     }
 	
 	public static String toJSON(Map<String, Object> valueMap) {
-		ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();		
-		JsonFactory jsonFactory = new JsonFactory();
-		try {
-			JsonGenerator jsonGenerator = jsonFactory.createGenerator(byteArrayOutputStream, JsonEncoding.UTF8);
-			jsonGenerator.writeStartObject();
-			
-			Iterator<Entry<String, Object>> iter = valueMap.entrySet().iterator();			
-			while (iter.hasNext()) {
-				Entry<String, Object> entry = iter.next();
-				
-				jsonGenerator.writeFieldName(entry.getKey());				
-				writeFieldValue(jsonGenerator, entry.getValue());
-			}
-			
-			jsonGenerator.flush();
-			jsonGenerator.close();
-			return new String(byteArrayOutputStream.toByteArray(), "UTF-8");
-		} catch (IOException e) {
-			e.printStackTrace();
-			return new String(byteArrayOutputStream.toByteArray());
-		} finally {
-			try {
-				byteArrayOutputStream.close();
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
-		}
+		return JSONEngine.getDefault().toJSON(valueMap);
 	}
-	
-	private static void writeFieldValue(JsonGenerator jsonGenerator, Object value) throws IOException {
 
-        if (value == null) {
-            jsonGenerator.writeNull();
-        } else {
-            Class<?> valueClazz = value.getClass();
-
-            if (String.class.isAssignableFrom(valueClazz)) {
-                byte[] textBytes = ((String)value).getBytes("UTF-8");
-                jsonGenerator.writeUTF8String(textBytes, 0, textBytes.length);
-            } else if (Integer.class.isAssignableFrom(valueClazz)) {
-                jsonGenerator.writeNumber((Integer)value);
-            } else if (String[].class.isAssignableFrom(valueClazz)) {
-                jsonGenerator.writeStartArray();
-
-                String[] values = (String[])value;
-                for (String s : values) {
-                    writeFieldValue(jsonGenerator, s);
-                }
-
-                jsonGenerator.writeEndArray();
-            } else if (Long.class.isAssignableFrom(valueClazz)) {
-                jsonGenerator.writeNumber((Long)value);
-            } else if (Boolean.class.isAssignableFrom(valueClazz)) {
-                jsonGenerator.writeBoolean((Boolean)value);
-            } else if (Double.class.isAssignableFrom(valueClazz)) {
-                jsonGenerator.writeNumber((Double)value);
-            } else if (JSONTranslatable.class.isAssignableFrom(valueClazz)) {
-                JSONTranslatable jsonTranslatable = (JSONTranslatable) value;
-                jsonGenerator.writeRawValue(jsonTranslatable.toJSON());
-            } else if (JSONTranslatable[].class.isAssignableFrom(valueClazz)) {
-                jsonGenerator.writeStartArray();
-
-                JSONTranslatable[] jsonTranslatables = (JSONTranslatable[]) value;
-
-                for (JSONTranslatable jsonTranslatable : jsonTranslatables) {
-                    jsonGenerator.writeRawValue(jsonTranslatable.toJSON());
-                }
-
-                jsonGenerator.writeEndArray();
-            } else if (List.class.isAssignableFrom(valueClazz)) {
-                jsonGenerator.writeStartArray();
-
-                List<?> values      = (List<?>)value;
-                Iterator<?> iter    = values.iterator();
-
-                while (iter.hasNext()) {
-                    writeFieldValue(jsonGenerator, iter.next());
-                }
-
-                jsonGenerator.writeEndArray();
-            } else if (Map.class.isAssignableFrom(valueClazz)) {
-                jsonGenerator.writeStartObject();
-
-                Map<String, Object> valueMap = (Map<String, Object>) value;
-                jsonGenerator.writeRawValue(JSONUtils.toJSON(valueMap));
-
-                jsonGenerator.writeEndObject();
-            } else if (byte.class.isAssignableFrom(valueClazz)) {
-	            jsonGenerator.writeNumber((Integer) value);
-            }
-        }
-	}
+    public static byte[] toJSONBytes(Map<String, Object> valueMap) throws IOException {
+        return JSONEngine.getDefault().toJSONBytes(valueMap);
+    }
+
+    /**
+     * Serialize in the given format, e.g. {@link DataFormat#SMILE} between internal services.
+     */
+    public static byte[] toJSONBytes(Map<String, Object> valueMap, DataFormat dataFormat) throws IOException {
+        return JSONEngine.getDefault(dataFormat).toJSONBytes(valueMap);
+    }
+
+    public static void toJSON(Map<String, Object> valueMap, OutputStream outputStream) throws IOException {
+        JSONEngine.getDefault().toJSON(valueMap, outputStream);
+    }
+
+    public static void toJSON(Map<String, Object> valueMap, Writer writer) throws IOException {
+        JSONEngine.getDefault().toJSON(valueMap, writer);
+    }
+
+    public static ByteBuffer toJSON(Map<String, Object> valueMap, ByteBuffer byteBuffer) throws IOException {
+        return JSONEngine.getDefault().toJSON(valueMap, byteBuffer);
+    }
+
+    public static void toJSON(Map<String, Object> valueMap, JsonGenerator jsonGenerator) throws IOException {
+        JSONEngine.getDefault().toJSON(valueMap, jsonGenerator);
+    }
+
+    /**
+     * Serialize any value, binding plain objects field by field. See {@link ObjectBinder}.
+     */
+    public static String toJSON(Object value) throws IOException {
+        return JSONEngine.getDefault().toJSON(value);
+    }
+
+    public static String toJSON(JSONTemplate jsonTemplate, Object... values) throws IOException {
+        return JSONEngine.getDefault().toJSON(jsonTemplate, values);
+    }
+
+    public static String toJSON(JSONTemplate jsonTemplate, Map<String, Object> valueMap) throws IOException {
+        return JSONEngine.getDefault().toJSON(jsonTemplate, valueMap);
+    }
 
+    public static byte[] toJSONBytes(Object value, DataFormat dataFormat) throws IOException {
+        return JSONEngine.getDefault(dataFormat).toJSONBytes(value);
+    }
+
+    public static <T> T toObject(String jsonText, Class<T> type) throws IOException {
+        return JSONEngine.getDefault().toObject(jsonText, type);
+    }
+
+    public static <T> T toObject(byte[] jsonBytes, Class<T> type) throws IOException {
+        return JSONEngine.getDefault().toObject(jsonBytes, type);
+    }
+
+    public static <T> T toObject(byte[] jsonBytes, Class<T> type, DataFormat dataFormat) throws IOException {
+        return JSONEngine.getDefault(dataFormat).toObject(jsonBytes, type);
+    }
+	
+    /**
+     * Register writer for type and its subtypes on the default {@link ValueWriterRegistry}.
+     */
+    public static void registerWriter(Class<?> type, ValueWriter<?> writer) {
+        ValueWriterRegistry.getDefault().register(type, writer);
+    }
 
     public static Object[] getFieldValue(String jsonText, String[] fieldNames, byte[] fieldTypes) throws IOException {
-        if (fieldNames.length == fieldTypes.length) {
+        return JSONEngine.getDefault().getFieldValue(jsonText, fieldNames, fieldTypes);
+    }
 
-            JsonFactory jsonFactory = new JsonFactory();
-            JsonParser jsonParser   = jsonFactory.createParser(jsonText);
-            JsonToken jsonToken     = null;
-            int arrayLength         = fieldNames.length;
-            Object[] rtnValue       = new Object[arrayLength];
+    public static Object[] getFieldValue(byte[] jsonBytes, String[] fieldNames, byte[] fieldTypes) throws IOException {
+        return JSONEngine.getDefault().getFieldValue(jsonBytes, fieldNames, fieldTypes);
+    }
 
-            while ((jsonToken = jsonParser.nextToken()) != JsonToken.END_OBJECT) {
-                if (jsonToken == JsonToken.START_OBJECT) {
-                    continue;
-                } else if (jsonToken == JsonToken.FIELD_NAME) {
+    public static Object[] getFieldValue(byte[] jsonBytes, int offset, int length, String[] fieldNames, byte[] fieldTypes) throws IOException {
+        return JSONEngine.getDefault().getFieldValue(jsonBytes, offset, length, fieldNames, fieldTypes);
+    }
 
-                    String currFieldName = jsonParser.getCurrentName();
+    public static Object[] getFieldValue(InputStream inputStream, String[] fieldNames, byte[] fieldTypes) throws IOException {
+        return JSONEngine.getDefault().getFieldValue(inputStream, fieldNames, fieldTypes);
+    }
 
-                    for (int idx = 0; idx < arrayLength; idx++) {
+    public static Object[] getFieldValue(ByteBuffer byteBuffer, String[] fieldNames, byte[] fieldTypes) throws IOException {
+        return JSONEngine.getDefault().getFieldValue(byteBuffer, fieldNames, fieldTypes);
+    }
 
-                        String fieldName = fieldNames[idx];
+    public static Object[] getFieldValue(String jsonText, FieldExtractor fieldExtractor) throws IOException {
+        return JSONEngine.getDefault().getFieldValue(jsonText, fieldExtractor);
+    }
 
-                        if (currFieldName.equals(fieldName)) {
+    public static Object[] getFieldValue(byte[] jsonBytes, FieldExtractor fieldExtractor) throws IOException {
+        return JSONEngine.getDefault().getFieldValue(jsonBytes, fieldExtractor);
+    }
 
-                            jsonParser.nextToken();
-                            rtnValue[idx] = getFieldValue(jsonParser, fieldTypes[idx]);
+    public static Object[] getFieldValue(byte[] jsonBytes, int offset, int length, FieldExtractor fieldExtractor) throws IOException {
+        return JSONEngine.getDefault().getFieldValue(jsonBytes, offset, length, fieldExtractor);
+    }
 
-                        }
-                    }
-                }
-            }
+    public static Object[] getFieldValue(byte[] jsonBytes, FieldExtractor fieldExtractor, DataFormat dataFormat) throws IOException {
+        return JSONEngine.getDefault(dataFormat).getFieldValue(jsonBytes, fieldExtractor);
+    }
 
-            return rtnValue;
-        } else {
-            throw new RuntimeException("Length of FieldName and FieldType not equal.");
-        }
+    public static Object[] getFieldValue(InputStream inputStream, FieldExtractor fieldExtractor) throws IOException {
+        return JSONEngine.getDefault().getFieldValue(inputStream, fieldExtractor);
+    }
+
+    public static Object[] getFieldValue(ByteBuffer byteBuffer, FieldExtractor fieldExtractor) throws IOException {
+        return JSONEngine.getDefault().getFieldValue(byteBuffer, fieldExtractor);
     }
 
     public static <T> T getFieldValue(String jsonText, String fieldName, byte fieldType) throws IOException {
-        JsonFactory jsonFactory = new JsonFactory();
-        JsonParser jsonParser   = jsonFactory.createParser(jsonText);
-        JsonToken jsonToken     = null;
-
-        while ((jsonToken = jsonParser.nextToken()) != JsonToken.END_OBJECT) {
-            if (jsonToken == JsonToken.START_OBJECT) {
-                continue;
-            } else if (jsonToken == JsonToken.FIELD_NAME) {
-                String currFieldName = jsonParser.getCurrentName();
-
-                if (fieldName.equals(currFieldName)) {
-                    jsonParser.nextToken();
-                    return getFieldValue(jsonParser, fieldType);
-                }
-            }
-        }
+        return JSONEngine.getDefault().getFieldValue(jsonText, fieldName, fieldType);
+    }
 
-        return null;
+    public static <T> T getFieldValue(byte[] jsonBytes, String fieldName, byte fieldType) throws IOException {
+        return JSONEngine.getDefault().getFieldValue(jsonBytes, fieldName, fieldType);
+    }
+
+    public static <T> T getFieldValue(byte[] jsonBytes, int offset, int length, String fieldName, byte fieldType) throws IOException {
+        return JSONEngine.getDefault().getFieldValue(jsonBytes, offset, length, fieldName, fieldType);
+    }
+
+    public static <T> T getFieldValue(InputStream inputStream, String fieldName, byte fieldType) throws IOException {
+        return JSONEngine.getDefault().getFieldValue(inputStream, fieldName, fieldType);
+    }
+
+    public static <T> T getFieldValue(ByteBuffer byteBuffer, String fieldName, byte fieldType) throws IOException {
+        return JSONEngine.getDefault().getFieldValue(byteBuffer, fieldName, fieldType);
     }
 
     public static <T> T getFieldValue(JsonParser jsonParser, byte fieldType) throws IOException {
@@ -303,66 +249,25 @@ public class JSONUtils {
             case TYPE_STRING:
                 return (T)jsonParser.getText();
             case TYPE_ARRAY_INT:
-                return (T)writeIntValueToArray(jsonParser);
+                return (T)PrimitiveArrays.readIntArray(jsonParser);
             case TYPE_ARRAY_LONG:
-                return (T)writeLongValueToArray(jsonParser);
+                return (T)PrimitiveArrays.readLongArray(jsonParser);
+            case TYPE_ARRAY_DOUBLE:
+                return (T)PrimitiveArrays.readDoubleArray(jsonParser);
+            case TYPE_ARRAY_BOOLEAN:
+                return (T)PrimitiveArrays.readBooleanArray(jsonParser);
+            case TYPE_ARRAY_INT_2D:
+                return (T)PrimitiveArrays.readIntArray2D(jsonParser);
+            case TYPE_ARRAY_LONG_2D:
+                return (T)PrimitiveArrays.readLongArray2D(jsonParser);
+            case TYPE_ARRAY_DOUBLE_2D:
+                return (T)PrimitiveArrays.readDoubleArray2D(jsonParser);
             case TYPE_ARRAY_STRING:
                 return (T)writeStringValueToArray(jsonParser);
         }
         return null;
     }
 
-    private static int[] writeIntValueToArray(JsonParser jsonParser) throws IOException {
-        List<Integer> integerList = null;
-
-        if (jsonParser.getCurrentToken() == JsonToken.START_ARRAY) {
-
-            integerList = new ArrayList<Integer>();
-
-            while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
-                if (jsonParser.getCurrentToken() == JsonToken.START_ARRAY) {
-                    while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
-                        integerList.add(jsonParser.getIntValue());
-                    }
-                }
-            }
-
-            int[] intVals = new int[integerList.size()];
-            for (int idx = 0; idx < integerList.size(); idx++) {
-                intVals[idx] = integerList.get(idx);
-            }
-
-            return intVals;
-        } else {
-            return new int[0];
-        }
-    }
-
-    private static long[] writeLongValueToArray(JsonParser jsonParser) throws IOException {
-        List<Long> longList = null;
-
-        if (jsonParser.getCurrentToken() == JsonToken.START_ARRAY) {
-
-            longList = new ArrayList<Long>();
-
-            while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
-                if (jsonParser.getCurrentToken() == JsonToken.START_ARRAY) {
-                    while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
-                        longList.add(jsonParser.getLongValue());
-                    }
-                }
-            }
-
-            long[] longVals = new long[longList.size()];
-            for (int idx = 0; idx < longList.size(); idx++) {
-                longVals[idx] = longList.get(idx);
-            }
-            return longVals;
-        } else {
-            return new long[0];
-        }
-    }
-
     private static String[] writeStringValueToArray(JsonParser jsonParser) throws IOException {
         List<String> strList = null;
 
@@ -385,45 +290,72 @@ public class JSONUtils {
     }
 
     public static boolean isJSONFormat(String text) throws Exception {
-        JsonFactory jsonFactory             = new JsonFactory();
-        JsonParser jsonParser               = jsonFactory.createParser(text);
-        JsonToken processJsonToken          = null;
-        boolean isStartChecked              = false;
-        Stack<JsonToken> jsonTokensStack    = new Stack<JsonToken>();
-
-
-        while ((processJsonToken = jsonParser.nextToken()) != null) {
-            if (JsonToken.START_OBJECT == processJsonToken) {
-                jsonTokensStack.push(JsonToken.START_OBJECT);
-            } else if (JsonToken.START_ARRAY == processJsonToken) {
-                jsonTokensStack.push(JsonToken.START_ARRAY);
-            } else if (JsonToken.END_OBJECT == processJsonToken) {
-                if (jsonTokensStack.pop() != JsonToken.START_OBJECT) {
-                    return false;
-                }
-            } else if (JsonToken.END_ARRAY == processJsonToken) {
-                if (jsonTokensStack.pop() != JsonToken.START_ARRAY) {
-                    return false;
-                }
-            }
-        }
+        return JSONEngine.getDefault().isJSONFormat(text);
+    }
+
+    public static boolean isJSONFormat(byte[] jsonBytes) throws Exception {
+        return JSONEngine.getDefault().isJSONFormat(jsonBytes);
+    }
 
-        return true;
+    public static boolean isJSONFormat(byte[] jsonBytes, int offset, int length) throws Exception {
+        return JSONEngine.getDefault().isJSONFormat(jsonBytes, offset, length);
+    }
+
+    public static boolean isJSONFormat(InputStream inputStream) throws Exception {
+        return JSONEngine.getDefault().isJSONFormat(inputStream);
+    }
+
+    public static boolean isJSONFormat(ByteBuffer byteBuffer) throws Exception {
+        return JSONEngine.getDefault().isJSONFormat(byteBuffer);
+    }
+
+    /**
+     * Check well-formedness without throwing, reporting where and why a document is malformed.
+     */
+    public static ValidationResult validate(String text) {
+        return JSONEngine.getDefault().validate(text);
+    }
+
+    public static ValidationResult validate(byte[] jsonBytes, int offset, int length) {
+        return JSONEngine.getDefault().validate(jsonBytes, offset, length);
     }
 
     public interface JSONTranslatable {
         /**
-         * Trans pbject to json-format text.
+         * Trans pbject to json-format text. By default the fields are bound by {@link ObjectBinder}.
          * @return
          */
-        public String toJSON();
+        public default String toJSON() {
+            try {
+                return JSONEngine.getDefault().toJSON(this);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
 
         /**
-         * Trans json-format text to specific object.
+         * Trans json-format text to specific object. By default a new instance of this class is bound by {@link ObjectBinder}.
          * @param jsonText
          * @param <T>
          * @return
          */
-        public <T> T fromJSON(String jsonText);
+        @SuppressWarnings("unchecked")
+        public default <T> T fromJSON(String jsonText) {
+            try {
+                return (T) JSONEngine.getDefault().toObject(jsonText, getClass());
+            } catch (IOException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+
+        /**
+         * Write object into the generator. A class overriding {@link #toJSON()} has that text written as raw value,
+         * otherwise the fields are streamed by {@link ObjectBinder}. Override to stream the fields by hand.
+         * @param jsonGenerator
+         * @throws IOException
+         */
+        default void writeJSON(JsonGenerator jsonGenerator) throws IOException {
+            ObjectBinder.getDefault().writeTranslatable(jsonGenerator, this);
+        }
     }
 }
@@ -0,0 +1,356 @@
+package tw.wd.util.json;
+
+/**
+ * Single-pass well-formedness check of UTF-8 JSON.
+ * <p>
+ * The validator walks the bytes once with a small state machine. Open containers are tracked in a
+ * bitset (one bit per level, object or array), so validating allocates nothing per token and nothing
+ * at all for valid documents nested up to 64 levels. Errors are returned as a {@link ValidationResult}
+ * instead of thrown. Limits on nesting depth, document size and string length are enforced while
+ * scanning. A validator is immutable and can be shared between threads.
+ */
+public class JSONValidator {
+    public static final int DEFAULT_MAX_DEPTH           = 1000;
+    public static final int DEFAULT_MAX_DOCUMENT_SIZE   = Integer.MAX_VALUE;
+    public static final int DEFAULT_MAX_STRING_LENGTH   = Integer.MAX_VALUE;
+
+    private static final JSONValidator DEFAULT_VALIDATOR = new JSONValidator();
+
+    private static final int STATE_VALUE        = 0;
+    private static final int STATE_FIELD_NAME   = 1;
+    private static final int STATE_AFTER_VALUE  = 2;
+
+    private final int maxDepth;
+    private final int maxDocumentSize;
+    private final int maxStringLength;
+
+    public JSONValidator() {
+        this(new Builder());
+    }
+
+    private JSONValidator(Builder builder) {
+        this.maxDepth           = builder.maxDepth;
+        this.maxDocumentSize    = builder.maxDocumentSize;
+        this.maxStringLength    = builder.maxStringLength;
+    }
+
+    public static JSONValidator getDefault() {
+        return DEFAULT_VALIDATOR;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public int getMaxDocumentSize() {
+        return maxDocumentSize;
+    }
+
+    public int getMaxStringLength() {
+        return maxStringLength;
+    }
+
+    /**
+     * Validate the UTF-8 encoding of the text.
+     */
+    public ValidationResult validate(String text) {
+        if (text == null) {
+            return ValidationResult.invalid(0, "Empty document");
+        }
+
+        byte[] jsonBytes = text.getBytes(ReusableByteArrayOutputStream.UTF_8);
+        return validate(jsonBytes, 0, jsonBytes.length);
+    }
+
+    public ValidationResult validate(byte[] jsonBytes) {
+        return validate(jsonBytes, 0, jsonBytes.length);
+    }
+
+    public ValidationResult validate(byte[] buf, int offset, int length) {
+        if (length > maxDocumentSize) {
+            return ValidationResult.invalid(maxDocumentSize, "Document larger than " + maxDocumentSize + " bytes");
+        }
+
+        int end             = offset + length;
+        int pos             = StructuralScanner.skipWhitespace(buf, offset, end);
+        int state           = STATE_VALUE;
+        int depth           = 0;
+        long objectBits     = 0;
+        long[] deepBits     = null;
+
+        if (pos == end) {
+            return ValidationResult.invalid(pos - offset, "Empty document");
+        }
+
+        while (true) {
+            if (state == STATE_VALUE) {
+                if (pos >= end) {
+                    return ValidationResult.invalid(pos - offset, "Expected a value");
+                }
+
+                byte b = buf[pos];
+                if (b == '{' || b == '[') {
+                    if (depth == maxDepth) {
+                        return ValidationResult.invalid(pos - offset, "Nesting deeper than " + maxDepth);
+                    }
+
+                    boolean isObject = b == '{';
+                    if (depth < 64) {
+                        objectBits = isObject ? objectBits | (1L << depth) : objectBits & ~(1L << depth);
+                    } else {
+                        if (deepBits == null) {
+                            deepBits = new long[(maxDepth >> 6) + 1];
+                        }
+                        int word = depth >> 6;
+                        deepBits[word] = isObject ? deepBits[word] | (1L << (depth & 63)) : deepBits[word] & ~(1L << (depth & 63));
+                    }
+                    depth++;
+
+                    pos = StructuralScanner.skipWhitespace(buf, pos + 1, end);
+                    if (pos < end && buf[pos] == (isObject ? '}' : ']')) {
+                        depth--;
+                        pos++;
+                        state = STATE_AFTER_VALUE;
+                    } else {
+                        state = isObject ? STATE_FIELD_NAME : STATE_VALUE;
+                    }
+                    continue;
+                } else if (b == '"') {
+                    int start   = pos;
+                    pos         = scanString(buf, pos, end);
+                    if (pos < 0) {
+                        return ValidationResult.invalid(~pos - offset, "Malformed string");
+                    } else if (pos - start - 2 > maxStringLength) {
+                        return ValidationResult.invalid(start - offset, "String longer than " + maxStringLength + " bytes");
+                    }
+                } else if (b == '-' || (b >= '0' && b <= '9')) {
+                    pos = scanNumber(buf, pos, end);
+                    if (pos < 0) {
+                        return ValidationResult.invalid(~pos - offset, "Malformed number");
+                    }
+                } else if (b == 't' || b == 'f' || b == 'n') {
+                    pos = scanLiteral(buf, pos, end, b == 't' ? "true" : b == 'f' ? "false" : "null");
+                    if (pos < 0) {
+                        return ValidationResult.invalid(~pos - offset, "Unknown literal");
+                    }
+                } else {
+                    return ValidationResult.invalid(pos - offset, "Unexpected character '" + (char) (b & 0xFF) + "'");
+                }
+
+                state = STATE_AFTER_VALUE;
+            } else if (state == STATE_FIELD_NAME) {
+                if (pos >= end || buf[pos] != '"') {
+                    return ValidationResult.invalid(pos - offset, "Expected field name");
+                }
+
+                int start   = pos;
+                pos         = scanString(buf, pos, end);
+                if (pos < 0) {
+                    return ValidationResult.invalid(~pos - offset, "Malformed field name");
+                } else if (pos - start - 2 > maxStringLength) {
+                    return ValidationResult.invalid(start - offset, "Field name longer than " + maxStringLength + " bytes");
+                }
+
+                pos = StructuralScanner.skipWhitespace(buf, pos, end);
+                if (pos >= end || buf[pos] != ':') {
+                    return ValidationResult.invalid(pos - offset, "Expected ':'");
+                }
+                pos     = StructuralScanner.skipWhitespace(buf, pos + 1, end);
+                state   = STATE_VALUE;
+            } else {
+                pos = StructuralScanner.skipWhitespace(buf, pos, end);
+
+                if (depth == 0) {
+                    return pos == end ? ValidationResult.VALID : ValidationResult.invalid(pos - offset, "Unexpected content after root value");
+                } else if (pos >= end) {
+                    return ValidationResult.invalid(pos - offset, "Unclosed object or array");
+                }
+
+                int level           = depth - 1;
+                boolean isObject    = level < 64 ? (objectBits & (1L << level)) != 0 : (deepBits[level >> 6] & (1L << (level & 63))) != 0;
+                byte b              = buf[pos];
+
+                if (b == ',') {
+                    pos     = StructuralScanner.skipWhitespace(buf, pos + 1, end);
+                    state   = isObject ? STATE_FIELD_NAME : STATE_VALUE;
+                } else if (b == (isObject ? '}' : ']')) {
+                    depth--;
+                    pos++;
+                } else {
+                    return ValidationResult.invalid(pos - offset, isObject ? "Expected ',' or '}'" : "Expected ',' or ']'");
+                }
+            }
+        }
+    }
+
+    /**
+     * Scan methods return the position after the token, or ~position of the malformed byte.
+     */
+    private static int scanString(byte[] buf, int pos, int end) {
+        int start = pos++;
+
+        while (pos < end) {
+            byte b = buf[pos];
+
+            if (b == '"') {
+                return pos + 1;
+            } else if (b == '\\') {
+                if (pos + 1 >= end) {
+                    return ~pos;
+                }
+
+                byte escaped = buf[pos + 1];
+                if (escaped == 'u') {
+                    if (pos + 5 >= end || !isHex(buf[pos + 2]) || !isHex(buf[pos + 3]) || !isHex(buf[pos + 4]) || !isHex(buf[pos + 5])) {
+                        return ~pos;
+                    }
+                    pos += 6;
+                } else if (escaped == '"' || escaped == '\\' || escaped == '/' || escaped == 'b'
+                        || escaped == 'f' || escaped == 'n' || escaped == 'r' || escaped == 't') {
+                    pos += 2;
+                } else {
+                    return ~pos;
+                }
+            } else if (b >= 0 && b < 0x20) {
+                return ~pos;
+            } else if (b < 0) {
+                int count = utf8ContinuationCount(b);
+                if (count < 0 || pos + count >= end) {
+                    return ~pos;
+                }
+                for (int idx = 1; idx <= count; idx++) {
+                    if ((buf[pos + idx] & 0xC0) != 0x80) {
+                        return ~pos;
+                    }
+                }
+                pos += count + 1;
+            } else {
+                pos++;
+            }
+        }
+
+        return ~start;
+    }
+
+    private static int scanNumber(byte[] buf, int pos, int end) {
+        int start = pos;
+
+        if (buf[pos] == '-') {
+            pos++;
+        }
+
+        if (pos >= end) {
+            return ~start;
+        } else if (buf[pos] == '0') {
+            pos++;
+        } else if (buf[pos] >= '1' && buf[pos] <= '9') {
+            pos = skipDigits(buf, pos, end);
+        } else {
+            return ~start;
+        }
+
+        if (pos < end && buf[pos] == '.') {
+            int fractionStart = ++pos;
+            pos = skipDigits(buf, pos, end);
+            if (pos == fractionStart) {
+                return ~start;
+            }
+        }
+
+        if (pos < end && (buf[pos] == 'e' || buf[pos] == 'E')) {
+            pos++;
+            if (pos < end && (buf[pos] == '+' || buf[pos] == '-')) {
+                pos++;
+            }
+
+            int exponentStart = pos;
+            pos = skipDigits(buf, pos, end);
+            if (pos == exponentStart) {
+                return ~start;
+            }
+        }
+
+        return pos;
+    }
+
+    private static int scanLiteral(byte[] buf, int pos, int end, String literal) {
+        int length = literal.length();
+
+        if (end - pos < length) {
+            return ~pos;
+        }
+
+        for (int idx = 0; idx < length; idx++) {
+            if (buf[pos + idx] != literal.charAt(idx)) {
+                return ~pos;
+            }
+        }
+
+        return pos + length;
+    }
+
+    private static int skipDigits(byte[] buf, int pos, int end) {
+        while (pos < end && buf[pos] >= '0' && buf[pos] <= '9') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isHex(byte b) {
+        return (b >= '0' && b <= '9') || (b >= 'a' && b <= 'f') || (b >= 'A' && b <= 'F');
+    }
+
+    private static int utf8ContinuationCount(byte b) {
+        int lead = b & 0xFF;
+
+        if (lead >= 0xC2 && lead <= 0xDF) {
+            return 1;
+        } else if (lead >= 0xE0 && lead <= 0xEF) {
+            return 2;
+        } else if (lead >= 0xF0 && lead <= 0xF4) {
+            return 3;
+        }
+        return -1;
+    }
+
+    public static class Builder {
+        private int maxDepth        = DEFAULT_MAX_DEPTH;
+        private int maxDocumentSize = DEFAULT_MAX_DOCUMENT_SIZE;
+        private int maxStringLength = DEFAULT_MAX_STRING_LENGTH;
+
+        public Builder maxDepth(int maxDepth) {
+            if (maxDepth <= 0) {
+                throw new IllegalArgumentException("Max depth must be positive.");
+            }
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        public Builder maxDocumentSize(int maxDocumentSize) {
+            if (maxDocumentSize <= 0) {
+                throw new IllegalArgumentException("Max document size must be positive.");
+            }
+            this.maxDocumentSize = maxDocumentSize;
+            return this;
+        }
+
+        /**
+         * Longest allowed string or field name, in UTF-8 bytes of its JSON text.
+         */
+        public Builder maxStringLength(int maxStringLength) {
+            if (maxStringLength < 0) {
+                throw new IllegalArgumentException("Max string length must not be negative.");
+            }
+            this.maxStringLength = maxStringLength;
+            return this;
+        }
+
+        public JSONValidator build() {
+            return new JSONValidator(this);
+        }
+    }
+}
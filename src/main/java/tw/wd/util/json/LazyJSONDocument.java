@@ -0,0 +1,465 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.util.*;
+
+/**
+ * Map view of a UTF-8 JSON object which decodes values on demand.
+ * <p>
+ * Creating a document makes one structural pass over the top-level object and records, per field,
+ * the byte spans of its name and value. {@link #get(Object)} then decodes only the requested value
+ * and caches it: strings and numbers as {@link JSONUtils#toMap(String)} would produce them, nested
+ * objects as further lazy documents over the same bytes and arrays as lists. The first mutation
+ * decodes all values into a regular map, after which the document behaves like a LinkedHashMap.
+ * <p>
+ * The document keeps a reference to the input bytes, which must not be modified while it is in use.
+ * Like HashMap, a document is not thread-safe.
+ */
+public class LazyJSONDocument extends AbstractMap<String, Object> {
+    private static final int SPAN_SIZE      = 4;
+    private static final int KEY_START      = 0;
+    private static final int KEY_END        = 1;
+    private static final int VALUE_START    = 2;
+    private static final int VALUE_END      = 3;
+
+    private final JSONEngine jsonEngine;
+    private final byte[] buf;
+    private int[] spans;
+    private int fieldCount;
+    private String[] keys;
+    private Object[] values;
+    private int[] hashTable;
+    private BitSet shadowedFields;
+    private int size;
+    private Map<String, Object> materializedMap;
+    private Set<Entry<String, Object>> entrySet;
+
+    LazyJSONDocument(JSONEngine jsonEngine, byte[] buf, int offset, int length) throws JsonParseException {
+        this.jsonEngine = jsonEngine;
+        this.buf        = buf;
+        this.spans      = new int[SPAN_SIZE * 8];
+
+        if (length > 0) {
+            indexFields(offset, offset + length);
+        }
+
+        this.keys       = new String[fieldCount];
+        this.values     = new Object[fieldCount];
+        buildHashTable();
+    }
+
+    @Override
+    public int size() {
+        return materializedMap != null ? materializedMap.size() : size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (materializedMap != null) {
+            return materializedMap.containsKey(key);
+        }
+
+        return key instanceof String && indexOf((String) key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (materializedMap != null) {
+            return materializedMap.get(key);
+        }
+
+        int fieldIdx = key instanceof String ? indexOf((String) key) : -1;
+        return fieldIdx < 0 ? null : value(fieldIdx);
+    }
+
+    /**
+     * Value of an integer field read straight from the bytes without boxing; defaultValue when the field
+     * is missing or not a number. Fractions are truncated.
+     */
+    public long getLong(String key, long defaultValue) {
+        int fieldIdx = materializedMap == null ? indexOf(key) : -1;
+
+        if (fieldIdx < 0 || values[fieldIdx] != null) {
+            return longValue(get(key), defaultValue);
+        }
+
+        int pos         = spans[fieldIdx * SPAN_SIZE + VALUE_START];
+        int end         = spans[fieldIdx * SPAN_SIZE + VALUE_END];
+        boolean isNeg   = buf[pos] == '-';
+        long result     = 0;
+
+        if (isNeg) {
+            pos++;
+        }
+        if (pos == end || end - pos > 18) {
+            return longValue(value(fieldIdx), defaultValue);
+        }
+        for (; pos < end; pos++) {
+            int digit = buf[pos] - '0';
+
+            if (digit < 0 || digit > 9) {
+                return longValue(value(fieldIdx), defaultValue);
+            }
+            result = result * 10 + digit;
+        }
+        return isNeg ? -result : result;
+    }
+
+    /**
+     * Value of a numeric field without boxing; defaultValue when the field is missing or not a number.
+     */
+    public double getDouble(String key, double defaultValue) {
+        int fieldIdx = materializedMap == null ? indexOf(key) : -1;
+
+        if (fieldIdx < 0 || values[fieldIdx] != null) {
+            Object value = get(key);
+            return value instanceof Number ? ((Number) value).doubleValue() : defaultValue;
+        }
+
+        int start   = spans[fieldIdx * SPAN_SIZE + VALUE_START];
+        int end     = spans[fieldIdx * SPAN_SIZE + VALUE_END];
+        byte first  = buf[start];
+
+        if (first != '-' && (first < '0' || first > '9')) {
+            return defaultValue;
+        }
+        return Double.parseDouble(new String(buf, start, end - start, ReusableByteArrayOutputStream.UTF_8));
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        return materialize().put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        return materialize().remove(key);
+    }
+
+    @Override
+    public void clear() {
+        materialize().clear();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (materializedMap != null) {
+            return materializedMap.entrySet();
+        }
+
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    if (materializedMap != null) {
+                        return materializedMap.entrySet().iterator();
+                    }
+                    return new FieldIterator();
+                }
+
+                @Override
+                public int size() {
+                    return LazyJSONDocument.this.size();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    private void indexFields(int start, int end) throws JsonParseException {
+        int pos = StructuralScanner.skipWhitespace(buf, start, end);
+
+        if (pos >= end || buf[pos] != '{') {
+            throw StructuralScanner.error("Expected '{'", pos);
+        }
+
+        pos = StructuralScanner.skipWhitespace(buf, pos + 1, end);
+        if (pos < end && buf[pos] == '}') {
+            return;
+        }
+
+        while (true) {
+            if (pos >= end || buf[pos] != '"') {
+                throw StructuralScanner.error("Expected field name", pos);
+            }
+
+            int keyStart    = pos + 1;
+            pos             = StructuralScanner.skipString(buf, pos, end);
+            int keyEnd      = pos - 1;
+
+            pos = StructuralScanner.skipWhitespace(buf, pos, end);
+            if (pos >= end || buf[pos] != ':') {
+                throw StructuralScanner.error("Expected ':'", pos);
+            }
+
+            int valueStart  = StructuralScanner.skipWhitespace(buf, pos + 1, end);
+            pos             = StructuralScanner.skipValue(buf, valueStart, end);
+            addField(keyStart, keyEnd, valueStart, pos);
+
+            pos = StructuralScanner.skipWhitespace(buf, pos, end);
+            if (pos < end && buf[pos] == ',') {
+                pos = StructuralScanner.skipWhitespace(buf, pos + 1, end);
+            } else if (pos < end && buf[pos] == '}') {
+                return;
+            } else {
+                throw StructuralScanner.error("Expected ',' or '}'", pos);
+            }
+        }
+    }
+
+    private void addField(int keyStart, int keyEnd, int valueStart, int valueEnd) {
+        int spanIdx = fieldCount * SPAN_SIZE;
+
+        if (spanIdx + SPAN_SIZE > spans.length) {
+            spans = Arrays.copyOf(spans, spans.length << 1);
+        }
+
+        spans[spanIdx + KEY_START]      = keyStart;
+        spans[spanIdx + KEY_END]        = keyEnd;
+        spans[spanIdx + VALUE_START]    = valueStart;
+        spans[spanIdx + VALUE_END]      = valueEnd;
+        fieldCount++;
+    }
+
+    /**
+     * Open-addressing table of field index + 1. A later field with the same name shadows the earlier one.
+     */
+    private void buildHashTable() {
+        int capacity = Integer.highestOneBit(Math.max(fieldCount * 2, 2) - 1) << 1;
+
+        hashTable   = new int[capacity];
+        size        = fieldCount;
+
+        for (int fieldIdx = 0; fieldIdx < fieldCount; fieldIdx++) {
+            int slot = keyHash(fieldIdx) & (capacity - 1);
+
+            while (hashTable[slot] != 0) {
+                int otherIdx = hashTable[slot] - 1;
+
+                if (key(otherIdx).equals(key(fieldIdx))) {
+                    if (shadowedFields == null) {
+                        shadowedFields = new BitSet(fieldCount);
+                    }
+                    shadowedFields.set(otherIdx);
+                    size--;
+                    break;
+                }
+                slot = (slot + 1) & (capacity - 1);
+            }
+            hashTable[slot] = fieldIdx + 1;
+        }
+    }
+
+    private static long longValue(Object value, long defaultValue) {
+        return value instanceof Number ? ((Number) value).longValue() : defaultValue;
+    }
+
+    private int indexOf(String key) {
+        int mask = hashTable.length - 1;
+        int slot = key.hashCode() & mask;
+
+        while (hashTable[slot] != 0) {
+            int fieldIdx = hashTable[slot] - 1;
+
+            if (keyEquals(fieldIdx, key)) {
+                return fieldIdx;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Same value as key(fieldIdx).hashCode(), computed from the bytes for plain ASCII names.
+     */
+    private int keyHash(int fieldIdx) {
+        int start   = spans[fieldIdx * SPAN_SIZE + KEY_START];
+        int end     = spans[fieldIdx * SPAN_SIZE + KEY_END];
+        int hash    = 0;
+
+        for (int pos = start; pos < end; pos++) {
+            byte b = buf[pos];
+
+            if (b < 0 || b == '\\') {
+                return key(fieldIdx).hashCode();
+            }
+            hash = 31 * hash + b;
+        }
+
+        return hash;
+    }
+
+    private boolean keyEquals(int fieldIdx, String key) {
+        if (keys[fieldIdx] != null) {
+            return keys[fieldIdx].equals(key);
+        }
+
+        int start   = spans[fieldIdx * SPAN_SIZE + KEY_START];
+        int end     = spans[fieldIdx * SPAN_SIZE + KEY_END];
+
+        if (end - start != key.length()) {
+            return isEscapedOrNonASCII(start, end) && key(fieldIdx).equals(key);
+        }
+
+        for (int pos = start; pos < end; pos++) {
+            byte b = buf[pos];
+
+            if (b < 0 || b == '\\') {
+                return key(fieldIdx).equals(key);
+            } else if (b != key.charAt(pos - start)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean isEscapedOrNonASCII(int start, int end) {
+        for (int pos = start; pos < end; pos++) {
+            if (buf[pos] < 0 || buf[pos] == '\\') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String key(int fieldIdx) {
+        String key = keys[fieldIdx];
+
+        if (key == null) {
+            int start   = spans[fieldIdx * SPAN_SIZE + KEY_START];
+            int end     = spans[fieldIdx * SPAN_SIZE + KEY_END];
+
+            key = isEscapedOrNonASCII(start, end)
+                    ? (String) decode(start - 1, end + 1)
+                    : new String(buf, start, end - start, ReusableByteArrayOutputStream.UTF_8);
+            keys[fieldIdx] = key;
+        }
+
+        return key;
+    }
+
+    private Object value(int fieldIdx) {
+        Object value = values[fieldIdx];
+
+        if (value == null) {
+            int start   = spans[fieldIdx * SPAN_SIZE + VALUE_START];
+            int end     = spans[fieldIdx * SPAN_SIZE + VALUE_END];
+            byte first  = buf[start];
+
+            if (first == '"' && !isEscapedOrNonASCII(start + 1, end - 1)) {
+                value = new String(buf, start + 1, end - start - 2, ReusableByteArrayOutputStream.UTF_8);
+            } else if (first == '{') {
+                try {
+                    value = new LazyJSONDocument(jsonEngine, buf, start, end - start);
+                } catch (JsonParseException e) {
+                    throw new IllegalStateException("Invalid JSON value of field " + key(fieldIdx), e);
+                }
+            } else {
+                value = decode(start, end);
+            }
+            values[fieldIdx] = value;
+        }
+
+        return value;
+    }
+
+    private Object decode(int start, int end) {
+        try {
+            JsonParser jsonParser = jsonEngine.createParser(buf, start, end - start);
+            try {
+                jsonParser.nextToken();
+                return jsonEngine.getMapReader().readValue(jsonParser);
+            } finally {
+                jsonParser.close();
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Invalid JSON value at offset " + start, e);
+        }
+    }
+
+    private Map<String, Object> materialize() {
+        if (materializedMap == null) {
+            Map<String, Object> valueMap = new LinkedHashMap<String, Object>(Math.max(size * 2, 16));
+
+            for (int fieldIdx = 0; fieldIdx < fieldCount; fieldIdx++) {
+                if (shadowedFields == null || !shadowedFields.get(fieldIdx)) {
+                    valueMap.put(key(fieldIdx), value(fieldIdx));
+                }
+            }
+            materializedMap = valueMap;
+        }
+        return materializedMap;
+    }
+
+    private final class FieldIterator implements Iterator<Entry<String, Object>> {
+        private int nextIdx = nextField(0);
+
+        private int nextField(int fieldIdx) {
+            while (fieldIdx < fieldCount && shadowedFields != null && shadowedFields.get(fieldIdx)) {
+                fieldIdx++;
+            }
+            return fieldIdx;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextIdx < fieldCount;
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (nextIdx >= fieldCount) {
+                throw new NoSuchElementException();
+            }
+
+            final int fieldIdx = nextIdx;
+            nextIdx = nextField(nextIdx + 1);
+
+            return new Entry<String, Object>() {
+                @Override
+                public String getKey() {
+                    return key(fieldIdx);
+                }
+
+                @Override
+                public Object getValue() {
+                    return value(fieldIdx);
+                }
+
+                @Override
+                public Object setValue(Object value) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public boolean equals(Object o) {
+                    if (!(o instanceof Entry)) {
+                        return false;
+                    }
+                    Entry<?, ?> entry = (Entry<?, ?>) o;
+                    return getKey().equals(entry.getKey())
+                            && (getValue() == null ? entry.getValue() == null : getValue().equals(entry.getValue()));
+                }
+
+                @Override
+                public int hashCode() {
+                    return getKey().hashCode() ^ (getValue() == null ? 0 : getValue().hashCode());
+                }
+
+                @Override
+                public String toString() {
+                    return getKey() + "=" + getValue();
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
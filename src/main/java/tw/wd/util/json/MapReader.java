@@ -0,0 +1,138 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the Map/List/scalar trees returned by toMap.
+ * <p>
+ * {@link #DEFAULT} builds HashMaps and ArrayLists. An engine may instead deduplicate short string
+ * values through a {@link StringDedupTable} and build compact trees: {@link CompactMap}s for small
+ * objects and exactly sized lists, which cuts the retained heap of parsed documents kept in memory.
+ * Field names need no table of their own, since Jackson already canonicalizes them per factory.
+ * Numbers are boxed as the engine's {@link NumberPolicy} says.
+ */
+final class MapReader {
+    static final MapReader DEFAULT = new MapReader(null, false, NumberPolicy.COMPACT);
+
+    private final StringDedupTable stringDedupTable;
+    private final boolean isCompact;
+    private final NumberPolicy numberPolicy;
+
+    MapReader(StringDedupTable stringDedupTable, boolean isCompact, NumberPolicy numberPolicy) {
+        this.stringDedupTable   = stringDedupTable;
+        this.isCompact          = isCompact;
+        this.numberPolicy       = numberPolicy;
+    }
+
+    Map<String, Object> readMap(JsonParser jsonParser) throws Exception {
+        Map<String, Object> jsonMap = isCompact ? new CompactMap() : new HashMap<String, Object>();
+        String key                  = null;
+        Object value                = null;
+        JsonToken jsonToken         = null;
+
+        if (jsonParser.getCurrentToken() != JsonToken.START_OBJECT) {
+            jsonParser.nextToken();
+        }
+
+        while ((jsonToken = jsonParser.nextToken()) != JsonToken.END_OBJECT) {
+            if (jsonToken == JsonToken.START_OBJECT) {
+                value = readMap(jsonParser);
+            } else if (jsonToken == JsonToken.START_ARRAY) {
+                value = readArray(jsonParser);
+            } else if (jsonToken == JsonToken.FIELD_NAME) {
+                key = jsonParser.getCurrentName();
+            } else {
+                value = readScalar(jsonParser);
+            }
+
+            if (key != null && value != null) {
+                jsonMap.put(key, value);
+                key     = null;
+                value   = null;
+
+                // Switch before the linear scans of CompactMap.put grow with the object.
+                if (isCompact && jsonMap.size() > CompactMap.MAX_SIZE && jsonMap instanceof CompactMap) {
+                    jsonMap = new HashMap<String, Object>(jsonMap);
+                }
+            }
+        }
+
+        if (jsonMap instanceof CompactMap) {
+            ((CompactMap) jsonMap).trimToSize();
+        }
+        return jsonMap;
+    }
+
+    /**
+     * Read the value at the parser's current token: a map, a list or a scalar.
+     */
+    Object readValue(JsonParser jsonParser) throws Exception {
+        JsonToken jsonToken = jsonParser.getCurrentToken();
+
+        if (jsonToken == JsonToken.START_OBJECT) {
+            return readMap(jsonParser);
+        } else if (jsonToken == JsonToken.START_ARRAY) {
+            return readArray(jsonParser);
+        } else {
+            return readScalar(jsonParser);
+        }
+    }
+
+    private List<Object> readArray(JsonParser jsonParser) throws Exception {
+        ArrayList<Object> valueList = new ArrayList<Object>();
+        JsonToken jsonToken         = null;
+        Object value                = null;
+
+        if (jsonParser.getCurrentToken() != JsonToken.START_ARRAY) {
+            jsonParser.nextToken();
+        }
+
+        while ((jsonToken = jsonParser.nextToken()) != JsonToken.END_ARRAY) {
+            if (jsonToken == JsonToken.START_OBJECT) {
+                value = readMap(jsonParser);
+            } else if (jsonToken == JsonToken.START_ARRAY) {
+                value = readArray(jsonParser);
+            } else {
+                value = readScalar(jsonParser);
+            }
+
+            if (value != null) {
+                valueList.add(value);
+            }
+        }
+
+        if (isCompact) {
+            valueList.trimToSize();
+        }
+        return valueList;
+    }
+
+    private Object readScalar(JsonParser jsonParser) throws Exception {
+        JsonToken jsonToken = jsonParser.getCurrentToken();
+
+        if (JsonToken.VALUE_STRING == jsonToken) {
+            if (stringDedupTable != null) {
+                return stringDedupTable.dedup(jsonParser.getTextCharacters(), jsonParser.getTextOffset(), jsonParser.getTextLength());
+            }
+            return jsonParser.getText();
+        } else if (JsonToken.VALUE_NUMBER_INT == jsonToken) {
+            return numberPolicy.readInt(jsonParser);
+        } else if (JsonToken.VALUE_TRUE == jsonToken || JsonToken.VALUE_FALSE == jsonToken) {
+            return jsonParser.getBooleanValue();
+        } else if (JsonToken.VALUE_NUMBER_FLOAT == jsonToken) {
+            return numberPolicy.readFloat(jsonParser);
+        } else if (JsonToken.VALUE_EMBEDDED_OBJECT == jsonToken) {
+            return jsonParser.getEmbeddedObject();
+        } else if (JsonToken.VALUE_NULL == jsonToken) {
+            return "";
+        } else {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Record reader over a memory-mapped NDJSON file or a file holding one top-level JSON array.
+ * <p>
+ * The file is mapped in windows of at most {@code windowSize} bytes, so files larger than 2 GB
+ * are handled by moving the window forward; a record must fit in one window. Record boundaries
+ * are found by scanning the mapped bytes (newlines for NDJSON, top-level commas for an array),
+ * and each record is handed to Jackson as a slice of the mapping, so the file content is never
+ * copied to the heap as a whole and reading is served from the page cache.
+ * <p>
+ * The format is picked from the first byte: '[' means an array, anything else NDJSON.
+ * Like {@link NDJSONReader}, call {@link #next()} and then read the current record.
+ * A reader is not thread-safe.
+ */
+public class MappedJSONFile implements Closeable {
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 28;
+
+    private static final int STATE_FIRST_VALUE  = 0;
+    private static final int STATE_VALUE        = 1;
+    private static final int STATE_AFTER_VALUE  = 2;
+    private static final int STATE_DONE         = 3;
+
+    private final FileChannel fileChannel;
+    private final JSONEngine jsonEngine;
+    private final long fileSize;
+    private final int windowSize;
+    private final boolean isArray;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int pos;
+    private int arrayState;
+    private int recordStart;
+    private int recordEnd;
+    private boolean hasRecord;
+
+    private MappedJSONFile(FileChannel fileChannel, JSONEngine jsonEngine, int windowSize) throws IOException {
+        this.fileChannel    = fileChannel;
+        this.jsonEngine     = jsonEngine;
+        this.fileSize       = fileChannel.size();
+        this.windowSize     = windowSize;
+
+        map(0);
+        pos = skipWhitespace(0, window.limit());
+        if (pos < window.limit() && window.get(pos) == '[') {
+            isArray     = true;
+            arrayState  = STATE_FIRST_VALUE;
+            pos++;
+        } else {
+            isArray     = false;
+        }
+    }
+
+    public static MappedJSONFile open(Path path) throws IOException {
+        return open(path, JSONEngine.getDefault(), DEFAULT_WINDOW_SIZE);
+    }
+
+    public static MappedJSONFile open(Path path, JSONEngine jsonEngine) throws IOException {
+        return open(path, jsonEngine, DEFAULT_WINDOW_SIZE);
+    }
+
+    public static MappedJSONFile open(Path path, JSONEngine jsonEngine, int windowSize) throws IOException {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be positive.");
+        }
+
+        FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new MappedJSONFile(fileChannel, jsonEngine, windowSize);
+        } catch (IOException e) {
+            fileChannel.close();
+            throw e;
+        }
+    }
+
+    public boolean isArray() {
+        return isArray;
+    }
+
+    /**
+     * Advance to the next record. Returns false at the end of the file.
+     */
+    public boolean next() throws IOException {
+        hasRecord = false;
+
+        while (true) {
+            int found = isArray ? scanArrayRecord() : scanLineRecord();
+
+            if (found >= 0) {
+                hasRecord = found == 1;
+                return hasRecord;
+            }
+
+            // The record runs past the window: map a new window starting at it.
+            if (pos == 0) {
+                throw error("Record larger than the mapping window of " + windowSize + " bytes", windowStart);
+            }
+            map(windowStart + pos);
+            pos = 0;
+        }
+    }
+
+    /**
+     * File offset of the current record.
+     */
+    public long getRecordOffset() {
+        checkRecord();
+        return windowStart + recordStart;
+    }
+
+    public int getRecordLength() {
+        checkRecord();
+        return recordEnd - recordStart;
+    }
+
+    /**
+     * Read-only slice of the mapping holding the current record.
+     */
+    public ByteBuffer getRecord() {
+        checkRecord();
+
+        ByteBuffer record = window.asReadOnlyBuffer();
+        record.limit(recordEnd).position(recordStart);
+        return record.slice();
+    }
+
+    public byte[] getRecordBytes() {
+        byte[] recordBytes = new byte[getRecordLength()];
+
+        getRecord().get(recordBytes);
+        return recordBytes;
+    }
+
+    public JsonParser createRecordParser() throws IOException {
+        return jsonEngine.createParser(getRecord());
+    }
+
+    public Map<String, Object> toMap() throws Exception {
+        return jsonEngine.toMap(getRecord());
+    }
+
+    /**
+     * Lazy document over a heap copy of the current record.
+     */
+    public LazyJSONDocument toLazyMap() throws IOException {
+        return jsonEngine.toLazyMap(getRecordBytes());
+    }
+
+    public Object[] getFieldValue(FieldExtractor fieldExtractor) throws IOException {
+        return jsonEngine.getFieldValue(getRecord(), fieldExtractor);
+    }
+
+    public Map<String, Object> nextMap() throws Exception {
+        return next() ? toMap() : null;
+    }
+
+    public Object[] nextFields(FieldExtractor fieldExtractor) throws IOException {
+        return next() ? getFieldValue(fieldExtractor) : null;
+    }
+
+    /**
+     * Closes the channel. Mapped windows are released once they are garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        hasRecord   = false;
+        window      = null;
+        fileChannel.close();
+    }
+
+    /**
+     * Returns 1 when a record was found, 0 at the end of the file, -1 when the window must move.
+     */
+    private int scanLineRecord() {
+        int limit       = window.limit();
+        boolean isLast  = windowStart + limit == fileSize;
+
+        while (pos < limit) {
+            int lineEnd = pos;
+            while (lineEnd < limit && window.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            if (lineEnd == limit && !isLast) {
+                return -1;
+            }
+
+            int start   = skipWhitespace(pos, lineEnd);
+            int end     = lineEnd;
+            while (end > start && StructuralScanner.isWhitespace(window.get(end - 1))) {
+                end--;
+            }
+            pos = lineEnd < limit ? lineEnd + 1 : limit;
+
+            if (start < end) {
+                recordStart = start;
+                recordEnd   = end;
+                return 1;
+            }
+        }
+
+        return isLast ? 0 : -1;
+    }
+
+    private int scanArrayRecord() throws JsonParseException {
+        int limit       = window.limit();
+        boolean isLast  = windowStart + limit == fileSize;
+
+        while (arrayState != STATE_DONE) {
+            pos = skipWhitespace(pos, limit);
+            if (pos == limit) {
+                if (isLast) {
+                    throw error("Unclosed array", windowStart + pos);
+                }
+                return -1;
+            }
+
+            byte b = window.get(pos);
+            if (arrayState == STATE_AFTER_VALUE || (arrayState == STATE_FIRST_VALUE && b == ']')) {
+                if (b == ']') {
+                    arrayState = STATE_DONE;
+                } else if (b == ',') {
+                    arrayState = STATE_VALUE;
+                } else {
+                    throw error("Expected ',' or ']'", windowStart + pos);
+                }
+                pos++;
+                continue;
+            }
+
+            int end = valueEnd(pos, limit);
+            if (end < 0) {
+                if (isLast) {
+                    throw error("Unclosed array", windowStart + limit);
+                }
+                return -1;
+            }
+
+            recordStart = pos;
+            recordEnd   = end;
+            pos         = end;
+            arrayState  = STATE_AFTER_VALUE;
+            return 1;
+        }
+
+        // Only whitespace may follow the array, e.g. a file of NDJSON arrays is not one array.
+        pos = skipWhitespace(pos, limit);
+        if (pos < limit) {
+            throw error("Unexpected content after the array", windowStart + pos);
+        }
+        return isLast ? 0 : -1;
+    }
+
+    /**
+     * End of the value starting at pos, or -1 when it is not complete within the limit.
+     */
+    private int valueEnd(int pos, int limit) throws JsonParseException {
+        byte b = window.get(pos);
+
+        if (b == '{' || b == '[') {
+            int depth = 0;
+
+            while (pos < limit) {
+                b = window.get(pos++);
+                if (b == '"') {
+                    pos = stringEnd(pos, limit);
+                    if (pos < 0) {
+                        return -1;
+                    }
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if ((b == '}' || b == ']') && --depth == 0) {
+                    return pos;
+                }
+            }
+            return -1;
+        } else if (b == '"') {
+            return stringEnd(pos + 1, limit);
+        } else if (b == ',' || b == ']' || b == '}') {
+            throw error("Expected a value", windowStart + pos);
+        }
+
+        while (pos < limit) {
+            b = window.get(pos);
+            if (b == ',' || b == ']' || b == '}' || StructuralScanner.isWhitespace(b)) {
+                return pos;
+            }
+            pos++;
+        }
+        return -1;
+    }
+
+    /**
+     * Position after the closing quote of the string whose content starts at pos, or -1.
+     */
+    private int stringEnd(int pos, int limit) {
+        while (pos < limit) {
+            byte b = window.get(pos++);
+
+            if (b == '"') {
+                return pos;
+            } else if (b == '\\') {
+                pos++;
+            }
+        }
+        return -1;
+    }
+
+    private int skipWhitespace(int pos, int limit) {
+        while (pos < limit && StructuralScanner.isWhitespace(window.get(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private void map(long start) throws IOException {
+        windowStart = start;
+        window      = fileChannel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, fileSize - start));
+    }
+
+    private void checkRecord() {
+        if (!hasRecord) {
+            throw new IllegalStateException("No current record, call next() first.");
+        }
+    }
+
+    private static JsonParseException error(String message, long offset) {
+        return new JsonParseException(message + " at offset " + offset, new JsonLocation(null, offset, -1, -1));
+    }
+}
@@ -0,0 +1,223 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Reader of newline-delimited JSON (one document per line) which hands out records one at a time.
+ * <p>
+ * Lines are read into a single reusable buffer, so memory stays bounded by the longest record no
+ * matter how large the input is. {@link #next()} advances to the next non-blank line; the current
+ * record can then be read as a map, a lazy document or a tuple of extracted fields, or taken as raw
+ * bytes. The {@code nextMap}, {@code nextLazyMap} and {@code nextFields} methods combine both steps
+ * and return {@code null} at the end of the input.
+ * <p>
+ * Every record is parsed by the engine's factory, which recycles the parser buffers and field-name
+ * tables from record to record. A reader is not thread-safe. Closing it closes the input stream.
+ */
+public class NDJSONReader implements Closeable {
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final InputStream inputStream;
+    private final JSONEngine jsonEngine;
+    private byte[] buf;
+    private int bufEnd;
+    private int scanPos;
+    private int scannedLength;
+    private boolean isEndOfInput;
+    private int recordStart;
+    private int recordEnd;
+    private long lineNumber;
+    private boolean hasRecord;
+
+    public NDJSONReader(InputStream inputStream) {
+        this(inputStream, JSONEngine.getDefault());
+    }
+
+    public NDJSONReader(InputStream inputStream, JSONEngine jsonEngine) {
+        this.inputStream    = inputStream;
+        this.jsonEngine     = jsonEngine;
+        this.buf            = new byte[DEFAULT_BUFFER_SIZE];
+    }
+
+    public static NDJSONReader open(Path path) throws IOException {
+        return new NDJSONReader(Files.newInputStream(path));
+    }
+
+    public static NDJSONReader open(Path path, JSONEngine jsonEngine) throws IOException {
+        return new NDJSONReader(Files.newInputStream(path), jsonEngine);
+    }
+
+    /**
+     * Advance to the next non-blank line. Returns false at the end of the input.
+     */
+    public boolean next() throws IOException {
+        hasRecord = false;
+
+        while (true) {
+            // Resume after the part of an unfinished line searched before the last fill.
+            int lineEnd = indexOfNewline(scanPos + scannedLength, bufEnd);
+
+            if (lineEnd < 0) {
+                if (isEndOfInput) {
+                    if (scanPos == bufEnd) {
+                        return false;
+                    }
+                    lineEnd = bufEnd;
+                } else {
+                    scannedLength = bufEnd - scanPos;
+                    fill();
+                    continue;
+                }
+            }
+            scannedLength = 0;
+
+            int start   = scanPos;
+            int end     = lineEnd;
+            scanPos     = lineEnd < bufEnd ? lineEnd + 1 : lineEnd;
+            lineNumber++;
+
+            start   = StructuralScanner.skipWhitespace(buf, start, end);
+            while (end > start && StructuralScanner.isWhitespace(buf[end - 1])) {
+                end--;
+            }
+
+            if (start < end) {
+                recordStart = start;
+                recordEnd   = end;
+                hasRecord   = true;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 1-based line number of the current record.
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Buffer holding the current record. It is reused for the following records.
+     */
+    public byte[] getRecordBuffer() {
+        checkRecord();
+        return buf;
+    }
+
+    public int getRecordOffset() {
+        checkRecord();
+        return recordStart;
+    }
+
+    public int getRecordLength() {
+        checkRecord();
+        return recordEnd - recordStart;
+    }
+
+    public byte[] getRecordBytes() {
+        checkRecord();
+        return Arrays.copyOfRange(buf, recordStart, recordEnd);
+    }
+
+    public JsonParser createRecordParser() throws IOException {
+        checkRecord();
+        return jsonEngine.createParser(buf, recordStart, recordEnd - recordStart);
+    }
+
+    public Map<String, Object> toMap() throws Exception {
+        checkRecord();
+        return jsonEngine.toMap(buf, recordStart, recordEnd - recordStart);
+    }
+
+    /**
+     * Lazy document over a copy of the current record, so it stays valid after {@link #next()}.
+     */
+    public LazyJSONDocument toLazyMap() throws IOException {
+        byte[] recordBytes = getRecordBytes();
+        return jsonEngine.toLazyMap(recordBytes, 0, recordBytes.length);
+    }
+
+    public Object[] getFieldValue(FieldExtractor fieldExtractor) throws IOException {
+        checkRecord();
+        return jsonEngine.getFieldValue(buf, recordStart, recordEnd - recordStart, fieldExtractor);
+    }
+
+    /**
+     * Extract into a reused value array. Returns whether every path was resolved.
+     */
+    public boolean getFieldValue(FieldExtractor fieldExtractor, Object[] values) throws IOException {
+        JsonParser jsonParser = createRecordParser();
+
+        try {
+            Arrays.fill(values, 0, fieldExtractor.size(), null);
+            return fieldExtractor.extract(jsonParser, values);
+        } finally {
+            jsonParser.close();
+        }
+    }
+
+    public Map<String, Object> nextMap() throws Exception {
+        return next() ? toMap() : null;
+    }
+
+    public LazyJSONDocument nextLazyMap() throws IOException {
+        return next() ? toLazyMap() : null;
+    }
+
+    public Object[] nextFields(FieldExtractor fieldExtractor) throws IOException {
+        return next() ? getFieldValue(fieldExtractor) : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        hasRecord = false;
+        inputStream.close();
+    }
+
+    private void checkRecord() {
+        if (!hasRecord) {
+            throw new IllegalStateException("No current record, call next() first.");
+        }
+    }
+
+    private int indexOfNewline(int from, int to) {
+        for (int pos = from; pos < to; pos++) {
+            if (buf[pos] == '\n') {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Read more input, first moving the unfinished line to the front of the buffer,
+     * or growing the buffer when the line already fills it.
+     */
+    private void fill() throws IOException {
+        if (scanPos > 0) {
+            System.arraycopy(buf, scanPos, buf, 0, bufEnd - scanPos);
+            bufEnd  -= scanPos;
+            scanPos = 0;
+        }
+
+        if (bufEnd == buf.length) {
+            buf = Arrays.copyOf(buf, buf.length << 1);
+        }
+
+        int count = inputStream.read(buf, bufEnd, buf.length - bufEnd);
+        if (count < 0) {
+            isEndOfInput = true;
+        } else {
+            bufEnd += count;
+        }
+    }
+}
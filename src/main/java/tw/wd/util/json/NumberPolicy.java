@@ -0,0 +1,70 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+/**
+ * How toMap boxes JSON numbers.
+ * <p>
+ * Every policy picks the width from the parser's number type, which Jackson derives from the digit count,
+ * so no value is decoded twice and no exception is thrown for integers beyond the int range. Integers
+ * beyond the long range become BigIntegers under all policies.
+ */
+public enum NumberPolicy {
+    /**
+     * Integer, else Long; fractions as Float. The shapes toMap has always returned, and the default.
+     */
+    COMPACT {
+        @Override
+        Object readFloat(JsonParser jsonParser) throws IOException {
+            return jsonParser.getFloatValue();
+        }
+    },
+    /**
+     * Integer, else Long; fractions as Double.
+     */
+    NATURAL,
+    /**
+     * Every integer as a Long, e.g. for documents of IDs and timestamps; fractions as Double.
+     */
+    ALWAYS_LONG {
+        @Override
+        Object readInt(JsonParser jsonParser) throws IOException {
+            if (jsonParser.getNumberType() == JsonParser.NumberType.BIG_INTEGER) {
+                return jsonParser.getBigIntegerValue();
+            }
+            return jsonParser.getLongValue();
+        }
+    },
+    /**
+     * Integer, else Long; fractions as BigDecimal, keeping every digit.
+     */
+    EXACT_DECIMAL {
+        @Override
+        Object readFloat(JsonParser jsonParser) throws IOException {
+            return jsonParser.getDecimalValue();
+        }
+    };
+
+    /**
+     * Value of the VALUE_NUMBER_INT token at the parser.
+     */
+    Object readInt(JsonParser jsonParser) throws IOException {
+        switch (jsonParser.getNumberType()) {
+            case INT:
+                return jsonParser.getIntValue();
+            case LONG:
+                return jsonParser.getLongValue();
+            default:
+                return jsonParser.getBigIntegerValue();
+        }
+    }
+
+    /**
+     * Value of the VALUE_NUMBER_FLOAT token at the parser.
+     */
+    Object readFloat(JsonParser jsonParser) throws IOException {
+        return jsonParser.getDoubleValue();
+    }
+}
@@ -0,0 +1,622 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * Reads and writes plain objects field by field against a JsonParser or JsonGenerator,
+ * without going through an intermediate map or string.
+ * <p>
+ * The bound properties of a class are its non-static, non-transient fields, including inherited ones,
+ * named as the field. They are found once per class and cached in a {@link ClassValue}, with
+ * {@link MethodHandle} accessors so reading a field costs no reflection. Other values (strings, numbers,
+ * ...) are written through the engine's {@link ValueWriterRegistry}, and a writer registered for a class
+ * takes precedence over binding it. Collections, maps and arrays are walked by the binder so bound objects
+ * inside them stay bound; on reading, their element types come from the generic field type.
+ * Reading needs a no-argument constructor, which may be private. Classes marked with {@link CompiledCodec}
+ * are read and written by their generated {@link TypeCodec} instead. A binder is thread-safe.
+ */
+public class ObjectBinder {
+    private static final int KIND_OBJECT        = 0;
+    private static final int KIND_BEAN          = 1;
+    private static final int KIND_STRING        = 2;
+    private static final int KIND_INT           = 3;
+    private static final int KIND_LONG          = 4;
+    private static final int KIND_SHORT         = 5;
+    private static final int KIND_BYTE          = 6;
+    private static final int KIND_DOUBLE        = 7;
+    private static final int KIND_FLOAT         = 8;
+    private static final int KIND_BOOLEAN       = 9;
+    private static final int KIND_CHAR          = 10;
+    private static final int KIND_ENUM          = 11;
+    private static final int KIND_BIG_DECIMAL   = 12;
+    private static final int KIND_BIG_INTEGER   = 13;
+    private static final int KIND_INT_ARRAY     = 14;
+    private static final int KIND_LONG_ARRAY    = 15;
+    private static final int KIND_DOUBLE_ARRAY  = 16;
+    private static final int KIND_BOOLEAN_ARRAY = 17;
+    private static final int KIND_OBJECT_ARRAY  = 18;
+    private static final int KIND_LIST          = 19;
+    private static final int KIND_SET           = 20;
+    private static final int KIND_MAP           = 21;
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final JSONEngine jsonEngine;
+    private final ValueWriterRegistry valueWriterRegistry;
+    private final ClassValue<ClassBinding> classBindings;
+
+    ObjectBinder(JSONEngine jsonEngine) {
+        this(jsonEngine, jsonEngine.getValueWriterRegistry());
+    }
+
+    /**
+     * Binder writing through the registry only, the fallback of a {@link ValueWriterRegistry}; without an
+     * engine, untyped values are read by {@link MapReader#DEFAULT}.
+     */
+    ObjectBinder(ValueWriterRegistry valueWriterRegistry) {
+        this(null, valueWriterRegistry);
+    }
+
+    private ObjectBinder(JSONEngine jsonEngine, ValueWriterRegistry valueWriterRegistry) {
+        this.jsonEngine             = jsonEngine;
+        this.valueWriterRegistry    = valueWriterRegistry;
+        this.classBindings          = new ClassValue<ClassBinding>() {
+            @Override
+            protected ClassBinding computeValue(Class<?> type) {
+                return new ClassBinding(type);
+            }
+        };
+    }
+
+    /**
+     * Binder of {@link JSONEngine#getDefault()}.
+     */
+    public static ObjectBinder getDefault() {
+        return JSONEngine.getDefault().getObjectBinder();
+    }
+
+    /**
+     * Read an object of the given type from the parser, which may be positioned before or on the value.
+     * Fields of the document without a matching property are skipped.
+     */
+    public <T> T read(JsonParser jsonParser, Class<T> type) throws IOException {
+        if (jsonParser.getCurrentToken() == null) {
+            jsonParser.nextToken();
+        }
+
+        return type.cast(readValue(jsonParser, typeBinding(type)));
+    }
+
+    /**
+     * Write the value into the generator, binding plain objects field by field.
+     */
+    @SuppressWarnings("unchecked")
+    public void write(JsonGenerator jsonGenerator, Object value) throws IOException {
+        if (value == null) {
+            jsonGenerator.writeNull();
+            return;
+        }
+
+        ValueWriterRegistry registry    = valueWriterRegistry;
+        ValueWriter<?> writer           = registry.getWriter(value.getClass());
+
+        // Containers are walked here rather than by their default writers, so bound objects inside them stay bound.
+        if (writer == registry.getBeanWriter()) {
+            writeBean(jsonGenerator, value, classBindings.get(value.getClass()));
+        } else if (writer == ValueWriters.MAP) {
+            jsonGenerator.writeStartObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                registry.writeFieldName(jsonGenerator, String.valueOf(entry.getKey()));
+                write(jsonGenerator, entry.getValue());
+            }
+            jsonGenerator.writeEndObject();
+        } else if (writer == ValueWriters.LIST || writer == ValueWriters.ITERABLE) {
+            jsonGenerator.writeStartArray();
+            for (Object element : (Iterable<?>) value) {
+                write(jsonGenerator, element);
+            }
+            jsonGenerator.writeEndArray();
+        } else if (writer == ValueWriters.OBJECT_ARRAY) {
+            jsonGenerator.writeStartArray();
+            for (Object element : (Object[]) value) {
+                write(jsonGenerator, element);
+            }
+            jsonGenerator.writeEndArray();
+        } else {
+            ((ValueWriter<Object>) writer).write(jsonGenerator, value, registry);
+        }
+    }
+
+    /**
+     * Writer which binds values field by field, for registering plain object types with a {@link ValueWriterRegistry}.
+     */
+    public ValueWriter<Object> asValueWriter() {
+        return new ValueWriter<Object>() {
+            @Override
+            public void write(JsonGenerator jsonGenerator, Object value, ValueWriterRegistry registry) throws IOException {
+                writeBean(jsonGenerator, value, classBindings.get(value.getClass()));
+            }
+        };
+    }
+
+    /**
+     * Used by {@link JSONUtils.JSONTranslatable#writeJSON(JsonGenerator)}: classes implementing their own
+     * toJSON() keep their text, the others are bound field by field.
+     */
+    void writeTranslatable(JsonGenerator jsonGenerator, JSONUtils.JSONTranslatable value) throws IOException {
+        ClassBinding classBinding = classBindings.get(value.getClass());
+
+        if (classBinding.hasCustomToJSON && jsonGenerator.canWriteBinaryNatively()) {
+            writeCopy(jsonGenerator, value.toJSON());
+        } else if (classBinding.hasCustomToJSON) {
+            jsonGenerator.writeRawValue(value.toJSON());
+        } else {
+            writeBean(jsonGenerator, value, classBinding);
+        }
+    }
+
+    /**
+     * Binary generators take no raw text, so the JSON text is parsed and copied token by token.
+     */
+    private void writeCopy(JsonGenerator jsonGenerator, String jsonText) throws IOException {
+        JsonParser jsonParser = JSONEngine.getDefault().createParser(jsonText);
+        try {
+            jsonParser.nextToken();
+            jsonGenerator.copyCurrentStructure(jsonParser);
+        } finally {
+            jsonParser.close();
+        }
+    }
+
+    /**
+     * Read the value of a bound property of type, converted to the property's declared type.
+     * Used by generated {@link TypeCodec}s for fields which are not primitives or strings.
+     */
+    public Object readProperty(JsonParser jsonParser, Class<?> type, String propertyName) throws IOException {
+        PropertyBinding property = classBindings.get(type).propertyMap.get(propertyName);
+
+        if (property == null) {
+            throw new IllegalArgumentException(type.getName() + " has no bound property " + propertyName + ".");
+        }
+        return readValue(jsonParser, property.type);
+    }
+
+    private void writeBean(JsonGenerator jsonGenerator, Object value, ClassBinding classBinding) throws IOException {
+        if (classBinding.codec != null) {
+            classBinding.codec.write(jsonGenerator, value, this);
+            return;
+        }
+
+        jsonGenerator.writeStartObject();
+        for (PropertyBinding property : classBinding.properties) {
+            jsonGenerator.writeFieldName(property.encodedName);
+
+            try {
+                switch (property.type.kind) {
+                    case KIND_INT:
+                        if (property.isPrimitive) {
+                            jsonGenerator.writeNumber((int) property.intGetter.invokeExact(value));
+                            continue;
+                        }
+                        break;
+                    case KIND_LONG:
+                        if (property.isPrimitive) {
+                            jsonGenerator.writeNumber((long) property.longGetter.invokeExact(value));
+                            continue;
+                        }
+                        break;
+                    case KIND_DOUBLE:
+                        if (property.isPrimitive) {
+                            jsonGenerator.writeNumber((double) property.doubleGetter.invokeExact(value));
+                            continue;
+                        }
+                        break;
+                    case KIND_BOOLEAN:
+                        if (property.isPrimitive) {
+                            jsonGenerator.writeBoolean((boolean) property.booleanGetter.invokeExact(value));
+                            continue;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+
+                write(jsonGenerator, (Object) property.getter.invokeExact(value));
+            } catch (IOException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+        jsonGenerator.writeEndObject();
+    }
+
+    private Object readBean(JsonParser jsonParser, ClassBinding classBinding) throws IOException {
+        if (classBinding.codec != null) {
+            return classBinding.codec.read(jsonParser, this);
+        } else if (classBinding.constructor == null) {
+            throw new IllegalArgumentException(classBinding.type.getName() + " has no no-argument constructor.");
+        }
+
+        Object bean;
+        try {
+            bean = (Object) classBinding.constructor.invokeExact();
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+
+        while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+            PropertyBinding property = classBinding.propertyMap.get(jsonParser.getCurrentName());
+
+            jsonParser.nextToken();
+            if (property == null || property.setter == null) {
+                jsonParser.skipChildren();
+                continue;
+            }
+
+            Object value = readValue(jsonParser, property.type);
+            if (value == null && property.isPrimitive) {
+                continue;
+            }
+
+            try {
+                property.setter.invokeExact(bean, value);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        return bean;
+    }
+
+    private Object readValue(JsonParser jsonParser, TypeBinding typeBinding) throws IOException {
+        JsonToken jsonToken = jsonParser.getCurrentToken();
+
+        if (jsonToken == JsonToken.VALUE_NULL) {
+            return null;
+        }
+
+        switch (typeBinding.kind) {
+            case KIND_BEAN:
+                expect(jsonParser, JsonToken.START_OBJECT, typeBinding);
+                return readBean(jsonParser, classBindings.get(typeBinding.rawType));
+            case KIND_STRING:
+                return jsonParser.getText();
+            case KIND_INT:
+                return jsonParser.getIntValue();
+            case KIND_LONG:
+                return jsonParser.getLongValue();
+            case KIND_SHORT:
+                return jsonParser.getShortValue();
+            case KIND_BYTE:
+                return jsonParser.getByteValue();
+            case KIND_DOUBLE:
+                return jsonParser.getDoubleValue();
+            case KIND_FLOAT:
+                return jsonParser.getFloatValue();
+            case KIND_BOOLEAN:
+                return jsonParser.getBooleanValue();
+            case KIND_CHAR:
+                String text = jsonParser.getText();
+                return text.length() > 0 ? text.charAt(0) : null;
+            case KIND_ENUM:
+                return readEnum(jsonParser, typeBinding.rawType);
+            case KIND_BIG_DECIMAL:
+                return jsonToken == JsonToken.VALUE_STRING ? new BigDecimal(jsonParser.getText()) : jsonParser.getDecimalValue();
+            case KIND_BIG_INTEGER:
+                return jsonToken == JsonToken.VALUE_STRING ? new BigInteger(jsonParser.getText()) : jsonParser.getBigIntegerValue();
+            case KIND_INT_ARRAY:
+                return PrimitiveArrays.readIntArray(jsonParser);
+            case KIND_LONG_ARRAY:
+                return PrimitiveArrays.readLongArray(jsonParser);
+            case KIND_DOUBLE_ARRAY:
+                return PrimitiveArrays.readDoubleArray(jsonParser);
+            case KIND_BOOLEAN_ARRAY:
+                return PrimitiveArrays.readBooleanArray(jsonParser);
+            case KIND_OBJECT_ARRAY:
+                List<Object> elements = readCollection(jsonParser, typeBinding, new ArrayList<Object>());
+                return elements.toArray((Object[]) Array.newInstance(typeBinding.element.rawType, elements.size()));
+            case KIND_LIST:
+                return readCollection(jsonParser, typeBinding, new ArrayList<Object>());
+            case KIND_SET:
+                return readCollection(jsonParser, typeBinding, new LinkedHashSet<Object>());
+            case KIND_MAP:
+                return readMap(jsonParser, typeBinding);
+            default:
+                try {
+                    return (jsonEngine != null ? jsonEngine.getMapReader() : MapReader.DEFAULT).readValue(jsonParser);
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw rethrow(e);
+                }
+        }
+    }
+
+    private <C extends Collection<Object>> C readCollection(JsonParser jsonParser, TypeBinding typeBinding, C collection) throws IOException {
+        expect(jsonParser, JsonToken.START_ARRAY, typeBinding);
+
+        while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
+            collection.add(readValue(jsonParser, typeBinding.element));
+        }
+        return collection;
+    }
+
+    private Map<String, Object> readMap(JsonParser jsonParser, TypeBinding typeBinding) throws IOException {
+        Map<String, Object> valueMap = new HashMap<String, Object>();
+
+        expect(jsonParser, JsonToken.START_OBJECT, typeBinding);
+        while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = jsonParser.getCurrentName();
+
+            jsonParser.nextToken();
+            valueMap.put(fieldName, readValue(jsonParser, typeBinding.element));
+        }
+        return valueMap;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object readEnum(JsonParser jsonParser, Class<?> type) throws IOException {
+        try {
+            return Enum.valueOf((Class<Enum>) type, jsonParser.getText());
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException("Unknown " + type.getSimpleName() + " constant " + jsonParser.getText(), jsonParser.getCurrentLocation());
+        }
+    }
+
+    private static void expect(JsonParser jsonParser, JsonToken expected, TypeBinding typeBinding) throws JsonParseException {
+        if (jsonParser.getCurrentToken() != expected) {
+            throw new JsonParseException("Expected " + expected + " for " + typeBinding.rawType.getName()
+                    + " but found " + jsonParser.getCurrentToken(), jsonParser.getCurrentLocation());
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        } else if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new IllegalStateException(e);
+    }
+
+    /**
+     * Classes bound field by field: concrete classes outside the JDK which are not enums, arrays or primitives.
+     */
+    static boolean isBean(Class<?> type) {
+        String name = type.getName();
+
+        return !type.isPrimitive() && !type.isArray() && !type.isEnum() && !type.isInterface()
+                && !Modifier.isAbstract(type.getModifiers())
+                && !name.startsWith("java.") && !name.startsWith("javax.") && !name.startsWith("sun.");
+    }
+
+    private static TypeBinding typeBinding(Type type) {
+        Class<?> rawType    = rawClass(type);
+        TypeBinding element = null;
+        int kind;
+
+        if (rawType == String.class || rawType == CharSequence.class) {
+            kind = KIND_STRING;
+        } else if (rawType == int.class || rawType == Integer.class) {
+            kind = KIND_INT;
+        } else if (rawType == long.class || rawType == Long.class) {
+            kind = KIND_LONG;
+        } else if (rawType == short.class || rawType == Short.class) {
+            kind = KIND_SHORT;
+        } else if (rawType == byte.class || rawType == Byte.class) {
+            kind = KIND_BYTE;
+        } else if (rawType == double.class || rawType == Double.class) {
+            kind = KIND_DOUBLE;
+        } else if (rawType == float.class || rawType == Float.class) {
+            kind = KIND_FLOAT;
+        } else if (rawType == boolean.class || rawType == Boolean.class) {
+            kind = KIND_BOOLEAN;
+        } else if (rawType == char.class || rawType == Character.class) {
+            kind = KIND_CHAR;
+        } else if (rawType.isEnum()) {
+            kind = KIND_ENUM;
+        } else if (rawType == BigDecimal.class) {
+            kind = KIND_BIG_DECIMAL;
+        } else if (rawType == BigInteger.class) {
+            kind = KIND_BIG_INTEGER;
+        } else if (rawType == int[].class) {
+            kind = KIND_INT_ARRAY;
+        } else if (rawType == long[].class) {
+            kind = KIND_LONG_ARRAY;
+        } else if (rawType == double[].class) {
+            kind = KIND_DOUBLE_ARRAY;
+        } else if (rawType == boolean[].class) {
+            kind = KIND_BOOLEAN_ARRAY;
+        } else if (rawType.isArray() && !rawType.getComponentType().isPrimitive()) {
+            kind    = KIND_OBJECT_ARRAY;
+            element = typeBinding(type instanceof GenericArrayType
+                    ? ((GenericArrayType) type).getGenericComponentType() : rawType.getComponentType());
+        } else if (rawType == Object.class) {
+            kind = KIND_OBJECT;
+        } else if (Collection.class.isAssignableFrom(rawType) && rawType.isAssignableFrom(ArrayList.class)) {
+            kind    = KIND_LIST;
+            element = typeBinding(typeArgument(type, 0));
+        } else if (Collection.class.isAssignableFrom(rawType) && rawType.isAssignableFrom(LinkedHashSet.class)) {
+            kind    = KIND_SET;
+            element = typeBinding(typeArgument(type, 0));
+        } else if (Map.class.isAssignableFrom(rawType) && rawType.isAssignableFrom(HashMap.class)) {
+            kind    = KIND_MAP;
+            element = typeBinding(typeArgument(type, 1));
+        } else if (isBean(rawType)) {
+            kind = KIND_BEAN;
+        } else {
+            kind = KIND_OBJECT;
+        }
+
+        return new TypeBinding(kind, rawType, element);
+    }
+
+    private static Class<?> rawClass(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        } else if (type instanceof ParameterizedType) {
+            return rawClass(((ParameterizedType) type).getRawType());
+        } else if (type instanceof GenericArrayType) {
+            return Array.newInstance(rawClass(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        }
+        return Object.class;
+    }
+
+    private static Type typeArgument(Type type, int index) {
+        if (type instanceof ParameterizedType) {
+            Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+            if (index < arguments.length) {
+                return arguments[index];
+            }
+        }
+        return Object.class;
+    }
+
+    private static final class TypeBinding {
+        private final int kind;
+        private final Class<?> rawType;
+        private final TypeBinding element;
+
+        private TypeBinding(int kind, Class<?> rawType, TypeBinding element) {
+            this.kind       = kind;
+            this.rawType    = rawType;
+            this.element    = element;
+        }
+    }
+
+    private static final class PropertyBinding {
+        private final String name;
+        private final SerializedString encodedName;
+        private final TypeBinding type;
+        private final boolean isPrimitive;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+        private final MethodHandle intGetter;
+        private final MethodHandle longGetter;
+        private final MethodHandle doubleGetter;
+        private final MethodHandle booleanGetter;
+
+        private PropertyBinding(Field field) throws IllegalAccessException {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle rawGetter      = lookup.unreflectGetter(field);
+            Class<?> fieldType          = field.getType();
+
+            this.name           = field.getName();
+            this.encodedName    = new SerializedString(name);
+            this.type           = typeBinding(field.getGenericType());
+            this.isPrimitive    = fieldType.isPrimitive();
+            this.getter         = rawGetter.asType(GETTER_TYPE);
+            this.setter         = Modifier.isFinal(field.getModifiers()) ? null : lookup.unreflectSetter(field).asType(SETTER_TYPE);
+            this.intGetter      = fieldType == int.class ? rawGetter.asType(MethodType.methodType(int.class, Object.class)) : null;
+            this.longGetter     = fieldType == long.class ? rawGetter.asType(MethodType.methodType(long.class, Object.class)) : null;
+            this.doubleGetter   = fieldType == double.class ? rawGetter.asType(MethodType.methodType(double.class, Object.class)) : null;
+            this.booleanGetter  = fieldType == boolean.class ? rawGetter.asType(MethodType.methodType(boolean.class, Object.class)) : null;
+        }
+    }
+
+    private static final class ClassBinding {
+        private final Class<?> type;
+        private final boolean isBean;
+        private final boolean hasCustomToJSON;
+        private final PropertyBinding[] properties;
+        private final Map<String, PropertyBinding> propertyMap;
+        private final MethodHandle constructor;
+        private final TypeCodec<Object> codec;
+
+        private ClassBinding(Class<?> type) {
+            this.type               = type;
+            this.isBean             = isBean(type);
+            this.hasCustomToJSON    = hasCustomToJSON(type);
+            this.propertyMap        = new HashMap<String, PropertyBinding>();
+
+            List<PropertyBinding> propertyList = new ArrayList<PropertyBinding>();
+            if (isBean) {
+                // Superclass fields first; a field hiding an inherited one of the same name replaces it.
+                List<Class<?>> hierarchy = new ArrayList<Class<?>>();
+                for (Class<?> clazz = type; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+                    hierarchy.add(0, clazz);
+                }
+
+                for (Class<?> clazz : hierarchy) {
+                    for (Field field : clazz.getDeclaredFields()) {
+                        int modifiers = field.getModifiers();
+                        if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                            continue;
+                        }
+
+                        try {
+                            field.setAccessible(true);
+                            PropertyBinding property = new PropertyBinding(field);
+                            PropertyBinding hidden   = propertyMap.put(property.name, property);
+                            if (hidden != null) {
+                                propertyList.remove(hidden);
+                            }
+                            propertyList.add(property);
+                        } catch (IllegalAccessException e) {
+                            throw new IllegalArgumentException("Can not bind field " + field, e);
+                        }
+                    }
+                }
+            }
+            this.properties     = propertyList.toArray(new PropertyBinding[propertyList.size()]);
+            this.constructor    = isBean ? constructor(type) : null;
+            this.codec          = type.isAnnotationPresent(CompiledCodec.class) ? codec(type) : null;
+        }
+
+        /**
+         * Codec generated by {@link CodecProcessor}, or null when the class was compiled without it.
+         */
+        @SuppressWarnings("unchecked")
+        private static TypeCodec<Object> codec(Class<?> type) {
+            try {
+                Class<?> codecClass = Class.forName(CodecProcessor.codecName(type.getName()), true, type.getClassLoader());
+
+                return (TypeCodec<Object>) codecClass.getConstructor().newInstance();
+            } catch (ClassNotFoundException e) {
+                return null;
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Can not create codec of " + type.getName(), e);
+            }
+        }
+
+        private static MethodHandle constructor(Class<?> type) {
+            try {
+                Constructor<?> constructor = type.getDeclaredConstructor();
+
+                constructor.setAccessible(true);
+                return MethodHandles.lookup().unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+            } catch (NoSuchMethodException e) {
+                return null;
+            } catch (IllegalAccessException e) {
+                return null;
+            }
+        }
+
+        private static boolean hasCustomToJSON(Class<?> type) {
+            if (!JSONUtils.JSONTranslatable.class.isAssignableFrom(type)) {
+                return false;
+            }
+
+            try {
+                return type.getMethod("toJSON").getDeclaringClass() != JSONUtils.JSONTranslatable.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package tw.wd.util.json;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Counters and latency histogram of one {@link EngineListener.Operation}.
+ * <p>
+ * Counters are striped LongAdders, so concurrent callers do not contend on one cache line. Latencies go
+ * into a log-linear histogram: one row per power of two of nanoseconds, split into {@value #SUB_BUCKETS}
+ * linear buckets, which bounds the error of a percentile to 1/{@value #SUB_BUCKETS} of its value. Each
+ * bucket is a LongAdder too, since callers with similar latencies all hit the same few buckets.
+ */
+public final class OperationMetrics implements OperationMetricsMBean {
+    private static final int SUB_BUCKET_BITS    = 3;
+    private static final int SUB_BUCKETS        = 1 << SUB_BUCKET_BITS;
+
+    private static final LongBinaryOperator MAX = new LongBinaryOperator() {
+        @Override
+        public long applyAsLong(long left, long right) {
+            return Math.max(left, right);
+        }
+    };
+
+    private final LongAdder count           = new LongAdder();
+    private final LongAdder failureCount    = new LongAdder();
+    private final LongAdder byteCount       = new LongAdder();
+    private final LongAdder totalNanos      = new LongAdder();
+    private final LongAccumulator maxNanos  = new LongAccumulator(MAX, 0L);
+    private final LongAdder[] buckets       = new LongAdder[64 * SUB_BUCKETS];
+
+    public OperationMetrics() {
+        for (int idx = 0; idx < buckets.length; idx++) {
+            buckets[idx] = new LongAdder();
+        }
+    }
+
+    void record(long elapsedNanos, long bytes, boolean isFailed) {
+        long nanos = Math.max(elapsedNanos, 0L);
+
+        count.increment();
+        if (isFailed) {
+            failureCount.increment();
+        }
+        if (bytes > 0) {
+            byteCount.add(bytes);
+        }
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        buckets[bucketIndex(nanos)].increment();
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public long getFailureCount() {
+        return failureCount.sum();
+    }
+
+    @Override
+    public long getByteCount() {
+        return byteCount.sum();
+    }
+
+    @Override
+    public long getMeanNanos() {
+        long n = count.sum();
+
+        return n == 0 ? 0 : totalNanos.sum() / n;
+    }
+
+    @Override
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    @Override
+    public long getMedianNanos() {
+        return getPercentileNanos(50.0);
+    }
+
+    @Override
+    public long get99thPercentileNanos() {
+        return getPercentileNanos(99.0);
+    }
+
+    @Override
+    public long get999thPercentileNanos() {
+        return getPercentileNanos(99.9);
+    }
+
+    /**
+     * Upper bound of the bucket holding the given percentile of the recorded latencies, 0 when none were recorded.
+     */
+    public long getPercentileNanos(double percentile) {
+        long[] counts   = new long[buckets.length];
+        long total      = 0;
+
+        for (int idx = 0; idx < counts.length; idx++) {
+            counts[idx] = buckets[idx].sum();
+            total       += counts[idx];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank       = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen       = 0;
+        for (int idx = 0; idx < counts.length; idx++) {
+            seen += counts[idx];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(idx), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * Values below 2^SUB_BUCKET_BITS get a bucket each; above, each power of two is split into SUB_BUCKETS.
+     */
+    static int bucketIndex(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+
+        int magnitude   = 63 - Long.numberOfLeadingZeros(nanos);
+        int subBucket   = (int) (nanos >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int magnitude   = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket  = index & (SUB_BUCKETS - 1);
+        long width      = 1L << (magnitude - SUB_BUCKET_BITS);
+        return (1L << magnitude) + (subBucket + 1) * width - 1;
+    }
+}
@@ -0,0 +1,22 @@
+package tw.wd.util.json;
+
+/**
+ * JMX view of {@link OperationMetrics}.
+ */
+public interface OperationMetricsMBean {
+    long getCount();
+
+    long getFailureCount();
+
+    long getByteCount();
+
+    long getMeanNanos();
+
+    long getMaxNanos();
+
+    long getMedianNanos();
+
+    long get99thPercentileNanos();
+
+    long get999thPercentileNanos();
+}
@@ -0,0 +1,258 @@
+package tw.wd.util.json;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of parse results keyed by the content of the input, for workloads which parse the same
+ * bytes again and again (config blobs, feature flags, repeated upstream responses).
+ * <p>
+ * An entry is found by a 64-bit hash of the input and confirmed by comparing the input byte by byte, so
+ * a hash collision can never return another document's result. Entries are spread over independently
+ * locked segments, each evicting its least recently used entries once it holds more than its share of the
+ * maximum weight; the weight of an entry is the length of its input. Documents larger than a segment's
+ * share are never cached.
+ * <p>
+ * Cached results are shared by all callers and therefore immutable: maps and lists are unmodifiable views.
+ * Tuples from a {@link FieldExtractor} are copied on every hit, but array values inside them are shared
+ * and must not be modified. Install a cache with {@link JSONEngine.Builder#parseCache(ParseCache)}.
+ */
+public final class ParseCache {
+    public static final long DEFAULT_MAX_WEIGHT     = 16L * 1024 * 1024;
+    public static final int DEFAULT_SEGMENT_COUNT   = 16;
+
+    static final Object MAP_RESULT = new Object();
+
+    private final Segment[] segments;
+    private final long maxSegmentWeight;
+    private final LongAdder hitCount        = new LongAdder();
+    private final LongAdder missCount       = new LongAdder();
+    private final LongAdder evictionCount   = new LongAdder();
+
+    public ParseCache() {
+        this(DEFAULT_MAX_WEIGHT, DEFAULT_SEGMENT_COUNT);
+    }
+
+    public ParseCache(long maxWeight) {
+        this(maxWeight, DEFAULT_SEGMENT_COUNT);
+    }
+
+    /**
+     * @param maxWeight total input bytes the cache may hold
+     * @param segmentCount number of independently locked segments, rounded up to a power of two
+     */
+    public ParseCache(long maxWeight, int segmentCount) {
+        if (maxWeight <= 0 || segmentCount <= 0) {
+            throw new IllegalArgumentException("Max weight and segment count must be positive.");
+        }
+
+        int count = 1;
+        while (count < segmentCount) {
+            count <<= 1;
+        }
+
+        this.segments           = new Segment[count];
+        this.maxSegmentWeight   = Math.max(1L, maxWeight / count);
+
+        for (int idx = 0; idx < count; idx++) {
+            segments[idx] = new Segment();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public double getHitRate() {
+        long hits       = hitCount.sum();
+        long requests   = hits + missCount.sum();
+
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+
+    public int size() {
+        int size = 0;
+
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    public long getWeight() {
+        long weight = 0;
+
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                weight += segment.weight;
+            }
+        }
+        return weight;
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.entries.clear();
+                segment.weight = 0;
+            }
+        }
+    }
+
+    /**
+     * Cached result for the input, with the given {@link #hash}, and kind (MAP_RESULT or a FieldExtractor, compared
+     * by value so extractors compiled per call share entries), or null.
+     */
+    Object get(byte[] buf, int offset, int length, long hash, Object kind) {
+        CacheKey lookupKey  = new CacheKey(buf, offset, length, hash, kind);
+        Segment segment     = segmentFor(lookupKey.hash);
+        Object result;
+
+        synchronized (segment) {
+            result = segment.entries.get(lookupKey);
+        }
+
+        if (result == null) {
+            missCount.increment();
+        } else {
+            hitCount.increment();
+        }
+        return result;
+    }
+
+    /**
+     * Cache a result freshly parsed from the input; returns the immutable result to hand out.
+     */
+    Object put(byte[] buf, int offset, int length, long hash, Object kind, Object result) {
+        Object frozen = freeze(result);
+
+        if (length > maxSegmentWeight) {
+            return frozen;
+        }
+
+        CacheKey cacheKey   = new CacheKey(Arrays.copyOfRange(buf, offset, offset + length), 0, length, hash, kind);
+        Segment segment     = segmentFor(cacheKey.hash);
+
+        synchronized (segment) {
+            if (segment.entries.put(cacheKey, frozen) == null) {
+                segment.weight += length;
+            }
+
+            Iterator<CacheKey> iter = segment.entries.keySet().iterator();
+            while (segment.weight > maxSegmentWeight && iter.hasNext()) {
+                segment.weight -= iter.next().length;
+                iter.remove();
+                evictionCount.increment();
+            }
+        }
+        return frozen;
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> 32) & (segments.length - 1)];
+    }
+
+    /**
+     * 64-bit hash of the bytes, mixing eight bytes per step.
+     */
+    static long hash(byte[] buf, int offset, int length) {
+        long h      = length * 0x9E3779B97F4A7C15L;
+        int end     = offset + length;
+        int pos     = offset;
+
+        for (; pos + 8 <= end; pos += 8) {
+            long k = (buf[pos] & 0xFFL)
+                    | (buf[pos + 1] & 0xFFL) << 8
+                    | (buf[pos + 2] & 0xFFL) << 16
+                    | (buf[pos + 3] & 0xFFL) << 24
+                    | (buf[pos + 4] & 0xFFL) << 32
+                    | (buf[pos + 5] & 0xFFL) << 40
+                    | (buf[pos + 6] & 0xFFL) << 48
+                    | (buf[pos + 7] & 0xFFL) << 56;
+
+            h = Long.rotateLeft(h ^ k * 0xC2B2AE3D27D4EB4FL, 31) * 0x9E3779B97F4A7C15L;
+        }
+        for (; pos < end; pos++) {
+            h = (h ^ (buf[pos] & 0xFF)) * 0x100000001B3L;
+        }
+
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object freeze(Object value) {
+        if (value instanceof Map) {
+            Map<String, Object> valueMap = (Map<String, Object>) value;
+
+            for (Map.Entry<String, Object> entry : valueMap.entrySet()) {
+                entry.setValue(freeze(entry.getValue()));
+            }
+            return Collections.unmodifiableMap(valueMap);
+        } else if (value instanceof List) {
+            List<Object> valueList = (List<Object>) value;
+
+            for (ListIterator<Object> iter = valueList.listIterator(); iter.hasNext(); ) {
+                iter.set(freeze(iter.next()));
+            }
+            return Collections.unmodifiableList(valueList);
+        }
+        return value;
+    }
+
+    private static final class Segment {
+        private final LinkedHashMap<CacheKey, Object> entries = new LinkedHashMap<CacheKey, Object>(16, 0.75f, true);
+        private long weight;
+    }
+
+    private static final class CacheKey {
+        private final byte[] buf;
+        private final int offset;
+        private final int length;
+        private final long hash;
+        private final Object kind;
+
+        CacheKey(byte[] buf, int offset, int length, long hash, Object kind) {
+            this.buf    = buf;
+            this.offset = offset;
+            this.length = length;
+            this.hash   = hash;
+            this.kind   = kind;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+
+            CacheKey other = (CacheKey) o;
+            if (hash != other.hash || length != other.length || !kind.equals(other.kind)) {
+                return false;
+            }
+            for (int idx = 0; idx < length; idx++) {
+                if (buf[offset + idx] != other.buf[other.offset + idx]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
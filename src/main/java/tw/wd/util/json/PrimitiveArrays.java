@@ -0,0 +1,419 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Readers for JSON arrays of numbers and booleans which collect straight into primitive arrays.
+ * <p>
+ * The {@code read*Array} methods accept flat arrays and nested arrays, which are flattened in order.
+ * The {@code read*Array2D} methods return one row per element of the outer array. Callers which
+ * parse many arrays can keep one growable buffer, e.g. {@link IntArray}, and pass it to
+ * {@code readInts} to reuse its storage. Elements which are neither numbers (or booleans) nor arrays
+ * are skipped.
+ */
+public final class PrimitiveArrays {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private PrimitiveArrays() {
+    }
+
+    public static int[] readIntArray(JsonParser jsonParser) throws IOException {
+        return readInts(jsonParser, new IntArray()).toArray();
+    }
+
+    /**
+     * Append the values of the array at the parser's current token to dest.
+     */
+    public static IntArray readInts(JsonParser jsonParser, IntArray dest) throws IOException {
+        if (jsonParser.getCurrentToken() != JsonToken.START_ARRAY) {
+            return dest;
+        }
+
+        int depth           = 1;
+        JsonToken jsonToken = null;
+
+        while (depth > 0 && (jsonToken = jsonParser.nextToken()) != null) {
+            if (jsonToken == JsonToken.START_ARRAY) {
+                depth++;
+            } else if (jsonToken == JsonToken.END_ARRAY) {
+                depth--;
+            } else if (jsonToken == JsonToken.VALUE_NUMBER_INT || jsonToken == JsonToken.VALUE_NUMBER_FLOAT) {
+                dest.add(jsonParser.getIntValue());
+            } else {
+                jsonParser.skipChildren();
+            }
+        }
+
+        return dest;
+    }
+
+    public static int[][] readIntArray2D(JsonParser jsonParser) throws IOException {
+        if (jsonParser.getCurrentToken() != JsonToken.START_ARRAY) {
+            return new int[0][];
+        }
+
+        List<int[]> rows    = new ArrayList<int[]>();
+        IntArray row        = new IntArray();
+        JsonToken jsonToken = null;
+
+        while ((jsonToken = jsonParser.nextToken()) != JsonToken.END_ARRAY && jsonToken != null) {
+            row.clear();
+
+            if (jsonToken == JsonToken.START_ARRAY) {
+                readInts(jsonParser, row);
+            } else if (jsonToken == JsonToken.VALUE_NUMBER_INT || jsonToken == JsonToken.VALUE_NUMBER_FLOAT) {
+                row.add(jsonParser.getIntValue());
+            } else {
+                jsonParser.skipChildren();
+                continue;
+            }
+            rows.add(row.toArray());
+        }
+
+        return rows.toArray(new int[rows.size()][]);
+    }
+
+    public static long[] readLongArray(JsonParser jsonParser) throws IOException {
+        return readLongs(jsonParser, new LongArray()).toArray();
+    }
+
+    /**
+     * Append the values of the array at the parser's current token to dest.
+     */
+    public static LongArray readLongs(JsonParser jsonParser, LongArray dest) throws IOException {
+        if (jsonParser.getCurrentToken() != JsonToken.START_ARRAY) {
+            return dest;
+        }
+
+        int depth           = 1;
+        JsonToken jsonToken = null;
+
+        while (depth > 0 && (jsonToken = jsonParser.nextToken()) != null) {
+            if (jsonToken == JsonToken.START_ARRAY) {
+                depth++;
+            } else if (jsonToken == JsonToken.END_ARRAY) {
+                depth--;
+            } else if (jsonToken == JsonToken.VALUE_NUMBER_INT || jsonToken == JsonToken.VALUE_NUMBER_FLOAT) {
+                dest.add(jsonParser.getLongValue());
+            } else {
+                jsonParser.skipChildren();
+            }
+        }
+
+        return dest;
+    }
+
+    public static long[][] readLongArray2D(JsonParser jsonParser) throws IOException {
+        if (jsonParser.getCurrentToken() != JsonToken.START_ARRAY) {
+            return new long[0][];
+        }
+
+        List<long[]> rows   = new ArrayList<long[]>();
+        LongArray row       = new LongArray();
+        JsonToken jsonToken = null;
+
+        while ((jsonToken = jsonParser.nextToken()) != JsonToken.END_ARRAY && jsonToken != null) {
+            row.clear();
+
+            if (jsonToken == JsonToken.START_ARRAY) {
+                readLongs(jsonParser, row);
+            } else if (jsonToken == JsonToken.VALUE_NUMBER_INT || jsonToken == JsonToken.VALUE_NUMBER_FLOAT) {
+                row.add(jsonParser.getLongValue());
+            } else {
+                jsonParser.skipChildren();
+                continue;
+            }
+            rows.add(row.toArray());
+        }
+
+        return rows.toArray(new long[rows.size()][]);
+    }
+
+    public static double[] readDoubleArray(JsonParser jsonParser) throws IOException {
+        return readDoubles(jsonParser, new DoubleArray()).toArray();
+    }
+
+    /**
+     * Append the values of the array at the parser's current token to dest.
+     */
+    public static DoubleArray readDoubles(JsonParser jsonParser, DoubleArray dest) throws IOException {
+        if (jsonParser.getCurrentToken() != JsonToken.START_ARRAY) {
+            return dest;
+        }
+
+        int depth           = 1;
+        JsonToken jsonToken = null;
+
+        while (depth > 0 && (jsonToken = jsonParser.nextToken()) != null) {
+            if (jsonToken == JsonToken.START_ARRAY) {
+                depth++;
+            } else if (jsonToken == JsonToken.END_ARRAY) {
+                depth--;
+            } else if (jsonToken == JsonToken.VALUE_NUMBER_INT || jsonToken == JsonToken.VALUE_NUMBER_FLOAT) {
+                dest.add(jsonParser.getDoubleValue());
+            } else {
+                jsonParser.skipChildren();
+            }
+        }
+
+        return dest;
+    }
+
+    public static double[][] readDoubleArray2D(JsonParser jsonParser) throws IOException {
+        if (jsonParser.getCurrentToken() != JsonToken.START_ARRAY) {
+            return new double[0][];
+        }
+
+        List<double[]> rows = new ArrayList<double[]>();
+        DoubleArray row     = new DoubleArray();
+        JsonToken jsonToken = null;
+
+        while ((jsonToken = jsonParser.nextToken()) != JsonToken.END_ARRAY && jsonToken != null) {
+            row.clear();
+
+            if (jsonToken == JsonToken.START_ARRAY) {
+                readDoubles(jsonParser, row);
+            } else if (jsonToken == JsonToken.VALUE_NUMBER_INT || jsonToken == JsonToken.VALUE_NUMBER_FLOAT) {
+                row.add(jsonParser.getDoubleValue());
+            } else {
+                jsonParser.skipChildren();
+                continue;
+            }
+            rows.add(row.toArray());
+        }
+
+        return rows.toArray(new double[rows.size()][]);
+    }
+
+    public static boolean[] readBooleanArray(JsonParser jsonParser) throws IOException {
+        return readBooleans(jsonParser, new BooleanArray()).toArray();
+    }
+
+    /**
+     * Append the values of the array at the parser's current token to dest.
+     */
+    public static BooleanArray readBooleans(JsonParser jsonParser, BooleanArray dest) throws IOException {
+        if (jsonParser.getCurrentToken() != JsonToken.START_ARRAY) {
+            return dest;
+        }
+
+        int depth           = 1;
+        JsonToken jsonToken = null;
+
+        while (depth > 0 && (jsonToken = jsonParser.nextToken()) != null) {
+            if (jsonToken == JsonToken.START_ARRAY) {
+                depth++;
+            } else if (jsonToken == JsonToken.END_ARRAY) {
+                depth--;
+            } else if (jsonToken == JsonToken.VALUE_TRUE || jsonToken == JsonToken.VALUE_FALSE) {
+                dest.add(jsonParser.getBooleanValue());
+            } else {
+                jsonParser.skipChildren();
+            }
+        }
+
+        return dest;
+    }
+
+    /**
+     * Growable int[] buffer.
+     */
+    public static final class IntArray {
+        private int[] values;
+        private int size;
+
+        public IntArray() {
+            this(DEFAULT_CAPACITY);
+        }
+
+        public IntArray(int capacity) {
+            this.values = new int[Math.max(capacity, 1)];
+        }
+
+        public void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, values.length << 1);
+            }
+            values[size++] = value;
+        }
+
+        public int get(int index) {
+            if (index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return values[index];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        /**
+         * Backing array, valid up to {@link #size()}. It is replaced when the buffer grows.
+         */
+        public int[] array() {
+            return values;
+        }
+
+        public int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Growable long[] buffer.
+     */
+    public static final class LongArray {
+        private long[] values;
+        private int size;
+
+        public LongArray() {
+            this(DEFAULT_CAPACITY);
+        }
+
+        public LongArray(int capacity) {
+            this.values = new long[Math.max(capacity, 1)];
+        }
+
+        public void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, values.length << 1);
+            }
+            values[size++] = value;
+        }
+
+        public long get(int index) {
+            if (index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return values[index];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        /**
+         * Backing array, valid up to {@link #size()}. It is replaced when the buffer grows.
+         */
+        public long[] array() {
+            return values;
+        }
+
+        public long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Growable double[] buffer.
+     */
+    public static final class DoubleArray {
+        private double[] values;
+        private int size;
+
+        public DoubleArray() {
+            this(DEFAULT_CAPACITY);
+        }
+
+        public DoubleArray(int capacity) {
+            this.values = new double[Math.max(capacity, 1)];
+        }
+
+        public void add(double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, values.length << 1);
+            }
+            values[size++] = value;
+        }
+
+        public double get(int index) {
+            if (index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return values[index];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        /**
+         * Backing array, valid up to {@link #size()}. It is replaced when the buffer grows.
+         */
+        public double[] array() {
+            return values;
+        }
+
+        public double[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Growable boolean[] buffer.
+     */
+    public static final class BooleanArray {
+        private boolean[] values;
+        private int size;
+
+        public BooleanArray() {
+            this(DEFAULT_CAPACITY);
+        }
+
+        public BooleanArray(int capacity) {
+            this.values = new boolean[Math.max(capacity, 1)];
+        }
+
+        public void add(boolean value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, values.length << 1);
+            }
+            values[size++] = value;
+        }
+
+        public boolean get(int index) {
+            if (index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return values[index];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        /**
+         * Backing array, valid up to {@link #size()}. It is replaced when the buffer grows.
+         */
+        public boolean[] array() {
+            return values;
+        }
+
+        public boolean[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package tw.wd.util.json;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * ByteArrayOutputStream which exposes its backing buffer, so the written content
+ * can be decoded or copied out without the extra toByteArray() copy.
+ */
+final class ReusableByteArrayOutputStream extends ByteArrayOutputStream {
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    ReusableByteArrayOutputStream(int initialSize) {
+        super(initialSize);
+    }
+
+    byte[] getBuffer() {
+        return buf;
+    }
+
+    int capacity() {
+        return buf.length;
+    }
+
+    String toUTF8String() {
+        return new String(buf, 0, count, UTF_8);
+    }
+}
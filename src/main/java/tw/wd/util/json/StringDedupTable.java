@@ -0,0 +1,108 @@
+package tw.wd.util.json;
+
+/**
+ * Bounded table which hands out one shared instance for repeated short strings, such as status
+ * codes or enum-like values, so parsed trees kept in memory do not hold a copy per document.
+ * <p>
+ * The table is a fixed array of two-slot buckets indexed by hash: a string found in its bucket is
+ * returned, otherwise it takes the bucket's first slot and the previous first moves to the second,
+ * so two hot values sharing a bucket do not evict each other. Lookups from a parser's character buffer allocate only on
+ * a miss. Slots are read and written without locking; as strings are immutable a race can only lose
+ * a cache entry, never return a wrong string. Strings longer than the maximum length are not cached.
+ */
+public final class StringDedupTable {
+    public static final int DEFAULT_SIZE        = 4096;
+    public static final int DEFAULT_MAX_LENGTH  = 32;
+
+    private final String[] table;
+    private final int mask;
+    private final int maxLength;
+
+    public StringDedupTable() {
+        this(DEFAULT_SIZE, DEFAULT_MAX_LENGTH);
+    }
+
+    /**
+     * @param size number of slots, rounded up to a power of two
+     * @param maxLength longest string which is cached
+     */
+    public StringDedupTable(int size, int maxLength) {
+        if (size < 2 || size > (1 << 30)) {
+            throw new IllegalArgumentException("Table size must be between 2 and 2^30.");
+        }
+
+        int capacity = Integer.highestOneBit(size);
+        if (capacity < size) {
+            capacity <<= 1;
+        }
+
+        this.table      = new String[capacity];
+        this.mask       = capacity - 2;
+        this.maxLength  = maxLength;
+    }
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    public String dedup(String text) {
+        if (text == null || text.length() > maxLength) {
+            return text;
+        }
+
+        int slot = spread(text.hashCode()) & mask;
+
+        for (int idx = slot; idx <= slot + 1; idx++) {
+            String cached = table[idx];
+            if (cached != null && cached.equals(text)) {
+                return cached;
+            }
+        }
+        return insert(slot, text);
+    }
+
+    public String dedup(char[] buf, int offset, int length) {
+        if (length > maxLength) {
+            return new String(buf, offset, length);
+        }
+
+        // Same hash as String.hashCode(), so both lookups share slots.
+        int hash = 0;
+        for (int idx = 0; idx < length; idx++) {
+            hash = 31 * hash + buf[offset + idx];
+        }
+
+        int slot = spread(hash) & mask;
+
+        for (int idx = slot; idx <= slot + 1; idx++) {
+            String cached = table[idx];
+            if (cached != null && matches(cached, buf, offset, length)) {
+                return cached;
+            }
+        }
+        return insert(slot, new String(buf, offset, length));
+    }
+
+    private String insert(int slot, String text) {
+        table[slot + 1] = table[slot];
+        table[slot]     = text;
+        return text;
+    }
+
+    private static boolean matches(String text, char[] buf, int offset, int length) {
+        if (text.length() != length) {
+            return false;
+        }
+
+        for (int idx = 0; idx < length; idx++) {
+            if (text.charAt(idx) != buf[offset + idx]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
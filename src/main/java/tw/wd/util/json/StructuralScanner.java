@@ -0,0 +1,281 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Byte-level helpers which find the boundaries of JSON values in UTF-8 input without decoding them.
+ * The scanner only tracks structure (strings, brackets and separators); it does not validate scalars.
+ * <p>
+ * Strings and containers are scanned eight bytes at a time: each word is tested for quote, backslash
+ * and bracket bytes with SWAR (SIMD within a register) bit tricks, and only words holding one of them
+ * are looked at byte by byte.
+ */
+final class StructuralScanner {
+    private static final long ONES           = 0x0101010101010101L;
+    private static final long HIGH_BITS      = 0x8080808080808080L;
+    private static final long QUOTES         = ONES * '"';
+    private static final long BACKSLASHES    = ONES * '\\';
+    private static final long CASE_BITS      = ONES * 0x20;
+    private static final long OPEN_BRACKETS  = ONES * '{';
+    private static final long CLOSE_BRACKETS = ONES * '}';
+
+    private StructuralScanner() {
+    }
+
+    static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    static int skipWhitespace(byte[] buf, int pos, int end) {
+        while (pos < end && isWhitespace(buf[pos])) {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * Skip the string starting with the quote at pos, returning the position after the closing quote.
+     */
+    static int skipString(byte[] buf, int pos, int end) throws JsonParseException {
+        pos++;
+        while (pos + 8 <= end) {
+            long word = readWord(buf, pos);
+            long mask = zeroBytes(word ^ QUOTES) | zeroBytes(word ^ BACKSLASHES);
+
+            if (mask == 0) {
+                pos += 8;
+                continue;
+            }
+
+            pos += Long.numberOfTrailingZeros(mask) >>> 3;
+            if (buf[pos] == '"') {
+                return pos + 1;
+            }
+            pos += 2;
+        }
+        while (pos < end) {
+            byte b = buf[pos++];
+
+            if (b == '"') {
+                return pos;
+            } else if (b == '\\') {
+                pos++;
+            }
+        }
+
+        throw error("Unterminated string", pos);
+    }
+
+    /**
+     * Skip the value starting at pos, returning the position after its last byte.
+     */
+    static int skipValue(byte[] buf, int pos, int end) throws JsonParseException {
+        if (pos >= end) {
+            throw error("Expected a value", pos);
+        }
+
+        byte b = buf[pos];
+        if (b == '"') {
+            return skipString(buf, pos, end);
+        } else if (b == '{' || b == '[') {
+            return skipContainer(buf, pos, end);
+        } else if (b == '}' || b == ']' || b == ',' || b == ':') {
+            throw error("Expected a value", pos);
+        }
+
+        while (pos < end) {
+            b = buf[pos];
+            if (b == ',' || b == '}' || b == ']' || isWhitespace(b)) {
+                break;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * Skip the object or array opened at pos, returning the position after its closing bracket.
+     */
+    static int skipContainer(byte[] buf, int pos, int end) throws JsonParseException {
+        int depth = 0;
+
+        while ((pos = nextStructural(buf, pos, end)) < end) {
+            byte b = buf[pos];
+
+            if (b == '"') {
+                pos = skipString(buf, pos, end);
+                continue;
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                if (--depth == 0) {
+                    return pos + 1;
+                }
+            }
+            pos++;
+        }
+
+        throw error("Unclosed object or array", pos);
+    }
+
+    /**
+     * Whether the top-level object holds every key, each given as its UTF-8 bytes. Nested objects are
+     * stepped over without looking at their keys, and values are never decoded.
+     */
+    static boolean containsKeys(byte[] buf, int pos, int end, byte[][] keys) throws JsonParseException {
+        boolean[] isFound   = new boolean[keys.length];
+        int remaining       = keys.length;
+
+        pos = skipWhitespace(buf, pos, end);
+        if (pos >= end || buf[pos] != '{') {
+            return false;
+        }
+
+        pos = skipWhitespace(buf, pos + 1, end);
+        if (pos < end && buf[pos] == '}') {
+            return remaining == 0;
+        }
+
+        while (pos < end) {
+            if (buf[pos] != '"') {
+                throw error("Expected a field name", pos);
+            }
+
+            int keyStart    = pos + 1;
+            pos             = skipString(buf, pos, end);
+            int keyIdx      = indexOfKey(buf, keyStart, pos - 1, keys);
+
+            if (keyIdx >= 0 && !isFound[keyIdx]) {
+                isFound[keyIdx] = true;
+                if (--remaining == 0) {
+                    return true;
+                }
+            }
+
+            pos = skipWhitespace(buf, pos, end);
+            if (pos >= end || buf[pos] != ':') {
+                throw error("Expected ':'", pos);
+            }
+            pos = skipValue(buf, skipWhitespace(buf, pos + 1, end), end);
+            pos = skipWhitespace(buf, pos, end);
+
+            if (pos < end && buf[pos] == ',') {
+                pos = skipWhitespace(buf, pos + 1, end);
+            } else if (pos < end && buf[pos] == '}') {
+                return remaining == 0;
+            } else {
+                throw error("Expected ',' or '}'", pos);
+            }
+        }
+
+        throw error("Unclosed object", pos);
+    }
+
+    /**
+     * Index of the key equal to the raw field name bytes, -1 when there is none. Names with escapes are
+     * compared after decoding them.
+     */
+    private static int indexOfKey(byte[] buf, int start, int end, byte[][] keys) {
+        for (int idx = start; idx < end; idx++) {
+            if (buf[idx] == '\\') {
+                return indexOfKey(unescape(buf, start, end), keys);
+            }
+        }
+
+        for (int keyIdx = 0; keyIdx < keys.length; keyIdx++) {
+            byte[] key = keys[keyIdx];
+
+            if (key.length == end - start && regionEquals(buf, start, key)) {
+                return keyIdx;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOfKey(byte[] name, byte[][] keys) {
+        for (int keyIdx = 0; keyIdx < keys.length; keyIdx++) {
+            if (Arrays.equals(name, keys[keyIdx])) {
+                return keyIdx;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionEquals(byte[] buf, int start, byte[] key) {
+        for (int idx = 0; idx < key.length; idx++) {
+            if (buf[start + idx] != key[idx]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] unescape(byte[] buf, int start, int end) {
+        try {
+            JsonParser jsonParser = JSONEngine.getDefault().createParser(buf, start - 1, end - start + 2);
+            try {
+                jsonParser.nextToken();
+                return jsonParser.getText().getBytes(ReusableByteArrayOutputStream.UTF_8);
+            } finally {
+                jsonParser.close();
+            }
+        } catch (IOException e) {
+            return new byte[0];
+        }
+    }
+
+    /**
+     * Position of the first quote or bracket at or after pos, end when there is none.
+     */
+    private static int nextStructural(byte[] buf, int pos, int end) {
+        while (pos + 8 <= end) {
+            long word   = readWord(buf, pos);
+            long folded = word | CASE_BITS;
+            long mask   = zeroBytes(word ^ QUOTES) | zeroBytes(folded ^ OPEN_BRACKETS) | zeroBytes(folded ^ CLOSE_BRACKETS);
+
+            if (mask != 0) {
+                return pos + (Long.numberOfTrailingZeros(mask) >>> 3);
+            }
+            pos += 8;
+        }
+        while (pos < end) {
+            byte b = buf[pos];
+
+            if (b == '"' || b == '{' || b == '}' || b == '[' || b == ']') {
+                return pos;
+            }
+            pos++;
+        }
+        return end;
+    }
+
+    /**
+     * Eight bytes in little-endian order, so the first byte in memory is the lowest one.
+     */
+    private static long readWord(byte[] buf, int pos) {
+        return (buf[pos] & 0xFFL)
+                | (buf[pos + 1] & 0xFFL) << 8
+                | (buf[pos + 2] & 0xFFL) << 16
+                | (buf[pos + 3] & 0xFFL) << 24
+                | (buf[pos + 4] & 0xFFL) << 32
+                | (buf[pos + 5] & 0xFFL) << 40
+                | (buf[pos + 6] & 0xFFL) << 48
+                | (buf[pos + 7] & 0xFFL) << 56;
+    }
+
+    /**
+     * High bit set in the lowest zero byte of the word; bytes above it may be flagged spuriously.
+     */
+    private static long zeroBytes(long word) {
+        return (word - ONES) & ~word & HIGH_BITS;
+    }
+
+    static JsonParseException error(String message, int offset) {
+        return new JsonParseException(message + " at offset " + offset, new JsonLocation(null, offset, -1, -1));
+    }
+}
@@ -0,0 +1,30 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+/**
+ * Specialized reader and writer of one class, generated by {@link CodecProcessor} for classes
+ * marked with {@link CompiledCodec}.
+ */
+public interface TypeCodec<T> {
+    /**
+     * Write value as one JSON object.
+     * @param jsonGenerator
+     * @param value not null
+     * @param binder binder to write nested values with
+     * @throws IOException
+     */
+    public void write(JsonGenerator jsonGenerator, T value, ObjectBinder binder) throws IOException;
+
+    /**
+     * Read an object from the parser, which is positioned on its START_OBJECT token.
+     * @param jsonParser
+     * @param binder binder to read nested values with
+     * @return
+     * @throws IOException
+     */
+    public T read(JsonParser jsonParser, ObjectBinder binder) throws IOException;
+}
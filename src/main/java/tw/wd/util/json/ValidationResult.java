@@ -0,0 +1,42 @@
+package tw.wd.util.json;
+
+/**
+ * Outcome of {@link JSONValidator#validate(byte[])}: valid, or the byte offset and reason of the first error.
+ */
+public final class ValidationResult {
+    static final ValidationResult VALID = new ValidationResult(true, -1, null);
+
+    private final boolean isValid;
+    private final int errorOffset;
+    private final String reason;
+
+    private ValidationResult(boolean isValid, int errorOffset, String reason) {
+        this.isValid        = isValid;
+        this.errorOffset    = errorOffset;
+        this.reason         = reason;
+    }
+
+    static ValidationResult invalid(int errorOffset, String reason) {
+        return new ValidationResult(false, errorOffset, reason);
+    }
+
+    public boolean isValid() {
+        return isValid;
+    }
+
+    /**
+     * Offset of the error relative to the start of the validated input, -1 when valid.
+     */
+    public int getErrorOffset() {
+        return errorOffset;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return isValid ? "ValidationResult[valid]" : "ValidationResult[" + reason + " at offset " + errorOffset + "]";
+    }
+}
@@ -0,0 +1,20 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * Writes one value of a given type into a generator. Container writers hand their elements
+ * back to the registry so every element is dispatched the same way.
+ */
+public interface ValueWriter<T> {
+    /**
+     * Write value into jsonGenerator.
+     * @param jsonGenerator
+     * @param value not null
+     * @param registry registry to write nested values with
+     * @throws IOException
+     */
+    public void write(JsonGenerator jsonGenerator, T value, ValueWriterRegistry registry) throws IOException;
+}
@@ -0,0 +1,187 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Class-keyed table of {@link ValueWriter}s used to serialize map values.
+ * <p>
+ * The writer of a class is resolved once and cached in a {@link ClassValue}, so writing a value
+ * costs a single lookup. Resolution looks for a writer registered for the class or one of its
+ * superclasses, then for the most recently registered interface or supertype the class implements,
+ * then falls back to element-wise writers for arrays, to binding application classes through an
+ * {@link ObjectBinder} (their generated codec when marked with {@link CompiledCodec}), and to toString()
+ * text for any other JDK type.
+ * Registering a writer drops the cached resolutions.
+ * <p>
+ * Field names written through {@link #writeFieldName(JsonGenerator, String)} are pre-encoded once and
+ * kept in a bounded cache shared by all writers of the registry.
+ */
+public class ValueWriterRegistry {
+    public static final int DEFAULT_FIELD_NAME_CACHE_SIZE = 1024;
+
+    private static final ValueWriterRegistry DEFAULT_REGISTRY = new ValueWriterRegistry();
+
+    private final Map<Class<?>, ValueWriter<?>> writers;
+    private final List<Class<?>> registeredTypes;
+    private final FieldNameCache fieldNameCache;
+    private final ValueWriter<Object> beanWriter;
+    private volatile ClassValue<ValueWriter<?>> resolvedWriters;
+
+    public ValueWriterRegistry() {
+        this(DEFAULT_FIELD_NAME_CACHE_SIZE);
+    }
+
+    /**
+     * @param fieldNameCacheSize number of distinct field names kept pre-encoded, 0 to disable the cache
+     */
+    public ValueWriterRegistry(int fieldNameCacheSize) {
+        this.writers            = new ConcurrentHashMap<Class<?>, ValueWriter<?>>();
+        this.registeredTypes    = new CopyOnWriteArrayList<Class<?>>();
+        this.fieldNameCache     = new FieldNameCache(fieldNameCacheSize);
+        this.beanWriter         = new ObjectBinder(this).asValueWriter();
+
+        registerDefaults();
+        this.resolvedWriters    = newResolvedWriters();
+    }
+
+    /**
+     * Registry used by {@link JSONEngine#getDefault()}. Writers registered here apply to the static {@link JSONUtils} API.
+     */
+    public static ValueWriterRegistry getDefault() {
+        return DEFAULT_REGISTRY;
+    }
+
+    /**
+     * Register writer for type and its subtypes, replacing any writer registered for the same type.
+     * The writer must accept every instance of type.
+     */
+    public synchronized ValueWriterRegistry register(Class<?> type, ValueWriter<?> writer) {
+        if (type == null || writer == null) {
+            throw new IllegalArgumentException("Type and writer must not be null.");
+        }
+
+        registeredTypes.remove(type);
+        registeredTypes.add(type);
+        writers.put(type, writer);
+        resolvedWriters = newResolvedWriters();
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> ValueWriter<? super T> getWriter(Class<T> type) {
+        return (ValueWriter<? super T>) resolvedWriters.get(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void writeValue(JsonGenerator jsonGenerator, Object value) throws IOException {
+        if (value == null) {
+            jsonGenerator.writeNull();
+        } else {
+            ((ValueWriter<Object>) resolvedWriters.get(value.getClass())).write(jsonGenerator, value, this);
+        }
+    }
+
+    /**
+     * Write a field name, using its cached pre-encoded form.
+     */
+    public void writeFieldName(JsonGenerator jsonGenerator, String name) throws IOException {
+        SerializableString encodedName = fieldNameCache.get(name);
+
+        if (encodedName != null) {
+            jsonGenerator.writeFieldName(encodedName);
+        } else {
+            jsonGenerator.writeFieldName(name);
+        }
+    }
+
+    /**
+     * Pre-encoded form of name, from the cache when it has room; for names written over and over.
+     */
+    public SerializableString encodeFieldName(String name) {
+        SerializableString encodedName = fieldNameCache.get(name);
+
+        return encodedName != null ? encodedName : new SerializedString(name);
+    }
+
+    private ValueWriter<?> resolve(Class<?> type) {
+        for (Class<?> clazz = type; clazz != null; clazz = clazz.getSuperclass()) {
+            ValueWriter<?> writer = writers.get(clazz);
+            if (writer != null) {
+                return writer;
+            }
+        }
+
+        for (int idx = registeredTypes.size() - 1; idx >= 0; idx--) {
+            Class<?> registeredType = registeredTypes.get(idx);
+            if (registeredType.isAssignableFrom(type)) {
+                return writers.get(registeredType);
+            }
+        }
+
+        if (type.isArray()) {
+            return type.getComponentType().isPrimitive() ? ValueWriters.PRIMITIVE_ARRAY : ValueWriters.OBJECT_ARRAY;
+        }
+
+        return ObjectBinder.isBean(type) ? beanWriter : ValueWriters.TO_STRING;
+    }
+
+    /**
+     * Writer resolved for application classes without a registered writer.
+     */
+    ValueWriter<Object> getBeanWriter() {
+        return beanWriter;
+    }
+
+    private ClassValue<ValueWriter<?>> newResolvedWriters() {
+        return new ClassValue<ValueWriter<?>>() {
+            @Override
+            protected ValueWriter<?> computeValue(Class<?> type) {
+                return resolve(type);
+            }
+        };
+    }
+
+    /**
+     * Supertypes are registered before their subtypes, so the most specific interface wins.
+     */
+    private void registerDefaults() {
+        registerDefault(Iterable.class,                     ValueWriters.ITERABLE);
+        registerDefault(List.class,                         ValueWriters.LIST);
+        registerDefault(Map.class,                          ValueWriters.MAP);
+        registerDefault(CharSequence.class,                 ValueWriters.CHAR_SEQUENCE);
+        registerDefault(JSONUtils.JSONTranslatable.class,   ValueWriters.JSON_TRANSLATABLE);
+
+        registerDefault(String.class,                       ValueWriters.STRING);
+        registerDefault(Integer.class,                      ValueWriters.INTEGER);
+        registerDefault(Long.class,                         ValueWriters.LONG);
+        registerDefault(Short.class,                        ValueWriters.SHORT_NUMBER);
+        registerDefault(Byte.class,                         ValueWriters.SHORT_NUMBER);
+        registerDefault(Float.class,                        ValueWriters.FLOAT);
+        registerDefault(Double.class,                       ValueWriters.DOUBLE);
+        registerDefault(BigDecimal.class,                   ValueWriters.BIG_DECIMAL);
+        registerDefault(BigInteger.class,                   ValueWriters.BIG_INTEGER);
+        registerDefault(Number.class,                       ValueWriters.NUMBER);
+        registerDefault(Boolean.class,                      ValueWriters.BOOLEAN);
+        registerDefault(Character.class,                    ValueWriters.CHARACTER);
+        registerDefault(Enum.class,                         ValueWriters.ENUM);
+        registerDefault(int[].class,                        ValueWriters.INT_ARRAY);
+        registerDefault(long[].class,                       ValueWriters.LONG_ARRAY);
+        registerDefault(double[].class,                     ValueWriters.DOUBLE_ARRAY);
+        registerDefault(boolean[].class,                    ValueWriters.BOOLEAN_ARRAY);
+        registerDefault(char[].class,                       ValueWriters.CHAR_ARRAY);
+    }
+
+    private void registerDefault(Class<?> type, ValueWriter<?> writer) {
+        registeredTypes.add(type);
+        writers.put(type, writer);
+    }
+}
@@ -0,0 +1,252 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.Map.Entry;
+
+/**
+ * Built-in writers registered into every {@link ValueWriterRegistry}.
+ */
+final class ValueWriters {
+    static final ValueWriter<String> STRING = new ValueWriter<String>() {
+        @Override
+        public void write(JsonGenerator jsonGenerator, String value, ValueWriterRegistry registry) throws IOException {
+            jsonGenerator.writeString(value);
+        }
+    };
+
+    static final ValueWriter<CharSequence> CHAR_SEQUENCE = new ValueWriter<CharSequence>() {
+        @Override
+        public void write(JsonGenerator jsonGenerator, CharSequence value, ValueWriterRegistry registry) throws IOException {
+            jsonGenerator.writeString(value.toString());
+        }
+    };
+
+    static final ValueWriter<Character> CHARACTER = new ValueWriter<Character>() {
+        @Override
+        public void write(JsonGenerator jsonGenerator, Character value, ValueWriterRegistry registry) throws IOException {
+            jsonGenerator.writeString(String.valueOf(value.charValue()));
+        }
+    };
+
+    static final ValueWriter<Integer> INTEGER = new ValueWriter<Integer>() {
+        @Override
+        public void write(JsonGenerator jsonGenerator, Integer value, ValueWriterRegistry registry) throws IOException {
+            jsonGenerator.writeNumber(value.intValue());
+        }
+    };
+
+    static final ValueWriter<Long> LONG = new ValueWriter<Long>() {
+        @Override
+        public void write(JsonGenerator jsonGenerator, Long value, ValueWriterRegistry registry) throws IOException {
+            jsonGenerator.writeNumber(value.longValue());
+        }
+    };
+
+    static final ValueWriter<Number> SHORT_NUMBER = new ValueWriter<Number>() {
+        @Override
+        public void write(JsonGenerator jsonGenerator, Number value, ValueWriterRegistry registry) throws IOException {
+            jsonGenerator.writeNumber(value.intValue());
+        }
+    };
+
+    static final ValueWriter<Float> FLOAT = new ValueWriter<Float>() {
+        @Override
+        public void write(JsonGenerator jsonGenerator, Float value, ValueWriterRegistry registry) throws IOException {
+            jsonGenerator.writeNumber(value.floatValue());
+        }
+    };
+
+    static final ValueWriter<Double> DOUBLE = new ValueWriter<Double>() {
+        @Override
+        public void write(JsonGenerator jsonGenerator, Double value, ValueWriterRegistry registry) throws IOException {
+            jsonGenerator.writeNumber(value.doubleValue());
+        }
+    };
+
+    static final ValueWriter<BigDecimal> BIG_DECIMAL = new ValueWriter<BigDecimal>() {
+        @Override
+        public void write(JsonGenerator jsonGenerator, BigDecimal value, ValueWriterRegistry registry) throws IOException {
+            jsonGenerator.writeNumber(value);
+        }
+    };
+
+    static final ValueWriter<BigInteger> BIG_INTEGER = new ValueWriter<BigInteger>() {
+        @Override
+        public void write(JsonGenerator jsonGenerator, BigInteger value, ValueWriterRegistry registry) throws IOException {
+            jsonGenerator.writeNumber(value);
+        }
+    };
+
+    /**
+     * Any other Number (AtomicLong, LongAdder, ...) written from its decimal text.
+     */
+    static final ValueWriter<Number> NUMBER = new ValueWriter<Number>() {
+        @Override
+        public void write(JsonGenerator jsonGenerator, Number value, ValueWriterRegistry registry) throws IOException {
+            jsonGenerator.writeNumber(value.toString());
+        }
+    };
+
+    static final ValueWriter<Boolean> BOOLEAN = new ValueWriter<Boolean>() {
+        @Override
+        public void write(JsonGenerator jsonGenerator, Boolean value, ValueWriterRegistry registry) throws IOException {
+            jsonGenerator.writeBoolean(value.booleanValue());
+        }
+    };
+
+    static final ValueWriter<Enum<?>> ENUM = new ValueWriter<Enum<?>>() {
+        @Override
+        public void write(JsonGenerator jsonGenerator, Enum<?> value, ValueWriterRegistry registry) throws IOException {
+            jsonGenerator.writeString(value.name());
+        }
+    };
+
+    static final ValueWriter<JSONUtils.JSONTranslatable> JSON_TRANSLATABLE = new ValueWriter<JSONUtils.JSONTranslatable>() {
+        @Override
+        public void write(JsonGenerator jsonGenerator, JSONUtils.JSONTranslatable value, ValueWriterRegistry registry) throws IOException {
+            value.writeJSON(jsonGenerator);
+        }
+    };
+
+    static final ValueWriter<Map<?, ?>> MAP = new ValueWriter<Map<?, ?>>() {
+        @Override
+        public void write(JsonGenerator jsonGenerator, Map<?, ?> value, ValueWriterRegistry registry) throws IOException {
+            jsonGenerator.writeStartObject();
+
+            Iterator<? extends Entry<?, ?>> iter = value.entrySet().iterator();
+            while (iter.hasNext()) {
+                Entry<?, ?> entry = iter.next();
+
+                registry.writeFieldName(jsonGenerator, String.valueOf(entry.getKey()));
+                registry.writeValue(jsonGenerator, entry.getValue());
+            }
+
+            jsonGenerator.writeEndObject();
+        }
+    };
+
+    static final ValueWriter<List<?>> LIST = new ValueWriter<List<?>>() {
+        @Override
+        public void write(JsonGenerator jsonGenerator, List<?> value, ValueWriterRegistry registry) throws IOException {
+            if (!(value instanceof RandomAccess)) {
+                ITERABLE.write(jsonGenerator, value, registry);
+                return;
+            }
+
+            jsonGenerator.writeStartArray();
+            for (int idx = 0, size = value.size(); idx < size; idx++) {
+                registry.writeValue(jsonGenerator, value.get(idx));
+            }
+            jsonGenerator.writeEndArray();
+        }
+    };
+
+    static final ValueWriter<Iterable<?>> ITERABLE = new ValueWriter<Iterable<?>>() {
+        @Override
+        public void write(JsonGenerator jsonGenerator, Iterable<?> value, ValueWriterRegistry registry) throws IOException {
+            jsonGenerator.writeStartArray();
+
+            Iterator<?> iter = value.iterator();
+            while (iter.hasNext()) {
+                registry.writeValue(jsonGenerator, iter.next());
+            }
+
+            jsonGenerator.writeEndArray();
+        }
+    };
+
+    static final ValueWriter<Object[]> OBJECT_ARRAY = new ValueWriter<Object[]>() {
+        @Override
+        public void write(JsonGenerator jsonGenerator, Object[] value, ValueWriterRegistry registry) throws IOException {
+            jsonGenerator.writeStartArray();
+            for (Object element : value) {
+                registry.writeValue(jsonGenerator, element);
+            }
+            jsonGenerator.writeEndArray();
+        }
+    };
+
+    static final ValueWriter<int[]> INT_ARRAY = new ValueWriter<int[]>() {
+        @Override
+        public void write(JsonGenerator jsonGenerator, int[] value, ValueWriterRegistry registry) throws IOException {
+            jsonGenerator.writeStartArray();
+            for (int element : value) {
+                jsonGenerator.writeNumber(element);
+            }
+            jsonGenerator.writeEndArray();
+        }
+    };
+
+    static final ValueWriter<long[]> LONG_ARRAY = new ValueWriter<long[]>() {
+        @Override
+        public void write(JsonGenerator jsonGenerator, long[] value, ValueWriterRegistry registry) throws IOException {
+            jsonGenerator.writeStartArray();
+            for (long element : value) {
+                jsonGenerator.writeNumber(element);
+            }
+            jsonGenerator.writeEndArray();
+        }
+    };
+
+    static final ValueWriter<double[]> DOUBLE_ARRAY = new ValueWriter<double[]>() {
+        @Override
+        public void write(JsonGenerator jsonGenerator, double[] value, ValueWriterRegistry registry) throws IOException {
+            jsonGenerator.writeStartArray();
+            for (double element : value) {
+                jsonGenerator.writeNumber(element);
+            }
+            jsonGenerator.writeEndArray();
+        }
+    };
+
+    static final ValueWriter<boolean[]> BOOLEAN_ARRAY = new ValueWriter<boolean[]>() {
+        @Override
+        public void write(JsonGenerator jsonGenerator, boolean[] value, ValueWriterRegistry registry) throws IOException {
+            jsonGenerator.writeStartArray();
+            for (boolean element : value) {
+                jsonGenerator.writeBoolean(element);
+            }
+            jsonGenerator.writeEndArray();
+        }
+    };
+
+    static final ValueWriter<char[]> CHAR_ARRAY = new ValueWriter<char[]>() {
+        @Override
+        public void write(JsonGenerator jsonGenerator, char[] value, ValueWriterRegistry registry) throws IOException {
+            jsonGenerator.writeString(value, 0, value.length);
+        }
+    };
+
+    /**
+     * byte[], short[] and float[], written element by element as numbers.
+     */
+    static final ValueWriter<Object> PRIMITIVE_ARRAY = new ValueWriter<Object>() {
+        @Override
+        public void write(JsonGenerator jsonGenerator, Object value, ValueWriterRegistry registry) throws IOException {
+            jsonGenerator.writeStartArray();
+            for (int idx = 0, length = Array.getLength(value); idx < length; idx++) {
+                registry.writeValue(jsonGenerator, Array.get(value, idx));
+            }
+            jsonGenerator.writeEndArray();
+        }
+    };
+
+    /**
+     * JDK types without a writer are written as their toString() text.
+     */
+    static final ValueWriter<Object> TO_STRING = new ValueWriter<Object>() {
+        @Override
+        public void write(JsonGenerator jsonGenerator, Object value, ValueWriterRegistry registry) throws IOException {
+            jsonGenerator.writeString(value.toString());
+        }
+    };
+
+    private ValueWriters() {
+    }
+}
@@ -0,0 +1,143 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class BatchProcessorTest {
+
+    @Test
+    public void testToMapKeepsInputOrder() throws Exception {
+        BatchProcessor batchProcessor       = BatchProcessor.builder().parallelism(4).sequentialThreshold(8).build();
+        List<String> jsonTexts              = createDocuments(1000);
+        List<Map<String, Object>> resultMaps = batchProcessor.toMap(jsonTexts);
+
+        assertThat(resultMaps.size(), is(1000));
+        for (int idx = 0; idx < 1000; idx++) {
+            assertThat((Integer) resultMaps.get(idx).get("id"), is(idx));
+        }
+    }
+
+    @Test
+    public void testGetFieldValueSequentialAndParallel() throws Exception {
+        FieldExtractor fieldExtractor       = FieldExtractor.compile(new String[]{"id", "pl.pname"}, new byte[]{JSONUtils.TYPE_INT, JSONUtils.TYPE_STRING});
+        List<String> jsonTexts              = createDocuments(300);
+        List<Object[]> parallelValues       = BatchProcessor.builder().parallelism(3).sequentialThreshold(1).build().getFieldValue(jsonTexts, fieldExtractor);
+        List<Object[]> sequentialValues     = BatchProcessor.builder().sequentialThreshold(1000).build().getFieldValue(jsonTexts, fieldExtractor);
+
+        assertThat((Integer) parallelValues.get(299)[0],    is(299));
+        assertThat((String) parallelValues.get(7)[1],       is("project7"));
+        for (int idx = 0; idx < 300; idx++) {
+            assertThat(parallelValues.get(idx)[1], is(sequentialValues.get(idx)[1]));
+        }
+    }
+
+    @Test
+    public void testFailureIsRethrown() throws Exception {
+        BatchProcessor batchProcessor   = BatchProcessor.builder().parallelism(2).sequentialThreshold(1).build();
+        List<String> jsonTexts          = createDocuments(100);
+        Exception rtnException          = null;
+
+        jsonTexts.set(42, "{\"id\":42,");
+        try {
+            batchProcessor.toMap(jsonTexts);
+        } catch (JsonParseException e) {
+            rtnException = e;
+        }
+
+        assertThat(rtnException, is(notNullValue()));
+    }
+
+    @Test
+    public void testNDJSONFileSplitIntoChunks() throws Exception {
+        File ndjsonFile = File.createTempFile("batch", ".ndjson");
+        ndjsonFile.deleteOnExit();
+
+        OutputStream outputStream = new FileOutputStream(ndjsonFile);
+        try {
+            for (String jsonText : createDocuments(2000)) {
+                outputStream.write(jsonText.getBytes(ReusableByteArrayOutputStream.UTF_8));
+                outputStream.write('\n');
+            }
+        } finally {
+            outputStream.close();
+        }
+
+        BatchProcessor batchProcessor       = BatchProcessor.builder().parallelism(4).minChunkSize(1024).build();
+        List<Map<String, Object>> resultMaps = batchProcessor.toMap(ndjsonFile.toPath());
+        List<Object[]> values               = batchProcessor.getFieldValue(ndjsonFile.toPath(), FieldExtractor.compile("id", JSONUtils.TYPE_INT));
+
+        assertThat(resultMaps.size(),   is(2000));
+        assertThat(values.size(),       is(2000));
+        for (int idx = 0; idx < 2000; idx++) {
+            assertThat((Integer) resultMaps.get(idx).get("id"), is(idx));
+            assertThat((Integer) values.get(idx)[0],            is(idx));
+        }
+    }
+
+    @Test
+    public void testNDJSONFileUsesConfiguredEngine() throws Exception {
+        File ndjsonFile = File.createTempFile("batch", ".ndjson");
+        ndjsonFile.deleteOnExit();
+
+        OutputStream outputStream = new FileOutputStream(ndjsonFile);
+        try {
+            outputStream.write("{\"id\":1,\"score\":1.5}\n{\"id\":2,\"score\":2.5}\n".getBytes(ReusableByteArrayOutputStream.UTF_8));
+        } finally {
+            outputStream.close();
+        }
+
+        JSONEngine jsonEngine               = JSONEngine.builder().numberPolicy(NumberPolicy.ALWAYS_LONG).build();
+        BatchProcessor batchProcessor       = BatchProcessor.builder().jsonEngine(jsonEngine).build();
+        List<Map<String, Object>> resultMaps = batchProcessor.toMap(ndjsonFile.toPath());
+
+        assertThat(resultMaps.get(1).get("id"),     is((Object) 2L));
+        assertThat(resultMaps.get(1).get("score"),  is((Object) 2.5));
+    }
+
+    @Test
+    public void testCloseShutsDownOwnPoolOnly() throws Exception {
+        Exception rtnException          = null;
+        ForkJoinPool forkJoinPool       = new ForkJoinPool(2);
+        BatchProcessor ownPool          = BatchProcessor.builder().parallelism(2).sequentialThreshold(1).build();
+        BatchProcessor sharedPool       = BatchProcessor.builder().forkJoinPool(forkJoinPool).build();
+        BatchProcessor commonPool       = new BatchProcessor();
+
+        assertThat(ownPool.toMap(createDocuments(10)).size(), is(10));
+        ownPool.close();
+        sharedPool.close();
+        commonPool.close();
+
+        try {
+            ownPool.toMap(createDocuments(10));
+        } catch (RejectedExecutionException e) {
+            rtnException = e;
+        }
+
+        assertThat(rtnException,                            is(notNullValue()));
+        assertThat(forkJoinPool.isShutdown(),               is(false));
+        assertThat(ForkJoinPool.commonPool().isShutdown(),  is(false));
+        forkJoinPool.shutdown();
+    }
+
+    private static List<String> createDocuments(int count) {
+        List<String> jsonTexts = new ArrayList<String>(count);
+
+        for (int idx = 0; idx < count; idx++) {
+            jsonTexts.add("{\"id\":" + idx + ",\"name\":\"doc" + idx + "\",\"pl\":{\"pid\":" + (10000 + idx) + ",\"pname\":\"project" + idx + "\"}}");
+        }
+        return jsonTexts;
+    }
+}
@@ -0,0 +1,101 @@
+package tw.wd.util.json;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class EngineMetricsTest {
+    private static final String JSON_HAS_OBJECT = "{\"name\":\"Hello\", \"id\":102030, \"pl1\":{\"pid\":10001}}";
+
+    @Test
+    public void testRecordsOperations() throws Exception {
+        Exception rtnException          = null;
+        EngineMetrics engineMetrics     = new EngineMetrics();
+        JSONEngine jsonEngine           = JSONEngine.builder().listener(engineMetrics).build();
+        Map<String, Object> valueMap    = new HashMap<String, Object>();
+
+        valueMap.put("id", 1);
+        jsonEngine.toMap(JSON_HAS_OBJECT);
+        jsonEngine.toMap(JSON_HAS_OBJECT.getBytes("UTF-8"));
+        jsonEngine.getFieldValue(JSON_HAS_OBJECT, "id", JSONUtils.TYPE_INT);
+        jsonEngine.isJSONFormat(JSON_HAS_OBJECT);
+        jsonEngine.isJSONFormat("{\"id\":}");
+        String jsonText = jsonEngine.toJSON(valueMap);
+        try {
+            jsonEngine.toMap("{\"id\":");
+        } catch (Exception e) {
+            rtnException = e;
+        }
+
+        OperationMetrics toMapMetrics = engineMetrics.getOperationMetrics(EngineListener.Operation.TO_MAP);
+
+        assertThat(rtnException,                                                                    is(notNullValue()));
+        assertThat(toMapMetrics.getCount(),                                                         is(3L));
+        assertThat(toMapMetrics.getFailureCount(),                                                  is(1L));
+        assertThat(toMapMetrics.getByteCount() >= 2L * JSON_HAS_OBJECT.length(),                    is(true));
+        assertThat(toMapMetrics.getMaxNanos() >= toMapMetrics.getMedianNanos(),                     is(true));
+        assertThat(toMapMetrics.get99thPercentileNanos() > 0,                                       is(true));
+        assertThat(engineMetrics.getOperationMetrics(EngineListener.Operation.GET_FIELD_VALUE).getCount(), is(1L));
+        assertThat(engineMetrics.getOperationMetrics(EngineListener.Operation.VALIDATE).getCount(), is(2L));
+        assertThat(engineMetrics.getOperationMetrics(EngineListener.Operation.VALIDATE).getFailureCount(), is(1L));
+        assertThat(engineMetrics.getOperationMetrics(EngineListener.Operation.TO_JSON).getByteCount(), is((long) jsonText.length()));
+    }
+
+    @Test
+    public void testRecordsStreamedWritesAndCacheHits() throws Exception {
+        EngineMetrics engineMetrics     = new EngineMetrics();
+        JSONEngine jsonEngine           = JSONEngine.builder().listener(engineMetrics).parseCache(new ParseCache()).build();
+        Map<String, Object> valueMap    = new HashMap<String, Object>();
+
+        valueMap.put("id", 1);
+        jsonEngine.toJSON(valueMap, new ByteArrayOutputStream());
+        jsonEngine.toJSON(valueMap, new StringWriter());
+        jsonEngine.toMap(JSON_HAS_OBJECT);
+        jsonEngine.toMap(JSON_HAS_OBJECT);
+        jsonEngine.getFieldValue(JSON_HAS_OBJECT, "id", JSONUtils.TYPE_INT);
+        jsonEngine.getFieldValue(JSON_HAS_OBJECT, "id", JSONUtils.TYPE_INT);
+
+        assertThat(engineMetrics.getOperationMetrics(EngineListener.Operation.TO_JSON).getCount(),         is(2L));
+        assertThat(engineMetrics.getOperationMetrics(EngineListener.Operation.TO_MAP).getCount(),          is(2L));
+        assertThat(engineMetrics.getOperationMetrics(EngineListener.Operation.GET_FIELD_VALUE).getCount(), is(2L));
+        assertThat(jsonEngine.getParseCache().getHitCount(),                                               is(2L));
+    }
+
+    @Test
+    public void testHistogramBuckets() {
+        long[] samples = {0, 7, 8, 15, 16, 1000, 123456789L, Long.MAX_VALUE};
+
+        for (long nanos : samples) {
+            int index = OperationMetrics.bucketIndex(nanos);
+
+            assertThat(OperationMetrics.bucketUpperBound(index) >= nanos,                           is(true));
+            assertThat(index == 0 || OperationMetrics.bucketUpperBound(index - 1) < nanos,          is(true));
+        }
+    }
+
+    @Test
+    public void testRegisterMBeans() throws Exception {
+        EngineMetrics engineMetrics = new EngineMetrics();
+        MBeanServer mBeanServer     = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName       = new ObjectName("tw.wd.util.json:type=EngineMetrics,name=\"test\",operation=TO_MAP");
+
+        JSONEngine.builder().listener(engineMetrics).build().toMap(JSON_HAS_OBJECT);
+        engineMetrics.registerMBeans("test");
+        try {
+            assertThat((Long) mBeanServer.getAttribute(objectName, "Count"), is(1L));
+        } finally {
+            engineMetrics.unregisterMBeans();
+        }
+        assertThat(mBeanServer.isRegistered(objectName), is(false));
+    }
+}
@@ -0,0 +1,120 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class FieldExtractorTest {
+    private static final String JSON_HAS_OBJECT = "{\"name\":\"Hello\", \"phone\":\"0912345678\", \"pl1\":{\"pid\":10001,\"pname\":\"test_project1\"}, \"pl2\":{\"pid\":20001,\"pname\":\"test_project2\"}, \"pid\":102030}";
+    private static final String JSON_HAS_OBJECT_ARRAY = "{\"name\":\"Hello\", \"pl\":[{\"pid\":10001,\"pname\":\"test_project1\"},{\"pid\":10002,\"pname\":\"test_project2\",\"gul\":[\"gu001\",\"gu002\"]}], \"id\":102030}";
+
+    @Test
+    public void testExtractNestedPaths() throws Exception {
+        FieldExtractor fieldExtractor   = FieldExtractor.compile(
+                new String[]{"pl2.pname", "pl1.pid", "pid", "name"},
+                new byte[]{JSONUtils.TYPE_STRING, JSONUtils.TYPE_INT, JSONUtils.TYPE_INT, JSONUtils.TYPE_STRING});
+        Object[] values                 = JSONUtils.getFieldValue(JSON_HAS_OBJECT, fieldExtractor);
+
+        assertThat((String) values[0],  is("test_project2"));
+        assertThat((Integer) values[1], is(10001));
+        assertThat((Integer) values[2], is(102030));
+        assertThat((String) values[3],  is("Hello"));
+    }
+
+    @Test
+    public void testExtractArrayIndexPaths() throws Exception {
+        FieldExtractor fieldExtractor   = FieldExtractor.compile(
+                new String[]{"pl[0].pname", "pl[1].pid", "pl[1].gul", "id"},
+                new byte[]{JSONUtils.TYPE_STRING, JSONUtils.TYPE_INT, JSONUtils.TYPE_ARRAY_STRING, JSONUtils.TYPE_LONG});
+        Object[] values                 = JSONUtils.getFieldValue(JSON_HAS_OBJECT_ARRAY, fieldExtractor);
+
+        assertThat((String) values[0],          is("test_project1"));
+        assertThat((Integer) values[1],         is(10002));
+        assertThat(((String[]) values[2]).length, is(2));
+        assertThat(((String[]) values[2])[1],   is("gu002"));
+        assertThat((Long) values[3],            is(102030L));
+    }
+
+    @Test
+    public void testNestedFieldDoesNotShadowTopLevelField() throws Exception {
+        Object[] values = JSONUtils.getFieldValue(JSON_HAS_OBJECT,
+                new String[]{"pid", "pname"}, new byte[]{JSONUtils.TYPE_INT, JSONUtils.TYPE_STRING});
+
+        assertThat((Integer) values[0], is(102030));
+        assertThat(values[1],           is(nullValue()));
+    }
+
+    @Test
+    public void testSingleFieldMatchesTopLevelName() throws Exception {
+        String jsonText = "{\"a\":{\"x\":1,\"id\":9},\"id\":5}";
+
+        assertThat(JSONUtils.<Integer>getFieldValue(jsonText, "id", JSONUtils.TYPE_INT),                     is(5));
+        assertThat(JSONUtils.<Integer>getFieldValue(jsonText.getBytes("UTF-8"), "id", JSONUtils.TYPE_INT),   is(5));
+        assertThat(JSONUtils.<Integer>getFieldValue(jsonText, "x", JSONUtils.TYPE_INT),                      is(nullValue()));
+    }
+
+    @Test
+    public void testDuplicateKeyResolvesPathOnce() throws Exception {
+        FieldExtractor fieldExtractor   = FieldExtractor.compile(
+                new String[]{"a", "b"}, new byte[]{JSONUtils.TYPE_INT, JSONUtils.TYPE_INT});
+        Object[] values                 = JSONUtils.getFieldValue("{\"a\":1,\"a\":2,\"b\":3}", fieldExtractor);
+
+        assertThat((Integer) values[0], is(2));
+        assertThat((Integer) values[1], is(3));
+    }
+
+    @Test
+    public void testStopReadingWhenAllPathsResolved() throws Exception {
+        FieldExtractor fieldExtractor   = FieldExtractor.compile("pl1.pid", JSONUtils.TYPE_INT);
+        JsonParser jsonParser           = new JsonFactory().createParser(JSON_HAS_OBJECT);
+        Object[] values                 = fieldExtractor.extract(jsonParser);
+
+        assertThat((Integer) values[0],             is(10001));
+        assertThat(jsonParser.getCurrentToken(),    is(JsonToken.VALUE_NUMBER_INT));
+        assertThat(jsonParser.nextToken(),          is(JsonToken.FIELD_NAME));
+        assertThat(jsonParser.getCurrentName(),     is("pname"));
+    }
+
+    @Test
+    public void testScalarTypeOnContainerValue() throws Exception {
+        FieldExtractor fieldExtractor   = FieldExtractor.compile(
+                new String[]{"pl1", "name"}, new byte[]{JSONUtils.TYPE_STRING, JSONUtils.TYPE_STRING});
+        Object[] values                 = JSONUtils.getFieldValue("{\"pl1\":{\"name\":\"inner\"},\"name\":\"outer\"}", fieldExtractor);
+
+        assertThat((String) values[1], is("outer"));
+    }
+
+    @Test
+    public void testCompileWithInvalidPaths() {
+        Exception lengthException   = null;
+        Exception parentException   = null;
+        Exception indexException    = null;
+
+        try {
+            FieldExtractor.compile(new String[]{"a", "b"}, new byte[]{JSONUtils.TYPE_INT});
+        } catch (IllegalArgumentException e) {
+            lengthException = e;
+        }
+
+        try {
+            FieldExtractor.compile(new String[]{"pl", "pl[0].pid"}, new byte[]{JSONUtils.TYPE_ARRAY_INT, JSONUtils.TYPE_INT});
+        } catch (IllegalArgumentException e) {
+            parentException = e;
+        }
+
+        try {
+            FieldExtractor.compile("pl[x].pid", JSONUtils.TYPE_INT);
+        } catch (IllegalArgumentException e) {
+            indexException = e;
+        }
+
+        assertThat(lengthException, is(notNullValue()));
+        assertThat(parentException, is(notNullValue()));
+        assertThat(indexException,  is(notNullValue()));
+    }
+}
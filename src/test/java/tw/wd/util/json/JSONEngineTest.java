@@ -0,0 +1,194 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class JSONEngineTest {
+    private static final String JSON_HAS_OBJECT = "{\"name\":\"Hello\", \"phone\":\"0912345678\", \"id\":102030, \"pl1\":{\"pid\":10001,\"pname\":\"test_project1\"}}";
+
+    @Test
+    public void testToMapWithCustomEngine() {
+        Exception rtnException          = null;
+        Map<String, Object> resultMap   = null;
+        JSONEngine jsonEngine           = JSONEngine.builder()
+                                                    .jsonFactory(new JsonFactory())
+                                                    .initialBufferSize(16)
+                                                    .build();
+
+        try {
+            resultMap = jsonEngine.toMap(JSON_HAS_OBJECT);
+        } catch (Exception e) {
+            rtnException = e;
+        }
+
+        assertThat(rtnException,                                                        is(nullValue()));
+        assertThat((String) resultMap.get("name"),                                      is("Hello"));
+        assertThat((Integer) resultMap.get("id"),                                       is(102030));
+        assertThat((Integer) ((Map<String, Object>) resultMap.get("pl1")).get("pid"),   is(10001));
+    }
+
+    @Test
+    public void testToJSONReusesBufferAcrossCalls() {
+        JSONEngine jsonEngine           = JSONEngine.builder().initialBufferSize(16).build();
+        Map<String, Object> valueMap    = new HashMap<String, Object>();
+        String firstJSON                = null;
+        String secondJSON               = null;
+
+        valueMap.put("name", "Hello");
+        firstJSON   = jsonEngine.toJSON(valueMap);
+
+        valueMap.put("name", "Hi");
+        secondJSON  = jsonEngine.toJSON(valueMap);
+
+        assertThat(firstJSON,   is("{\"name\":\"Hello\"}"));
+        assertThat(secondJSON,  is("{\"name\":\"Hi\"}"));
+    }
+
+    @Test
+    public void testToJSONFromManyThreads() throws Exception {
+        final JSONEngine jsonEngine = JSONEngine.getDefault();
+        final String[] results      = new String[8];
+        Thread[] threads            = new Thread[results.length];
+
+        for (int idx = 0; idx < threads.length; idx++) {
+            final int threadIdx = idx;
+
+            threads[idx] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Map<String, Object> valueMap = new HashMap<String, Object>();
+                    for (int count = 0; count < 1000; count++) {
+                        valueMap.put("id", threadIdx);
+                        results[threadIdx] = jsonEngine.toJSON(valueMap);
+                    }
+                }
+            });
+            threads[idx].start();
+        }
+
+        for (int idx = 0; idx < threads.length; idx++) {
+            threads[idx].join();
+            assertThat(results[idx], is("{\"id\":" + idx + "}"));
+        }
+    }
+
+    @Test
+    public void testSmileRoundTrip() throws Exception {
+        Exception rtnException          = null;
+        Map<String, Object> expectMap   = JSONUtils.toMap(JSON_HAS_OBJECT);
+        JSONEngine jsonEngine           = JSONEngine.builder().dataFormat(DataFormat.SMILE).build();
+        byte[] smileBytes               = jsonEngine.toJSONBytes(expectMap);
+        FieldExtractor fieldExtractor   = FieldExtractor.forFieldNames(new String[] {"id", "name"}, new byte[] {JSONUtils.TYPE_INT, JSONUtils.TYPE_STRING});
+        Object[] fieldValues            = JSONUtils.getFieldValue(smileBytes, fieldExtractor, DataFormat.SMILE);
+
+        try {
+            jsonEngine.toJSON(expectMap);
+        } catch (UnsupportedOperationException e) {
+            rtnException = e;
+        }
+
+        assertThat(smileBytes[0],                                       is((byte) ':'));
+        assertThat(smileBytes.length < JSONUtils.toJSONBytes(expectMap).length, is(true));
+        assertThat(jsonEngine.toMap(smileBytes),                        is(expectMap));
+        assertThat(JSONUtils.toMap(JSONUtils.toJSONBytes(expectMap, DataFormat.SMILE), DataFormat.SMILE), is(expectMap));
+        assertThat((Integer) fieldValues[0],                            is(102030));
+        assertThat((String) fieldValues[1],                             is("Hello"));
+        assertThat(rtnException,                                        is(notNullValue()));
+    }
+
+    @Test
+    public void testTextOnlyMethodsOnBinaryEngine() throws Exception {
+        JSONEngine jsonEngine   = JSONEngine.builder().dataFormat(DataFormat.SMILE).build();
+        byte[] smileBytes       = jsonEngine.toJSONBytes(JSONUtils.toMap(JSON_HAS_OBJECT));
+        int failureCount        = 0;
+
+        try {
+            jsonEngine.toLazyMap(smileBytes);
+        } catch (UnsupportedOperationException e) {
+            failureCount++;
+        }
+        try {
+            jsonEngine.validate(smileBytes, 0, smileBytes.length);
+        } catch (UnsupportedOperationException e) {
+            failureCount++;
+        }
+        try {
+            jsonEngine.isJSONFormat(smileBytes, 0, smileBytes.length);
+        } catch (UnsupportedOperationException e) {
+            failureCount++;
+        }
+
+        assertThat(failureCount, is(3));
+    }
+
+    @Test
+    public void testIsFieldExistChecksTopLevelKeys() throws Exception {
+        JSONEngine jsonEngine   = JSONEngine.getDefault();
+        JSONEngine smileEngine  = JSONEngine.builder().dataFormat(DataFormat.SMILE).build();
+        String longText         = "{\"memo\":\"" + new String(new char[100]).replace('\0', 'x') + "{\\\"id\\\":1}\", \"id\":7, \"t\\u0061g\":\"x\"}";
+        byte[] smileBytes       = smileEngine.toJSONBytes(JSONUtils.toMap(JSON_HAS_OBJECT));
+
+        assertThat(jsonEngine.isFieldExist(JSON_HAS_OBJECT, "name", "id"),                   is(true));
+        assertThat(jsonEngine.isFieldExist(JSON_HAS_OBJECT, "pl1", "id", "id"),              is(true));
+        assertThat(jsonEngine.isFieldExist(JSON_HAS_OBJECT, "pid"),                          is(false));
+        assertThat(jsonEngine.isFieldExist("[{\"id\":1}]", "id"),                            is(false));
+        assertThat(jsonEngine.isFieldExist(longText, "memo", "id", "tag"),                   is(true));
+        assertThat(jsonEngine.isFieldExist(longText.getBytes("UTF-8"), "memo", "id", "tag"), is(true));
+        assertThat(jsonEngine.isFieldExist("{\"memo\":\"\\\"id\\\":1\"}", "id"),              is(false));
+        assertThat(jsonEngine.isFieldExist(new ByteArrayInputStream(JSON_HAS_OBJECT.getBytes("UTF-8")), "phone", "pid"), is(false));
+        assertThat(smileEngine.isFieldExist(smileBytes, "name", "pl1"),                      is(true));
+        assertThat(smileEngine.isFieldExist(smileBytes, "pid"),                              is(false));
+    }
+
+    @Test
+    public void testJSONWithoutSmileOnClasspath() throws Exception {
+        Throwable rtnException  = null;
+        URL[] classPath         = new URL[] {
+                JSONEngine.class.getProtectionDomain().getCodeSource().getLocation(),
+                JsonFactory.class.getProtectionDomain().getCodeSource().getLocation()
+        };
+        URLClassLoader loader   = new URLClassLoader(classPath, ClassLoader.getSystemClassLoader().getParent());
+
+        try {
+            Class<?> utilsClass         = loader.loadClass(JSONUtils.class.getName());
+            Class<?> formatClass        = loader.loadClass(DataFormat.class.getName());
+            Object resultMap            = utilsClass.getMethod("toMap", String.class).invoke(null, "{\"a\":1}");
+            Object smileFormat          = formatClass.getField("SMILE").get(null);
+            Class<?> engineClass        = loader.loadClass(JSONEngine.class.getName());
+
+            assertThat(resultMap.toString(), is("{a=1}"));
+
+            try {
+                engineClass.getMethod("getDefault", formatClass).invoke(null, smileFormat);
+            } catch (InvocationTargetException e) {
+                rtnException = e.getCause();
+            }
+        } finally {
+            loader.close();
+        }
+
+        assertThat(rtnException,                is(instanceOf(IllegalStateException.class)));
+        assertThat(rtnException.getMessage(),   containsString("jackson-dataformat-smile"));
+    }
+
+    @Test(timeout = 10000)
+    public void testSingleFieldOnNonObjectInput() throws Exception {
+        JSONEngine jsonEngine = JSONEngine.getDefault();
+
+        assertThat(jsonEngine.<Integer>getFieldValue(new byte[0], "id", JSONUtils.TYPE_INT),                           is(nullValue()));
+        assertThat(jsonEngine.<Integer>getFieldValue("[{\"id\":1}]".getBytes("UTF-8"), "id", JSONUtils.TYPE_INT),       is(nullValue()));
+        assertThat(jsonEngine.<Integer>getFieldValue(new ByteArrayInputStream(new byte[0]), "id", JSONUtils.TYPE_INT), is(nullValue()));
+        assertThat(jsonEngine.<Integer>getFieldValue("{\"id\":5}".getBytes("UTF-8"), "id", JSONUtils.TYPE_INT),         is(5));
+    }
+}
@@ -0,0 +1,78 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class JSONFeederTest {
+    private static final String JSON_RECORDS = "{\"id\":1,\"name\":\"a}\\\"{\",\"pl\":[{\"pid\":10}]}\n{\"id\":2,\"name\":\"b\"} {\"id\":3,\"name\":\"c\"}";
+
+    @Test
+    public void testFeedByteAtATime() throws Exception {
+        JSONFeeder<Map<String, Object>> jsonFeeder  = JSONFeeder.forMaps();
+        byte[] jsonBytes                            = JSON_RECORDS.getBytes("UTF-8");
+        List<Map<String, Object>> results           = new ArrayList<Map<String, Object>>();
+
+        for (int idx = 0; idx < jsonBytes.length; idx++) {
+            jsonFeeder.feed(jsonBytes, idx, 1);
+
+            for (Map<String, Object> resultMap = jsonFeeder.poll(); resultMap != null; resultMap = jsonFeeder.poll()) {
+                results.add(resultMap);
+            }
+        }
+        jsonFeeder.endOfInput();
+
+        assertThat(results.size(),                      is(3));
+        assertThat((String) results.get(0).get("name"), is("a}\"{"));
+        assertThat((Integer) results.get(2).get("id"),  is(3));
+        assertThat(jsonFeeder.hasPartialValue(),        is(false));
+        assertThat(jsonFeeder.getValueCount(),          is(3L));
+    }
+
+    @Test
+    public void testFeedFields() throws Exception {
+        JSONFeeder<Object[]> jsonFeeder = JSONFeeder.forFields(FieldExtractor.forFieldNames(new String[] {"id"}, new byte[] {JSONUtils.TYPE_INT}));
+        byte[] jsonBytes                = JSON_RECORDS.getBytes("UTF-8");
+        int split                       = JSON_RECORDS.indexOf("{\"id\":2") + 3;
+
+        assertThat(jsonFeeder.feed(ByteBuffer.wrap(jsonBytes, 0, split)),                       is(1));
+        assertThat(jsonFeeder.hasPartialValue(),                                                is(true));
+        assertThat(jsonFeeder.feed(ByteBuffer.wrap(jsonBytes, split, jsonBytes.length - split)), is(2));
+        assertThat((Integer) jsonFeeder.poll()[0],                                              is(1));
+        assertThat((Integer) jsonFeeder.poll()[0],                                              is(2));
+        assertThat((Integer) jsonFeeder.poll()[0],                                              is(3));
+        assertThat(jsonFeeder.poll(),                                                           is(nullValue()));
+    }
+
+    @Test
+    public void testMalformedInput() throws Exception {
+        Exception rtnException                      = null;
+        JSONFeeder<Map<String, Object>> jsonFeeder  = JSONFeeder.forMaps();
+
+        try {
+            jsonFeeder.feed("{\"id\":1,}x{\"id\":2}".getBytes("UTF-8"));
+        } catch (JsonParseException e) {
+            rtnException = e;
+        }
+        assertThat(rtnException,                            is(notNullValue()));
+        assertThat((Integer) jsonFeeder.poll().get("id"),   is(2));
+
+        rtnException = null;
+        jsonFeeder.feed("{\"x\":1}\n{\"id\":".getBytes("UTF-8"));
+        try {
+            jsonFeeder.endOfInput();
+        } catch (JsonParseException e) {
+            rtnException = e;
+        }
+        assertThat(rtnException,                            is(notNullValue()));
+        assertThat(jsonFeeder.hasPartialValue(),            is(false));
+        assertThat(jsonFeeder.getPendingCount(),            is(1));
+        assertThat((Integer) jsonFeeder.poll().get("x"),    is(1));
+    }
+}
@@ -0,0 +1,67 @@
+package tw.wd.util.json;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class JSONQueryTest {
+    private static final String JSON_RECORD = "{\"id\":102030, \"status\":\"ACTIVE\", \"amount\":150.5, \"owner\":{\"name\":\"Hello\"}, \"pl\":[{\"pid\":10001},{\"pid\":10002}], \"memo\":null}";
+
+    @Test
+    public void testConditions() throws Exception {
+        assertThat(JSONQuery.compile("status == \"ACTIVE\" && amount > 100").matches(JSON_RECORD),       is(true));
+        assertThat(JSONQuery.compile("status == \"ACTIVE\" && amount > 200").matches(JSON_RECORD),       is(false));
+        assertThat(JSONQuery.compile("status != \"ACTIVE\" || pl[1].pid >= 10002").matches(JSON_RECORD), is(true));
+        assertThat(JSONQuery.compile("!(owner.name == \"Hello\")").matches(JSON_RECORD),                 is(false));
+        assertThat(JSONQuery.compile("id == 102030 && owner && !memo").matches(JSON_RECORD),             is(true));
+        assertThat(JSONQuery.compile("missing == null && memo == null").matches(JSON_RECORD),            is(true));
+        assertThat(JSONQuery.compile("missing > 1").matches(JSON_RECORD),                                is(false));
+        assertThat(JSONQuery.compile("status < \"B\"").matches(JSON_RECORD),                             is(true));
+        assertThat(JSONQuery.compile("").matches(JSON_RECORD),                                           is(true));
+        assertThat(JSONQuery.compile("a == 2 && b == 3").matches("{\"a\":2,\"a\":2,\"b\":3}"),            is(true));
+    }
+
+    @Test
+    public void testSelect() throws Exception {
+        JSONQuery jsonQuery = JSONQuery.compile("amount > 100", new String[] {"id", "pl[0].pid", "amount"},
+                new byte[] {JSONUtils.TYPE_LONG, JSONUtils.TYPE_INT, JSONUtils.TYPE_STRING});
+        Object[] values     = jsonQuery.select(JSON_RECORD);
+
+        assertThat((Long) values[0],                        is(102030L));
+        assertThat((Integer) values[1],                     is(10001));
+        assertThat((String) values[2],                      is("150.5"));
+        assertThat(jsonQuery.select("{\"amount\":1}"),      is(nullValue()));
+    }
+
+    @Test
+    public void testInvalidQuery() {
+        Exception rtnException = null;
+
+        try {
+            JSONQuery.compile("status == ");
+        } catch (IllegalArgumentException e) {
+            rtnException = e;
+        }
+
+        assertThat(rtnException, is(notNullValue()));
+    }
+
+    @Test
+    public void testFilterRecordStream() throws Exception {
+        String records                      = "{\"id\":1,\"status\":\"ACTIVE\",\"amount\":50}\n"
+                                            + "{\"id\":2,\"status\":\"ACTIVE\",\"amount\":500}\n"
+                                            + "{\"id\":3,\"status\":\"CLOSED\",\"amount\":900}\n"
+                                            + "{\"amount\":700,\"id\":4,\"status\":\"ACTIVE\"}\n";
+        JSONQuery jsonQuery                 = JSONQuery.compile("status == \"ACTIVE\" && amount > 100");
+        ByteArrayOutputStream outputStream  = new ByteArrayOutputStream();
+        long count                          = jsonQuery.filter(new NDJSONReader(new ByteArrayInputStream(records.getBytes("UTF-8"))), outputStream);
+
+        assertThat(count,                           is(2L));
+        assertThat(outputStream.toString("UTF-8"),  is("{\"id\":2,\"status\":\"ACTIVE\",\"amount\":500}\n{\"amount\":700,\"id\":4,\"status\":\"ACTIVE\"}\n"));
+    }
+}
@@ -0,0 +1,54 @@
+package tw.wd.util.json;
+
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class JSONTemplateTest {
+    private static final JSONTemplate USER_TEMPLATE = JSONTemplate.compile("name", "phone", "id");
+
+    @Test
+    public void testPositionalValues() throws Exception {
+        String firstJSON    = JSONUtils.toJSON(USER_TEMPLATE, "Hello", "0912345678", 102030);
+        String secondJSON   = JSONUtils.toJSON(USER_TEMPLATE, "Wo\"rld", null, 1);
+
+        assertThat(firstJSON,   is("{\"name\":\"Hello\",\"phone\":\"0912345678\",\"id\":102030}"));
+        assertThat(secondJSON,  is("{\"name\":\"Wo\\\"rld\",\"phone\":null,\"id\":1}"));
+    }
+
+    @Test
+    public void testMapValues() throws Exception {
+        Map<String, Object> valueMap = new LinkedHashMap<String, Object>();
+
+        valueMap.put("extra",   true);
+        valueMap.put("id",      102030);
+        valueMap.put("name",    "Hello");
+
+        assertThat(JSONUtils.toJSON(USER_TEMPLATE, valueMap), is("{\"name\":\"Hello\",\"id\":102030,\"extra\":true}"));
+    }
+
+    @Test
+    public void testInvalidUse() {
+        Exception countException    = null;
+        Exception nameException     = null;
+
+        try {
+            JSONUtils.toJSON(USER_TEMPLATE, "Hello");
+        } catch (Exception e) {
+            countException = e;
+        }
+        try {
+            JSONTemplate.compile("id", "id");
+        } catch (Exception e) {
+            nameException = e;
+        }
+
+        assertThat(countException instanceof IllegalArgumentException,  is(true));
+        assertThat(nameException instanceof IllegalArgumentException,   is(true));
+    }
+}
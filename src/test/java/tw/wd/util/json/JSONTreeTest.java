@@ -0,0 +1,62 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.*;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class JSONTreeTest {
+    private static final String JSON_HAS_OBJECT_AND_OBJECT_ARRAY = "{\"name\":\"Hello\", \"id\":102030, \"score\":1.5, \"active\":true, \"memo\":null, \"pl\":[{\"pid\":10001,\"status\":\"ACTIVE\"},{\"pid\":10002,\"status\":\"ACTIVE\"}], \"empty\":{}}";
+
+    @Test
+    public void testNavigation() throws Exception {
+        JSONTree jsonTree   = JSONUtils.toTree(JSON_HAS_OBJECT_AND_OBJECT_ARRAY);
+        int root            = jsonTree.getRoot();
+        int pl              = jsonTree.getChild(root, "pl");
+        int second          = jsonTree.getElement(pl, 1);
+
+        assertThat(jsonTree.getType(root),                              is(JSONTree.TYPE_OBJECT));
+        assertThat(jsonTree.getSize(root),                              is(7));
+        assertThat(jsonTree.getString(jsonTree.getChild(root, "name")), is("Hello"));
+        assertThat(jsonTree.getLong(jsonTree.getChild(root, "id")),     is(102030L));
+        assertThat(jsonTree.getDouble(jsonTree.getChild(root, "score")), is(1.5));
+        assertThat(jsonTree.getBoolean(jsonTree.getChild(root, "active")), is(true));
+        assertThat(jsonTree.isNull(jsonTree.getChild(root, "memo")),    is(true));
+        assertThat(jsonTree.getSize(pl),                                is(2));
+        assertThat(jsonTree.getInt(jsonTree.getChild(second, "pid")),   is(10002));
+        assertThat(jsonTree.find(root, "pl"),                           is(pl));
+        assertThat(jsonTree.getName(second),                            is(nullValue()));
+        assertThat(jsonTree.getParent(second),                          is(pl));
+        assertThat(jsonTree.getChild(root, "missing"),                  is(-1));
+        assertThat(jsonTree.getElement(pl, 2),                          is(-1));
+        assertThat(jsonTree.getFirstChild(jsonTree.getChild(root, "empty")), is(-1));
+
+        List<String> names = new ArrayList<String>();
+        for (int node = jsonTree.getFirstChild(root); node >= 0; node = jsonTree.getNextSibling(node)) {
+            names.add(jsonTree.getName(node));
+        }
+        assertThat(names, is(Arrays.asList("name", "id", "score", "active", "memo", "pl", "empty")));
+    }
+
+    @Test
+    public void testConversion() throws Exception {
+        Map<String, Object> expectMap   = JSONUtils.toMap(JSON_HAS_OBJECT_AND_OBJECT_ARRAY);
+        JSONTree jsonTree               = JSONUtils.toTree(JSON_HAS_OBJECT_AND_OBJECT_ARRAY);
+        JSONTree mapTree                = JSONTree.fromValue(expectMap);
+        StringWriter writer             = new StringWriter();
+        JsonGenerator jsonGenerator     = JSONEngine.getDefault().getJsonFactory().createGenerator(writer);
+
+        jsonTree.write(jsonGenerator);
+        jsonGenerator.close();
+
+        assertThat(jsonTree.toMap(),                                is(expectMap));
+        assertThat(mapTree.toMap(),                                 is(expectMap));
+        assertThat(JSONUtils.toMap(writer.toString()),              is(expectMap));
+        assertThat(JSONUtils.toTree("[1,9999999999,\"a\"]").toValue(0), is((Object) Arrays.<Object>asList(1, 9999999999L, "a")));
+    }
+}
@@ -1,8 +1,17 @@
 package tw.wd.util.json;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParseException;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -203,4 +212,143 @@ public class JSONUtilsTest {
         assertThat(text2Result,     is(false));
         assertThat(text3Result,     is(false));
     }
+
+    @Test
+    public void testToMapWithByteInputs() {
+        Exception rtnException          = null;
+        byte[] jsonBytes                = ("  " + JSON_HAS_OBJECT + "  ").getBytes(Charset.forName("UTF-8"));
+        ByteBuffer directBuffer         = ByteBuffer.allocateDirect(jsonBytes.length);
+        Map<String, Object> bytesMap    = null;
+        Map<String, Object> streamMap   = null;
+        Map<String, Object> heapMap     = null;
+        Map<String, Object> directMap   = null;
+
+        directBuffer.put(jsonBytes).flip();
+
+        try {
+            bytesMap    = JSONUtils.toMap(jsonBytes, 2, jsonBytes.length - 4);
+            streamMap   = JSONUtils.toMap(new ByteArrayInputStream(jsonBytes));
+            heapMap     = JSONUtils.toMap(ByteBuffer.wrap(jsonBytes, 2, jsonBytes.length - 4).slice());
+            directMap   = JSONUtils.toMap(directBuffer);
+        } catch (Exception e) {
+            rtnException = e;
+        }
+
+        assertThat(rtnException,                                                        is(nullValue()));
+        assertThat((String) bytesMap.get("name"),                                       is("Hello"));
+        assertThat((Integer) ((Map<String, Object>) streamMap.get("pl1")).get("pid"),   is(10001));
+        assertThat((String) heapMap.get("phone"),                                       is("0912345678"));
+        assertThat((Integer) directMap.get("id"),                                       is(102030));
+        assertThat(directBuffer.position(),                                             is(0));
+    }
+
+    @Test
+    public void testGetFieldValueWithByteInputs() {
+        Exception rtnException  = null;
+        byte[] jsonBytes        = "{\"gul\":[\"gu001\",\"gu002\",\"gu003\"], \"id\":102030}".getBytes(Charset.forName("UTF-8"));
+        String[] groupUsers     = null;
+        Object[] values         = null;
+        boolean isExist         = false;
+        boolean isFormat        = false;
+
+        try {
+            groupUsers  = JSONUtils.getFieldValue(ByteBuffer.wrap(jsonBytes), "gul", JSONUtils.TYPE_ARRAY_STRING);
+            values      = JSONUtils.getFieldValue(new ByteArrayInputStream(jsonBytes), new String[]{"id"}, new byte[]{JSONUtils.TYPE_LONG});
+            isExist     = JSONUtils.isFieldExist(jsonBytes, "gul", "id");
+            isFormat    = JSONUtils.isJSONFormat(jsonBytes, 0, jsonBytes.length);
+        } catch (Exception e) {
+            rtnException = e;
+        }
+
+        assertThat(rtnException,        is(nullValue()));
+        assertThat(groupUsers.length,   is(3));
+        assertThat(groupUsers[2],       is("gu003"));
+        assertThat((Long) values[0],    is(102030L));
+        assertThat(isExist,             is(true));
+        assertThat(isFormat,            is(true));
+    }
+
+    @Test
+    public void testToJSONWithStreamingTargets() {
+        Exception rtnException              = null;
+        Map<String, Object> valueMap        = new LinkedHashMap<String, Object>();
+        ByteArrayOutputStream outputStream  = new ByteArrayOutputStream();
+        StringWriter writer                 = new StringWriter();
+        ByteBuffer smallBuffer              = ByteBuffer.allocate(4);
+        ByteBuffer resultBuffer             = null;
+        byte[] jsonBytes                    = null;
+        String expectedJSON                 = "{\"name\":\"Hello\",\"id\":102030}";
+
+        valueMap.put("name",    "Hello");
+        valueMap.put("id",      102030);
+        smallBuffer.put((byte) '[');
+
+        try {
+            jsonBytes = JSONUtils.toJSONBytes(valueMap);
+            JSONUtils.toJSON(valueMap, outputStream);
+            JSONUtils.toJSON(valueMap, writer);
+            resultBuffer = JSONUtils.toJSON(valueMap, smallBuffer);
+        } catch (Exception e) {
+            rtnException = e;
+        }
+
+        resultBuffer.flip();
+        byte[] bufferBytes = new byte[resultBuffer.remaining()];
+        resultBuffer.get(bufferBytes);
+
+        assertThat(rtnException,                                        is(nullValue()));
+        assertThat(new String(jsonBytes, Charset.forName("UTF-8")),     is(expectedJSON));
+        assertThat(new String(outputStream.toByteArray(), Charset.forName("UTF-8")), is(expectedJSON));
+        assertThat(writer.toString(),                                   is(expectedJSON));
+        assertThat(new String(bufferBytes, Charset.forName("UTF-8")),   is("[" + expectedJSON));
+    }
+
+    @Test
+    public void testToJSONWithNestedValues() {
+        Map<String, Object> valueMap    = new LinkedHashMap<String, Object>();
+        Map<String, Object> projectMap  = new LinkedHashMap<String, Object>();
+        Map<String, Object> ownerMap    = new LinkedHashMap<String, Object>();
+        List<Object> projectList        = new ArrayList<Object>();
+
+        ownerMap.put("uid",         7);
+        projectMap.put("pid",       10001);
+        projectMap.put("owner",     ownerMap);
+        projectList.add(projectMap);
+        projectList.add(new Project(10002, "test_project2"));
+        valueMap.put("name",        "Hello");
+        valueMap.put("pl1",         projectMap);
+        valueMap.put("pl",          projectList);
+
+        assertThat(JSONUtils.toJSON(valueMap), is("{\"name\":\"Hello\","
+                + "\"pl1\":{\"pid\":10001,\"owner\":{\"uid\":7}},"
+                + "\"pl\":[{\"pid\":10001,\"owner\":{\"uid\":7}},{\"pid\":10002,\"pname\":\"test_project2\"}]}"));
+    }
+
+    private static class Project implements JSONUtils.JSONTranslatable {
+        private final int pid;
+        private final String pname;
+
+        private Project(int pid, String pname) {
+            this.pid    = pid;
+            this.pname  = pname;
+        }
+
+        @Override
+        public String toJSON() {
+            throw new UnsupportedOperationException("Project is streamed by writeJSON");
+        }
+
+        @Override
+        public <T> T fromJSON(String jsonText) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void writeJSON(JsonGenerator jsonGenerator) throws IOException {
+            jsonGenerator.writeStartObject();
+            jsonGenerator.writeNumberField("pid", pid);
+            jsonGenerator.writeStringField("pname", pname);
+            jsonGenerator.writeEndObject();
+        }
+    }
 }
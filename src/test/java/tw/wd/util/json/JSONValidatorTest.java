@@ -0,0 +1,66 @@
+package tw.wd.util.json;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class JSONValidatorTest {
+    private static final String JSON_HAS_OBJECT_ARRAY = "{\"name\":\"Hello\", \"phone\":\"0912345678\", \"id\":102030, \"pl\":[{\"pid\":10001,\"pname\":\"test_project1\"},{\"pid\":-1.5e3,\"pname\":\"\\u00e4\\n\",\"ok\":true,\"x\":null}]}";
+
+    @Test
+    public void testValidDocuments() {
+        JSONValidator validator = JSONValidator.getDefault();
+
+        assertThat(validator.validate(JSON_HAS_OBJECT_ARRAY).isValid(),  is(true));
+        assertThat(validator.validate(" [] ").isValid(),                 is(true));
+        assertThat(validator.validate("{}").isValid(),                   is(true));
+        assertThat(validator.validate("\"text\"").isValid(),             is(true));
+        assertThat(validator.validate("0").isValid(),                    is(true));
+        assertThat(validator.validate("{\"名\":\"值\"}").isValid(),      is(true));
+    }
+
+    @Test
+    public void testInvalidDocuments() {
+        JSONValidator validator = JSONValidator.getDefault();
+
+        assertThat(validator.validate("").getReason(),                      is("Empty document"));
+        assertThat(validator.validate("{\"a\":[\"A\"]").getReason(),        is("Unclosed object or array"));
+        assertThat(validator.validate("{\"a\":[\"A\"}").getErrorOffset(),   is(9));
+        assertThat(validator.validate("{\"a\":01}").getReason(),            is("Expected ',' or '}'"));
+        assertThat(validator.validate("{\"a\":1.}").getReason(),            is("Malformed number"));
+        assertThat(validator.validate("{\"a\":tru}").getReason(),           is("Unknown literal"));
+        assertThat(validator.validate("{a:1}").getReason(),                 is("Expected field name"));
+        assertThat(validator.validate("[1,]").getErrorOffset(),             is(3));
+        assertThat(validator.validate("\"a\\x\"").getReason(),              is("Malformed string"));
+        assertThat(validator.validate("\"a\tb\"").getReason(),              is("Malformed string"));
+        assertThat(validator.validate("{} {}").getReason(),                 is("Unexpected content after root value"));
+        assertThat(validator.validate(new byte[]{'"', (byte) 0xC3, '"'}).isValid(), is(false));
+    }
+
+    @Test
+    public void testLimits() {
+        JSONValidator validator = JSONValidator.builder()
+                                               .maxDepth(70)
+                                               .maxDocumentSize(400)
+                                               .maxStringLength(4)
+                                               .build();
+        StringBuilder deepText  = new StringBuilder();
+
+        for (int idx = 0; idx < 70; idx++) {
+            deepText.append(idx % 2 == 0 ? "[" : "{\"k\":");
+        }
+        deepText.append('0');
+        for (int idx = 69; idx >= 0; idx--) {
+            deepText.append(idx % 2 == 0 ? "]" : "}");
+        }
+
+        assertThat(validator.validate(deepText.toString()).isValid(),                   is(true));
+        assertThat(validator.validate("[" + deepText + "]").getReason(),                is("Nesting deeper than 70"));
+        assertThat(validator.validate("[" + deepText + "]").getErrorOffset(),           is(1 + 35 + 34 * 5));
+        assertThat(validator.validate("[\"abcd\",\"abcde\"]").getReason(),              is("String longer than 4 bytes"));
+        assertThat(validator.validate("{\"abcde\":1}").getReason(),                     is("Field name longer than 4 bytes"));
+        assertThat(validator.validate(new String(new char[401]).replace('\0', ' ')).isValid(), is(false));
+    }
+}
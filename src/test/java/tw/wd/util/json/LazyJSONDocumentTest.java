@@ -0,0 +1,84 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class LazyJSONDocumentTest {
+    private static final String JSON_HAS_OBJECT_AND_OBJECT_ARRAY = "{\"name\":\"Hello\", \"phone\":\"0912345678\", \"id\":102030, \"ts\":1600000000000, \"plo\":{\"pid\":10001,\"pname\":\"test_project1\"}, \"pl\":[{\"pid\":10001,\"pname\":\"test_project1\"},{\"pid\":10002,\"pname\":\"test_project2\"}]}";
+
+    @Test
+    public void testGetMatchesToMap() throws Exception {
+        LazyJSONDocument document       = JSONUtils.toLazyMap(JSON_HAS_OBJECT_AND_OBJECT_ARRAY);
+        Map<String, Object> resultMap   = JSONUtils.toMap(JSON_HAS_OBJECT_AND_OBJECT_ARRAY);
+        List<Object> resultList         = (List<Object>) document.get("pl");
+
+        assertThat(document.size(),                                                     is(6));
+        assertThat((String) document.get("name"),                                       is("Hello"));
+        assertThat((Integer) document.get("id"),                                        is(102030));
+        assertThat((Long) document.get("ts"),                                           is(1600000000000L));
+        assertThat((Integer) ((Map<String, Object>) document.get("plo")).get("pid"),    is(10001));
+        assertThat((String) ((Map<String, Object>) resultList.get(1)).get("pname"),     is("test_project2"));
+        assertThat(document.get("missing"),                                             is(nullValue()));
+        assertThat(document.equals(resultMap),                                          is(true));
+    }
+
+    @Test
+    public void testEscapedAndDuplicateKeys() throws Exception {
+        LazyJSONDocument document = JSONUtils.toLazyMap("{\"a\\u0062\":\"x\\ny\", \"n\\u00e4me\":\"ä\", \"k\":1, \"k\":2}");
+
+        assertThat(document.size(),                 is(3));
+        assertThat((String) document.get("ab"),     is("x\ny"));
+        assertThat((String) document.get("näme"), is("ä"));
+        assertThat((Integer) document.get("k"),     is(2));
+        assertThat(document.containsKey("k"),       is(true));
+    }
+
+    @Test
+    public void testPutMaterializesDocument() throws Exception {
+        LazyJSONDocument document = JSONUtils.toLazyMap("{\"a\":1,\"b\":[1,2]}");
+
+        document.put("c", "added");
+        document.remove("a");
+
+        assertThat(document.size(),             is(2));
+        assertThat((String) document.get("c"),  is("added"));
+        assertThat(document.containsKey("a"),   is(false));
+        assertThat(((List<Object>) document.get("b")).size(), is(2));
+    }
+
+    @Test
+    public void testRootMustBeObject() {
+        Exception rtnException = null;
+
+        try {
+            JSONUtils.toLazyMap("[1,2]");
+        } catch (Exception e) {
+            rtnException = e;
+        }
+
+        assertThat(rtnException instanceof JsonParseException, is(true));
+    }
+
+    @Test
+    public void testPrimitiveAccessors() throws Exception {
+        LazyJSONDocument document = JSONUtils.toLazyMap("{\"id\":-102030, \"ts\":1600000000000, \"rate\":1.25, \"big\":12345678901234567890, \"name\":\"Hello\"}");
+
+        assertThat(document.getLong("id", 0),           is(-102030L));
+        assertThat(document.getLong("ts", 0),           is(1600000000000L));
+        assertThat(document.getLong("rate", 0),         is(1L));
+        assertThat(document.getLong("big", 0),          is(new BigInteger("12345678901234567890").longValue()));
+        assertThat(document.getLong("name", -1),        is(-1L));
+        assertThat(document.getLong("missing", -1),     is(-1L));
+        assertThat(document.getDouble("rate", 0),       is(1.25));
+        assertThat(document.getDouble("id", 0),         is(-102030.0));
+        assertThat(document.getDouble("name", -1),      is(-1.0));
+    }
+}
@@ -0,0 +1,71 @@
+package tw.wd.util.json;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class MapReaderTest {
+    private static final String JSON_HAS_OBJECT_AND_OBJECT_ARRAY = "{\"name\":\"Hello\", \"phone\":\"0912345678\", \"id\":102030, \"status\":\"ACTIVE\", \"pl\":[{\"pid\":10001,\"status\":\"ACTIVE\"},{\"pid\":10002,\"status\":\"CLOSED\"}]}";
+
+    @Test
+    public void testDedupSharesStringValues() throws Exception {
+        JSONEngine jsonEngine           = JSONEngine.builder().stringDedupTable(new StringDedupTable(64, 8)).build();
+        Map<String, Object> firstMap    = jsonEngine.toMap(JSON_HAS_OBJECT_AND_OBJECT_ARRAY);
+        Map<String, Object> secondMap   = jsonEngine.toMap(JSON_HAS_OBJECT_AND_OBJECT_ARRAY);
+        List<Object> resultList         = (List<Object>) firstMap.get("pl");
+
+        assertThat(firstMap.get("status") == secondMap.get("status"),                           is(true));
+        assertThat(firstMap.get("status") == ((Map<String, Object>) resultList.get(0)).get("status"), is(true));
+        assertThat(firstMap.get("phone") == secondMap.get("phone"),                             is(false));
+        assertThat(firstMap.equals(JSONUtils.toMap(JSON_HAS_OBJECT_AND_OBJECT_ARRAY)),          is(true));
+    }
+
+    @Test
+    public void testCompactMaps() throws Exception {
+        JSONEngine jsonEngine           = JSONEngine.builder().compactMaps(true).build();
+        Map<String, Object> resultMap   = jsonEngine.toMap(JSON_HAS_OBJECT_AND_OBJECT_ARRAY);
+        Map<String, Object> largeMap    = jsonEngine.toMap("{\"a\":1,\"b\":2,\"c\":3,\"d\":4,\"e\":5,\"f\":6,\"g\":7,\"h\":8,\"i\":9}");
+
+        assertThat(resultMap instanceof CompactMap,                                     is(true));
+        assertThat(new ArrayList<String>(resultMap.keySet()),                           is(Arrays.asList("name", "phone", "id", "status", "pl")));
+        assertThat(resultMap.equals(JSONUtils.toMap(JSON_HAS_OBJECT_AND_OBJECT_ARRAY)), is(true));
+        assertThat(resultMap.hashCode(),                                                is(JSONUtils.toMap(JSON_HAS_OBJECT_AND_OBJECT_ARRAY).hashCode()));
+        assertThat(largeMap instanceof HashMap,                                         is(true));
+        assertThat((Integer) largeMap.get("i"),                                         is(9));
+
+        resultMap.put("id", 1);
+        resultMap.remove("phone");
+        Iterator<Map.Entry<String, Object>> iter = resultMap.entrySet().iterator();
+        iter.next();
+        iter.remove();
+
+        assertThat(resultMap.size(),                is(3));
+        assertThat((Integer) resultMap.get("id"),   is(1));
+        assertThat(resultMap.containsKey("name"),   is(false));
+    }
+
+    @Test
+    public void testNumberPolicies() throws Exception {
+        String jsonText                 = "{\"id\":102030, \"ts\":1600000000000, \"big\":12345678901234567890, \"rate\":0.1}";
+        Map<String, Object> compactMap  = JSONUtils.toMap(jsonText);
+        Map<String, Object> naturalMap  = JSONEngine.builder().numberPolicy(NumberPolicy.NATURAL).build().toMap(jsonText);
+        Map<String, Object> longMap     = JSONEngine.builder().numberPolicy(NumberPolicy.ALWAYS_LONG).build().toMap(jsonText);
+        Map<String, Object> exactMap    = JSONEngine.builder().numberPolicy(NumberPolicy.EXACT_DECIMAL).build().toMap(jsonText);
+
+        assertThat(compactMap.get("id"),    is((Object) 102030));
+        assertThat(compactMap.get("ts"),    is((Object) 1600000000000L));
+        assertThat(compactMap.get("big"),   is((Object) new BigInteger("12345678901234567890")));
+        assertThat(compactMap.get("rate"),  is((Object) 0.1f));
+        assertThat(naturalMap.get("id"),    is((Object) 102030));
+        assertThat(naturalMap.get("rate"),  is((Object) 0.1));
+        assertThat(longMap.get("id"),       is((Object) 102030L));
+        assertThat(longMap.get("big"),      is((Object) new BigInteger("12345678901234567890")));
+        assertThat(exactMap.get("rate"),    is((Object) new BigDecimal("0.1")));
+    }
+}
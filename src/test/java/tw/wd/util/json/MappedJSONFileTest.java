@@ -0,0 +1,130 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class MappedJSONFileTest {
+
+    @Test
+    public void testNDJSONAcrossWindows() throws Exception {
+        StringBuilder ndjsonText = new StringBuilder();
+        for (int idx = 0; idx < 200; idx++) {
+            ndjsonText.append("{\"id\":").append(idx).append(",\"name\":\"doc").append(idx).append("\"}\n");
+            if (idx % 10 == 0) {
+                ndjsonText.append("\r\n");
+            }
+        }
+
+        MappedJSONFile mappedFile   = MappedJSONFile.open(createFile(ndjsonText.toString()).toPath(), JSONEngine.getDefault(), 64);
+        int count                   = 0;
+        Map<String, Object> resultMap;
+
+        while ((resultMap = mappedFile.nextMap()) != null) {
+            assertThat((Integer) resultMap.get("id"), is(count));
+            count++;
+        }
+
+        assertThat(mappedFile.isArray(),    is(false));
+        assertThat(count,                   is(200));
+
+        mappedFile.close();
+    }
+
+    @Test
+    public void testArrayRecords() throws Exception {
+        String jsonText = " [ {\"id\":1,\"tags\":[\"a\",\"]\"],\"pl\":{\"pid\":10001}},\n"
+                + "{\"id\":2,\"name\":\"x\\\"}\"} , {\"id\":3} ] ";
+
+        MappedJSONFile mappedFile       = MappedJSONFile.open(createFile(jsonText).toPath(), JSONEngine.getDefault(), 48);
+        FieldExtractor fieldExtractor   = FieldExtractor.compile("pl.pid", JSONUtils.TYPE_INT);
+
+        Object[] firstValues            = mappedFile.nextFields(fieldExtractor);
+        Map<String, Object> secondMap   = mappedFile.nextMap();
+        boolean hasThird                = mappedFile.next();
+        LazyJSONDocument thirdDocument  = mappedFile.toLazyMap();
+
+        assertThat(mappedFile.isArray(),                is(true));
+        assertThat((Integer) firstValues[0],            is(10001));
+        assertThat((String) secondMap.get("name"),      is("x\"}"));
+        assertThat(hasThird,                            is(true));
+        assertThat((Integer) thirdDocument.get("id"),   is(3));
+        assertThat(mappedFile.next(),                   is(false));
+
+        mappedFile.close();
+    }
+
+    @Test
+    public void testEmptyArrayAndEmptyFile() throws Exception {
+        MappedJSONFile emptyArray   = MappedJSONFile.open(createFile("[ ]").toPath());
+        MappedJSONFile emptyFile    = MappedJSONFile.open(createFile("").toPath());
+
+        assertThat(emptyArray.next(),   is(false));
+        assertThat(emptyFile.next(),    is(false));
+
+        emptyArray.close();
+        emptyFile.close();
+    }
+
+    @Test
+    public void testRecordLargerThanWindow() throws Exception {
+        MappedJSONFile mappedFile   = MappedJSONFile.open(createFile("[{\"id\":1},{\"name\":\"a long record value\"}]").toPath(), JSONEngine.getDefault(), 16);
+        Exception rtnException      = null;
+
+        assertThat(mappedFile.next(), is(true));
+        try {
+            mappedFile.next();
+        } catch (JsonParseException e) {
+            rtnException = e;
+        }
+
+        assertThat(rtnException, is(notNullValue()));
+
+        mappedFile.close();
+    }
+
+    @Test
+    public void testContentAfterArray() throws Exception {
+        MappedJSONFile arrayLines   = MappedJSONFile.open(createFile("[1,2]\n[3,4]").toPath());
+        MappedJSONFile trailing     = MappedJSONFile.open(createFile("[1,2]" + new String(new char[40]).replace('\0', ' ') + "\n").toPath(), JSONEngine.getDefault(), 16);
+        Exception rtnException      = null;
+
+        assertThat(arrayLines.next(),   is(true));
+        assertThat(arrayLines.next(),   is(true));
+        try {
+            arrayLines.next();
+        } catch (JsonParseException e) {
+            rtnException = e;
+        }
+
+        assertThat(rtnException,        is(notNullValue()));
+        assertThat(trailing.next(),     is(true));
+        assertThat(trailing.next(),     is(true));
+        assertThat(trailing.next(),     is(false));
+
+        arrayLines.close();
+        trailing.close();
+    }
+
+    private static File createFile(String text) throws IOException {
+        File file = File.createTempFile("mapped", ".json");
+        file.deleteOnExit();
+
+        OutputStream outputStream = new FileOutputStream(file);
+        try {
+            outputStream.write(text.getBytes(ReusableByteArrayOutputStream.UTF_8));
+        } finally {
+            outputStream.close();
+        }
+        return file;
+    }
+}
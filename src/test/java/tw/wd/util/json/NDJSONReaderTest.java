@@ -0,0 +1,120 @@
+package tw.wd.util.json;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class NDJSONReaderTest {
+    private static final String NDJSON_TEXT = "{\"id\":1,\"name\":\"a\",\"pl\":{\"pid\":10001}}\n"
+            + "\n"
+            + "  {\"id\":2,\"name\":\"b\"}\r\n"
+            + "{\"id\":3,\"name\":\"c\",\"pl\":{\"pid\":10003}}";
+
+    @Test
+    public void testNextMap() throws Exception {
+        NDJSONReader reader = new NDJSONReader(toStream(NDJSON_TEXT));
+
+        Map<String, Object> firstMap    = reader.nextMap();
+        long firstLine                  = reader.getLineNumber();
+        Map<String, Object> secondMap   = reader.nextMap();
+        long secondLine                 = reader.getLineNumber();
+        Map<String, Object> thirdMap    = reader.nextMap();
+
+        assertThat((Integer) firstMap.get("id"),    is(1));
+        assertThat(firstLine,                       is(1L));
+        assertThat((String) secondMap.get("name"),  is("b"));
+        assertThat(secondLine,                      is(3L));
+        assertThat((Integer) thirdMap.get("id"),    is(3));
+        assertThat(reader.nextMap(),                is(nullValue()));
+        assertThat(reader.next(),                   is(false));
+
+        reader.close();
+    }
+
+    @Test
+    public void testNextFieldsAndLazyMap() throws Exception {
+        NDJSONReader reader             = new NDJSONReader(toStream(NDJSON_TEXT));
+        FieldExtractor fieldExtractor   = FieldExtractor.compile(new String[]{"id", "pl.pid"}, new byte[]{JSONUtils.TYPE_INT, JSONUtils.TYPE_INT});
+        Object[] values                 = new Object[2];
+
+        Object[] firstValues            = reader.nextFields(fieldExtractor);
+        LazyJSONDocument document       = reader.nextLazyMap();
+        reader.next();
+        boolean isResolved              = reader.getFieldValue(fieldExtractor, values);
+
+        assertThat((Integer) firstValues[0],        is(1));
+        assertThat((Integer) firstValues[1],        is(10001));
+        assertThat((String) document.get("name"),   is("b"));
+        assertThat(isResolved,                      is(true));
+        assertThat((Integer) values[1],             is(10003));
+
+        reader.close();
+    }
+
+    @Test
+    public void testRecordsAcrossBufferRefills() throws Exception {
+        StringBuilder ndjsonText = new StringBuilder();
+        for (int idx = 0; idx < 500; idx++) {
+            ndjsonText.append("{\"id\":").append(idx).append(",\"padding\":\"");
+            for (int pad = 0; pad < idx % 50; pad++) {
+                ndjsonText.append("xxxxxxxxxx");
+            }
+            ndjsonText.append("\"}\n");
+        }
+
+        NDJSONReader reader = new NDJSONReader(new TrickleInputStream(toStream(ndjsonText.toString())));
+        int count           = 0;
+        boolean isInOrder   = true;
+        Map<String, Object> resultMap;
+
+        while ((resultMap = reader.nextMap()) != null) {
+            isInOrder &= ((Integer) resultMap.get("id")) == count;
+            count++;
+        }
+
+        assertThat(count,       is(500));
+        assertThat(isInOrder,   is(true));
+
+        reader.close();
+    }
+
+    @Test
+    public void testRecordWithoutNext() throws Exception {
+        NDJSONReader reader     = new NDJSONReader(toStream(NDJSON_TEXT));
+        Exception rtnException  = null;
+
+        try {
+            reader.toMap();
+        } catch (IllegalStateException e) {
+            rtnException = e;
+        }
+
+        assertThat(rtnException, is(notNullValue()));
+    }
+
+    private static InputStream toStream(String text) {
+        return new ByteArrayInputStream(text.getBytes(ReusableByteArrayOutputStream.UTF_8));
+    }
+
+    /**
+     * Returns at most 100 bytes per read, so records straddle the reader's buffer.
+     */
+    private static class TrickleInputStream extends FilterInputStream {
+        private TrickleInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, 100));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package tw.wd.util.json;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class ObjectBinderTest {
+
+    private enum Status {
+        ACTIVE, CLOSED
+    }
+
+    private static class Owner {
+        private int uid;
+        private String name;
+    }
+
+    private static class Entity {
+        protected long id;
+    }
+
+    private static class Project extends Entity implements JSONUtils.JSONTranslatable {
+        private int pid;
+        private String pname;
+        private boolean active;
+        private double score;
+        private Integer rank;
+        private Status status;
+        private int[] milestones;
+        private Owner owner;
+        private List<Owner> members;
+        private Map<String, Owner> roles;
+        private transient String cached = "cached";
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Project project     = createProject();
+        String jsonText     = JSONUtils.toJSON(project);
+        Project resultObj   = JSONUtils.toObject(jsonText, Project.class);
+
+        assertThat(jsonText.contains("cached"),         is(false));
+        assertThat(resultObj.id,                        is(7L));
+        assertThat(resultObj.pid,                       is(10001));
+        assertThat(resultObj.pname,                     is("test_project1"));
+        assertThat(resultObj.active,                    is(true));
+        assertThat(resultObj.score,                     is(0.5));
+        assertThat(resultObj.rank,                      is(nullValue()));
+        assertThat(resultObj.status,                    is(Status.CLOSED));
+        assertThat(resultObj.milestones,                is(new int[]{1, 2, 3}));
+        assertThat(resultObj.owner.name,                is("owner"));
+        assertThat(resultObj.members.get(1).uid,        is(3));
+        assertThat(resultObj.roles.get("admin").name,   is("admin"));
+    }
+
+    @Test
+    public void testReadSkipsUnknownFields() throws Exception {
+        Owner owner = JSONUtils.toObject("{\"uid\":5,\"extra\":{\"a\":[1,{\"b\":2}]},\"name\":\"n\"}", Owner.class);
+
+        assertThat(owner.uid,   is(5));
+        assertThat(owner.name,  is("n"));
+    }
+
+    @Test
+    public void testTranslatableDefaults() throws Exception {
+        Project project             = createProject();
+        Map<String, Object> valueMap = new HashMap<String, Object>();
+
+        valueMap.put("project", project);
+
+        Map<String, Object> resultMap   = JSONUtils.toMap(JSONUtils.toJSON(valueMap));
+        Project resultObj               = new Project().fromJSON(project.toJSON());
+
+        assertThat((Integer) ((Map<String, Object>) resultMap.get("project")).get("pid"), is(10001));
+        assertThat(resultObj.members.size(), is(2));
+    }
+
+    @Test
+    public void testBeansInsideContainers() throws Exception {
+        Owner owner = new Owner();
+        owner.uid   = 1;
+        owner.name  = "a";
+
+        List<Object> valueList = new ArrayList<Object>();
+        valueList.add(owner);
+        valueList.add(Collections.singletonMap("o", owner));
+
+        assertThat(JSONUtils.toJSON(valueList), is("[{\"uid\":1,\"name\":\"a\"},{\"o\":{\"uid\":1,\"name\":\"a\"}}]"));
+    }
+
+    @Test
+    public void testRegisteredWriterTakesPrecedence() throws Exception {
+        JSONEngine jsonEngine = JSONEngine.builder().valueWriterRegistry(new ValueWriterRegistry()).build();
+        jsonEngine.getValueWriterRegistry().register(Owner.class, new ValueWriter<Owner>() {
+            @Override
+            public void write(com.fasterxml.jackson.core.JsonGenerator jsonGenerator, Owner value, ValueWriterRegistry registry) throws java.io.IOException {
+                jsonGenerator.writeString(value.name);
+            }
+        });
+
+        Owner owner = new Owner();
+        owner.name  = "custom";
+
+        assertThat(jsonEngine.toJSON((Object) owner), is("\"custom\""));
+    }
+
+    private static Project createProject() {
+        Project project     = new Project();
+        Owner owner         = new Owner();
+        Owner member        = new Owner();
+        Owner admin         = new Owner();
+
+        owner.uid           = 1;
+        owner.name          = "owner";
+        member.uid          = 3;
+        admin.name          = "admin";
+
+        project.id          = 7L;
+        project.pid         = 10001;
+        project.pname       = "test_project1";
+        project.active      = true;
+        project.score       = 0.5;
+        project.status      = Status.CLOSED;
+        project.milestones  = new int[]{1, 2, 3};
+        project.owner       = owner;
+        project.members     = Arrays.asList(owner, member);
+        project.roles       = Collections.singletonMap("admin", admin);
+        return project;
+    }
+}
@@ -0,0 +1,84 @@
+package tw.wd.util.json;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class ParseCacheTest {
+    private static final String JSON_HAS_OBJECT_AND_OBJECT_ARRAY = "{\"name\":\"Hello\", \"id\":102030, \"pl\":[{\"pid\":10001,\"status\":\"ACTIVE\"},{\"pid\":10002,\"status\":\"CLOSED\"}]}";
+
+    @Test
+    public void testCachedMapsAreSharedAndImmutable() throws Exception {
+        Exception rtnException          = null;
+        ParseCache parseCache           = new ParseCache();
+        JSONEngine jsonEngine           = JSONEngine.builder().parseCache(parseCache).build();
+        Map<String, Object> firstMap    = jsonEngine.toMap(JSON_HAS_OBJECT_AND_OBJECT_ARRAY);
+        Map<String, Object> secondMap   = jsonEngine.toMap(JSON_HAS_OBJECT_AND_OBJECT_ARRAY.getBytes("UTF-8"));
+        Map<String, Object> otherMap    = jsonEngine.toMap("{\"id\":1}");
+
+        try {
+            ((Map<String, Object>) ((List<Object>) firstMap.get("pl")).get(0)).put("pid", 1);
+        } catch (UnsupportedOperationException e) {
+            rtnException = e;
+        }
+
+        assertThat(firstMap == secondMap,                                   is(true));
+        assertThat(firstMap,                                                is(JSONUtils.toMap(JSON_HAS_OBJECT_AND_OBJECT_ARRAY)));
+        assertThat((Integer) otherMap.get("id"),                            is(1));
+        assertThat(rtnException,                                            is(notNullValue()));
+        assertThat(parseCache.getHitCount(),                                is(1L));
+        assertThat(parseCache.getMissCount(),                               is(2L));
+        assertThat(parseCache.size(),                                       is(2));
+    }
+
+    @Test
+    public void testCachedFieldValues() throws Exception {
+        ParseCache parseCache           = new ParseCache();
+        JSONEngine jsonEngine           = JSONEngine.builder().parseCache(parseCache).build();
+        FieldExtractor fieldExtractor   = FieldExtractor.forFieldNames(new String[] {"id", "name"}, new byte[] {JSONUtils.TYPE_INT, JSONUtils.TYPE_STRING});
+        Object[] firstValues            = jsonEngine.getFieldValue(JSON_HAS_OBJECT_AND_OBJECT_ARRAY, fieldExtractor);
+
+        firstValues[0] = null;
+        Object[] secondValues           = jsonEngine.getFieldValue(JSON_HAS_OBJECT_AND_OBJECT_ARRAY, fieldExtractor);
+
+        assertThat((Integer) secondValues[0],   is(102030));
+        assertThat((String) secondValues[1],    is("Hello"));
+        assertThat(parseCache.getHitCount(),    is(1L));
+    }
+
+    @Test
+    public void testLegacyFieldNamesShareEntries() throws Exception {
+        ParseCache parseCache   = new ParseCache();
+        JSONEngine jsonEngine   = JSONEngine.builder().parseCache(parseCache).build();
+
+        for (int count = 0; count < 5; count++) {
+            jsonEngine.getFieldValue(JSON_HAS_OBJECT_AND_OBJECT_ARRAY, new String[] {"id"}, new byte[] {JSONUtils.TYPE_INT});
+        }
+        jsonEngine.getFieldValue(JSON_HAS_OBJECT_AND_OBJECT_ARRAY, FieldExtractor.compile("id", JSONUtils.TYPE_INT));
+        jsonEngine.getFieldValue(JSON_HAS_OBJECT_AND_OBJECT_ARRAY, new String[] {"id"}, new byte[] {JSONUtils.TYPE_LONG});
+
+        assertThat(parseCache.getHitCount(),    is(4L));
+        assertThat(parseCache.getMissCount(),   is(3L));
+        assertThat(parseCache.size(),           is(3));
+    }
+
+    @Test
+    public void testEvictsByWeight() throws Exception {
+        ParseCache parseCache   = new ParseCache(64, 1);
+        JSONEngine jsonEngine   = JSONEngine.builder().parseCache(parseCache).build();
+
+        for (int idx = 0; idx < 10; idx++) {
+            jsonEngine.toMap("{\"id\":" + (1000000 + idx) + "}");
+        }
+        jsonEngine.toMap(JSON_HAS_OBJECT_AND_OBJECT_ARRAY);
+
+        assertThat(parseCache.getWeight() <= 64,        is(true));
+        assertThat(parseCache.size(),                   is(4));
+        assertThat(parseCache.getEvictionCount(),       is(6L));
+    }
+}
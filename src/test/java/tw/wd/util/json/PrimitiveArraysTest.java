@@ -0,0 +1,69 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class PrimitiveArraysTest {
+
+    @Test
+    public void testGetFieldValueToFlatAndNestedArrays() throws Exception {
+        int[] flatInts      = JSONUtils.getFieldValue("{\"ids\":[1,2,3]}", "ids", JSONUtils.TYPE_ARRAY_INT);
+        int[] nestedInts    = JSONUtils.getFieldValue("{\"ids\":[[1,2],[3]]}", "ids", JSONUtils.TYPE_ARRAY_INT);
+        long[] longs        = JSONUtils.getFieldValue("{\"ids\":[1600000000000,2]}", "ids", JSONUtils.TYPE_ARRAY_LONG);
+        double[] doubles    = JSONUtils.getFieldValue("{\"ds\":[0.5,2,null]}", "ds", JSONUtils.TYPE_ARRAY_DOUBLE);
+        boolean[] booleans  = JSONUtils.getFieldValue("{\"bs\":[true,false]}", "bs", JSONUtils.TYPE_ARRAY_BOOLEAN);
+
+        assertThat(flatInts.length,     is(3));
+        assertThat(flatInts[2],         is(3));
+        assertThat(nestedInts.length,   is(3));
+        assertThat(nestedInts[2],       is(3));
+        assertThat(longs[0],            is(1600000000000L));
+        assertThat(doubles.length,      is(2));
+        assertThat(doubles[0],          is(0.5));
+        assertThat(booleans[0],         is(true));
+        assertThat(booleans[1],         is(false));
+    }
+
+    @Test
+    public void testGetFieldValueTo2DArrays() throws Exception {
+        int[][] ints        = JSONUtils.getFieldValue("{\"m\":[[1,2],[],[3]]}", "m", JSONUtils.TYPE_ARRAY_INT_2D);
+        long[][] longs      = JSONUtils.getFieldValue("{\"m\":[[1],[2,3]]}", "m", JSONUtils.TYPE_ARRAY_LONG_2D);
+        double[][] doubles  = JSONUtils.getFieldValue("{\"m\":[[1.5]]}", "m", JSONUtils.TYPE_ARRAY_DOUBLE_2D);
+
+        assertThat(ints.length,         is(3));
+        assertThat(ints[0][1],          is(2));
+        assertThat(ints[1].length,      is(0));
+        assertThat(ints[2][0],          is(3));
+        assertThat(longs[1][1],         is(3L));
+        assertThat(doubles[0][0],       is(1.5));
+    }
+
+    @Test
+    public void testReadIntoReusedBuffer() throws Exception {
+        JsonFactory jsonFactory             = new JsonFactory();
+        PrimitiveArrays.IntArray intArray   = new PrimitiveArrays.IntArray(2);
+        int[] backingArray                  = null;
+
+        for (int round = 0; round < 2; round++) {
+            JsonParser jsonParser = jsonFactory.createParser("[10,20,30,40,50]");
+            jsonParser.nextToken();
+
+            intArray.clear();
+            PrimitiveArrays.readInts(jsonParser, intArray);
+            jsonParser.close();
+
+            if (round == 0) {
+                backingArray = intArray.array();
+            }
+        }
+
+        assertThat(intArray.size(),                 is(5));
+        assertThat(intArray.get(4),                 is(50));
+        assertThat(intArray.array() == backingArray, is(true));
+    }
+}
@@ -0,0 +1,95 @@
+package tw.wd.util.json;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class TypeCodecTest {
+
+    static class Entity {
+        long id;
+    }
+
+    @CompiledCodec
+    static class Message extends Entity {
+        int pid;
+        String pname;
+        boolean active;
+        double score;
+        char grade;
+        Integer rank;
+        List<Owner> members;
+        transient String cached;
+    }
+
+    @CompiledCodec
+    static class Owner {
+        int uid;
+        String name;
+    }
+
+    @Test
+    public void testCodecIsGenerated() throws Exception {
+        Class<?> codecClass = Class.forName("tw.wd.util.json.TypeCodecTest_Message_TypeCodec");
+
+        assertThat(TypeCodec.class.isAssignableFrom(codecClass), is(true));
+    }
+
+    @Test
+    public void testWriteInDeclarationOrder() throws Exception {
+        Message message = createMessage();
+
+        assertThat(JSONUtils.toJSON(message), is("{\"id\":7,\"pid\":10001,\"pname\":\"test_project1\",\"active\":true,\"score\":0.5,"
+                + "\"grade\":\"A\",\"rank\":null,\"members\":[{\"uid\":1,\"name\":\"owner\"}]}"));
+    }
+
+    @Test
+    public void testCodecValueInsideMap() throws Exception {
+        Map<String, Object> valueMap    = new LinkedHashMap<String, Object>();
+        Owner owner                     = createMessage().members.get(0);
+
+        valueMap.put("owner", owner);
+        valueMap.put("owners", Arrays.asList(owner));
+
+        assertThat(JSONUtils.toJSON(valueMap), is("{\"owner\":{\"uid\":1,\"name\":\"owner\"},\"owners\":[{\"uid\":1,\"name\":\"owner\"}]}"));
+    }
+
+    @Test
+    public void testReadInAndOutOfOrder() throws Exception {
+        Message inOrder     = JSONUtils.toObject(JSONUtils.toJSON(createMessage()), Message.class);
+        Message outOfOrder  = JSONUtils.toObject("{\"pname\":\"p\",\"extra\":[1,{\"a\":2}],\"members\":[{\"name\":\"n\",\"uid\":3}],\"id\":9,\"pid\":null,\"grade\":\"B\"}", Message.class);
+
+        assertThat(inOrder.id,                          is(7L));
+        assertThat(inOrder.pname,                       is("test_project1"));
+        assertThat(inOrder.grade,                       is('A'));
+        assertThat(inOrder.rank,                        is(nullValue()));
+        assertThat(inOrder.members.get(0).name,         is("owner"));
+        assertThat(outOfOrder.id,                       is(9L));
+        assertThat(outOfOrder.pid,                      is(0));
+        assertThat(outOfOrder.pname,                    is("p"));
+        assertThat(outOfOrder.grade,                    is('B'));
+        assertThat(outOfOrder.members.get(0).uid,       is(3));
+    }
+
+    private static Message createMessage() {
+        Message message = new Message();
+        Owner owner     = new Owner();
+
+        owner.uid       = 1;
+        owner.name      = "owner";
+
+        message.id      = 7L;
+        message.pid     = 10001;
+        message.pname   = "test_project1";
+        message.active  = true;
+        message.score   = 0.5;
+        message.grade   = 'A';
+        message.members = Collections.singletonList(owner);
+        message.cached  = "cached";
+        return message;
+    }
+}
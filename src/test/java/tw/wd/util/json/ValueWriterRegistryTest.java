@@ -0,0 +1,113 @@
+package tw.wd.util.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+
+public class ValueWriterRegistryTest {
+
+    private enum Status {
+        ACTIVE
+    }
+
+    private static class Point {
+        private final int x;
+        private final int y;
+
+        private Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    @Test
+    public void testWriteBuiltInTypes() {
+        Map<String, Object> valueMap = new LinkedHashMap<String, Object>();
+
+        valueMap.put("f",   1.5f);
+        valueMap.put("s",   (short) 7);
+        valueMap.put("bd",  new BigDecimal("12345678901234567890.5"));
+        valueMap.put("al",  new AtomicLong(42));
+        valueMap.put("ia",  new int[]{1, 2});
+        valueMap.put("la",  new long[]{3000000000L});
+        valueMap.put("da",  new double[]{0.5});
+        valueMap.put("set", new TreeSet<String>(Arrays.asList("b", "a")));
+        valueMap.put("st",  Status.ACTIVE);
+        valueMap.put("sa",  new String[]{"x", null});
+
+        assertThat(JSONUtils.toJSON(valueMap), is("{\"f\":1.5,\"s\":7,\"bd\":12345678901234567890.5,\"al\":42,"
+                + "\"ia\":[1,2],\"la\":[3000000000],\"da\":[0.5],\"set\":[\"a\",\"b\"],\"st\":\"ACTIVE\",\"sa\":[\"x\",null]}"));
+    }
+
+    @Test
+    public void testRegisteredWriterReplacesCachedResolution() {
+        ValueWriterRegistry registry    = new ValueWriterRegistry();
+        JSONEngine jsonEngine           = JSONEngine.builder().valueWriterRegistry(registry).build();
+        Map<String, Object> valueMap    = new HashMap<String, Object>();
+        String beforeJSON               = null;
+        String afterJSON                = null;
+
+        valueMap.put("p", new Point(1, 2));
+        beforeJSON = jsonEngine.toJSON(valueMap);
+
+        registry.register(Point.class, new ValueWriter<Point>() {
+            @Override
+            public void write(JsonGenerator jsonGenerator, Point value, ValueWriterRegistry registry) throws IOException {
+                jsonGenerator.writeStartArray();
+                jsonGenerator.writeNumber(value.x);
+                jsonGenerator.writeNumber(value.y);
+                jsonGenerator.writeEndArray();
+            }
+        });
+        afterJSON = jsonEngine.toJSON(valueMap);
+
+        assertThat(beforeJSON,                                      is("{\"p\":{\"x\":1,\"y\":2}}"));
+        assertThat(afterJSON,                                       is("{\"p\":[1,2]}"));
+        assertThat(registry.getWriter(Point.class),                 is(notNullValue()));
+        assertThat(ValueWriterRegistry.getDefault().getWriter(Point.class) == registry.getWriter(Point.class), is(false));
+    }
+
+    @Test
+    public void testInterfaceWriterForSubclass() {
+        ValueWriterRegistry registry    = new ValueWriterRegistry();
+        JSONEngine jsonEngine           = JSONEngine.builder().valueWriterRegistry(registry).build();
+        Map<String, Object> valueMap    = new HashMap<String, Object>();
+
+        registry.register(Collection.class, new ValueWriter<Collection<?>>() {
+            @Override
+            public void write(JsonGenerator jsonGenerator, Collection<?> value, ValueWriterRegistry registry) throws IOException {
+                jsonGenerator.writeNumber(value.size());
+            }
+        });
+        valueMap.put("c", new ArrayDeque<String>(Arrays.asList("a", "b", "c")));
+
+        assertThat(jsonEngine.toJSON(valueMap), is("{\"c\":3}"));
+    }
+
+    @Test
+    public void testFieldNameCacheIsBounded() {
+        ValueWriterRegistry registry    = new ValueWriterRegistry(2);
+        JSONEngine jsonEngine           = JSONEngine.builder().valueWriterRegistry(registry).build();
+        Map<String, Object> valueMap    = new LinkedHashMap<String, Object>();
+
+        valueMap.put("name",    "Hello");
+        valueMap.put("q\"k",    1);
+        valueMap.put("ä",  2);
+
+        String firstJSON    = jsonEngine.toJSON(valueMap);
+        String secondJSON   = jsonEngine.toJSON(valueMap);
+
+        assertThat(firstJSON,                           is("{\"name\":\"Hello\",\"q\\\"k\":1,\"ä\":2}"));
+        assertThat(secondJSON,                          is(firstJSON));
+        assertThat(registry.encodeFieldName("name").getValue(), is("name"));
+        assertThat(registry.encodeFieldName("other").getValue(), is("other"));
+    }
+}